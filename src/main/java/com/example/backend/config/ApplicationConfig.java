@@ -21,7 +21,7 @@ public class ApplicationConfig {
 
     @Bean
     public UserDetailsService userDetailsService() {
-        return username -> userRepository.findByEmail(username)
+        return username -> userRepository.findByEmailNaturalId(username)
                 .orElseThrow(() -> new UsernameNotFoundException(String.format("user with email %s not found", username)));
     }
 
@@ -0,0 +1,17 @@
+package com.example.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@code @Async} listeners and {@code @Scheduled} background jobs. Async work runs on Spring Boot's
+ * applicationTaskExecutor, sized through {@code spring.task.execution.pool.*}, or on a virtual thread per task when
+ * {@code spring.threads.virtual.enabled} is set. Scheduled jobs share a pool sized through
+ * {@code spring.task.scheduling.pool.size}, a job only waits for another while every thread is busy.
+ */
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class AsyncConfiguration {
+}
@@ -0,0 +1,53 @@
+package com.example.backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sizes the connection pool of the prod profile from the machine instead of a fixed number, following HikariCP's
+ * {@code connections = cores * 2 + effective spindles}: postgres gets about as many busy connections as it has cores
+ * to run them, and more only stack up as lock and context switch overhead. The pool is fixed size, minimum idle
+ * equals the maximum, so a burst never waits on new connections.
+ * <p>
+ * {@code backend.datasource.pool-size} overrides the derived size, {@code backend.datasource.database-cores}
+ * should be set when postgres does not run on a machine like this one.
+ */
+@Slf4j
+@Component
+@Profile("prod")
+public class HikariPoolSizing implements BeanPostProcessor {
+
+    private final int poolSize;
+    private final int databaseCores;
+    private final int spindles;
+
+    public HikariPoolSizing(
+            @Value("${backend.datasource.pool-size:0}") int poolSize,
+            @Value("${backend.datasource.database-cores:0}") int databaseCores,
+            @Value("${backend.datasource.effective-spindles:1}") int spindles
+    ) {
+        this.poolSize = poolSize;
+        this.databaseCores = databaseCores > 0 ? databaseCores : Runtime.getRuntime().availableProcessors();
+        this.spindles = spindles;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        // runs after spring.datasource.hikari.* is bound and before the pool starts on the first getConnection
+        if (bean instanceof HikariDataSource dataSource) {
+            int size = size();
+            dataSource.setMaximumPoolSize(size);
+            dataSource.setMinimumIdle(size);
+            log.info("postProcessAfterInitialization/pool {} sized to {} connections", dataSource.getPoolName(), size);
+        }
+        return bean;
+    }
+
+    int size() {
+        return poolSize > 0 ? poolSize : databaseCores * 2 + spindles;
+    }
+}
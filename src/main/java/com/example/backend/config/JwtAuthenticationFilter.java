@@ -1,5 +1,6 @@
 package com.example.backend.config;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -22,6 +23,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final JwtTokenCache tokenCache;
+    private final JwtDenyList denyList;
 
     @Override
     protected void doFilterInternal(
@@ -35,17 +38,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String userEmail;
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
             return;
         }
         jwt = authHeader.substring(7);
-        userEmail = jwtService.extractUsername(jwt);
-        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-
-
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = resolvePrincipal(jwt);
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
@@ -55,7 +55,42 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                         new WebAuthenticationDetailsSource().buildDetails(request)
                 );
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+            }
         }
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * returns the principal for a bearer token, verifying and loading it only on a cache miss.
+     * with stateless principals enabled, tokens carrying principal claims are trusted without a user lookup
+     * and revoked through the deny-list; otherwise locked or disabled accounts are never cached nor authenticated.
+     */
+    private UserDetails resolvePrincipal(String jwt) {
+        JwtTokenCache.CachedToken cached = tokenCache.get(jwt);
+        if (cached != null) {
+            if (cached.getPrincipal() instanceof JwtPrincipal && denyList.isDenied(cached.getClaims())) {
+                return null;
+            }
+            return cached.getPrincipal();
+        }
+        final Claims claims = jwtService.extractAllClaims(jwt);
+        final String userEmail = claims.getSubject();
+        if (userEmail == null) {
+            return null;
+        }
+        UserDetails userDetails;
+        if (jwtService.isStatelessPrincipal() && JwtPrincipal.hasPrincipalClaims(claims)) {
+            if (denyList.isDenied(claims)) {
+                return null;
+            }
+            userDetails = JwtPrincipal.fromClaims(claims);
+        } else {
+            userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+            if (!userDetails.isAccountNonLocked() || !userDetails.isEnabled()) {
+                return null;
+            }
+        }
+        tokenCache.put(jwt, claims, userDetails);
+        return userDetails;
+    }
 }
@@ -0,0 +1,44 @@
+package com.example.backend.config;
+
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory deny-list for stateless principals: tokens of a revoked user issued before the revocation
+ * are rejected. An entry is only needed until the last such token expires on its own, so the list stays
+ * as small as the number of users locked, deleted or updated within one token lifetime.
+ * <p>
+ * The list is local to this instance.
+ */
+@Slf4j
+@Component
+public class JwtDenyList {
+
+    private final long jwtExpiration;
+    // user id -> tokens issued before this instant (epoch millis) are denied. "iat" only has whole seconds, so the
+    // instant is the start of the next second: a token from the same second as the revocation may predate it
+    private final Map<Long, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    public JwtDenyList(@Value("${backend.security.jwt.expiration}") long jwtExpiration) {
+        this.jwtExpiration = jwtExpiration;
+    }
+
+    public void revoke(long userId) {
+        log.info("revoke/userId={}", userId);
+        long now = System.currentTimeMillis();
+        revokedBefore.values().removeIf(revokedAt -> revokedAt + jwtExpiration < now);
+        revokedBefore.put(userId, (now / 1000 + 1) * 1000);
+    }
+
+    public boolean isDenied(Claims claims) {
+        Object userId = claims.get(JwtPrincipal.USER_ID_CLAIM);
+        if (userId == null || claims.getIssuedAt() == null) return false;
+        Long revokedAt = revokedBefore.get(((Number) userId).longValue());
+        return revokedAt != null && claims.getIssuedAt().getTime() < revokedAt;
+    }
+}
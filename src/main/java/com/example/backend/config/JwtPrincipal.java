@@ -0,0 +1,84 @@
+package com.example.backend.config;
+
+import com.example.backend.models.enums.Role;
+import io.jsonwebtoken.Claims;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Lightweight principal rebuilt from the claims of a signed token, used instead of loading the
+ * {@link com.example.backend.models.entities.User} entity when stateless principals are enabled.
+ */
+@Getter
+@AllArgsConstructor
+public class JwtPrincipal implements UserDetails {
+
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
+    public static final String AUTHORITIES_CLAIM = "authorities";
+
+    private final Long id;
+    private final String email;
+    private final Role role;
+    private final List<GrantedAuthority> authorities;
+
+    public static boolean hasPrincipalClaims(Claims claims) {
+        return claims.get(USER_ID_CLAIM) != null && claims.get(ROLE_CLAIM) != null;
+    }
+
+    public static JwtPrincipal fromClaims(Claims claims) {
+        List<GrantedAuthority> authorities = ((Collection<?>) claims.getOrDefault(AUTHORITIES_CLAIM, List.of()))
+                .stream()
+                .map(authority -> new SimpleGrantedAuthority(String.valueOf(authority)))
+                .collect(Collectors.toList());
+        return new JwtPrincipal(
+                ((Number) claims.get(USER_ID_CLAIM)).longValue(),
+                claims.getSubject(),
+                Role.valueOf(String.valueOf(claims.get(ROLE_CLAIM))),
+                authorities
+        );
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    // revocation of stateless principals is handled by JwtDenyList
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.backend.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of already verified bearer tokens, keyed by a SHA-256 hash of the token.
+ * A hit skips both signature verification and the user lookup in {@link JwtAuthenticationFilter}.
+ * Entries never outlive the token's own expiry.
+ */
+@Slf4j
+@Component
+public class JwtTokenCache {
+
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final Cache<String, CachedToken> cache;
+
+    public JwtTokenCache(
+            @Value("${backend.security.jwt.cache.enabled:true}") boolean enabled,
+            @Value("${backend.security.jwt.cache.max-size:10000}") long maxSize,
+            @Value("${backend.security.jwt.cache.ttl:300000}") long ttlMillis,
+            MeterRegistry meterRegistry
+    ) {
+        this.enabled = enabled;
+        this.ttlMillis = ttlMillis;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.tokens");
+    }
+
+    public CachedToken get(String token) {
+        if (!enabled) return null;
+        return cache.getIfPresent(hash(token));
+    }
+
+    public void put(String token, Claims claims, UserDetails principal) {
+        if (!enabled || claims.getExpiration() == null) return;
+        long expiresAt = Math.min(claims.getExpiration().getTime(), System.currentTimeMillis() + ttlMillis);
+        cache.put(hash(token), new CachedToken(claims, principal, expiresAt));
+    }
+
+    /**
+     * drops every cached token issued to the given user. When called inside a transaction the
+     * eviction is repeated after commit, so a request racing the commit cannot re-cache a stale principal.
+     */
+    public void invalidateUser(String username) {
+        log.info("invalidateUser/username={}", username);
+        evict(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(username);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private void evict(String username) {
+        cache.asMap().values().removeIf(token -> username.equals(token.getClaims().getSubject()));
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class CachedToken {
+        private final Claims claims;
+        private final UserDetails principal;
+        private final long expiresAt;
+    }
+
+    private static class TokenExpiry implements Expiry<String, CachedToken> {
+        @Override
+        public long expireAfterCreate(String key, CachedToken value, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, value.getExpiresAt() - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
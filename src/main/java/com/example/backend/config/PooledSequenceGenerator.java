@@ -0,0 +1,42 @@
+package com.example.backend.config;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+
+import java.lang.reflect.Member;
+import java.util.Properties;
+
+/**
+ * Sequence id generator behind {@link SequenceId}, whose allocation size comes from configuration instead of the
+ * mapping. Reads {@value #ALLOCATION_SIZE} (set through {@code spring.jpa.properties}) and hands out ids with the
+ * pooled-lo optimizer: every {@code nextval} reserves the block {@code [value, value + allocation size)}, so
+ * hibernate only goes to the sequence once per block and can batch the inserts. Plain SQL may still take ids with
+ * {@code nextval}, it just uses one id of its block.
+ * <p>
+ * The database sequence must be created with the same increment, changing the allocation size of an existing
+ * schema needs an {@code ALTER SEQUENCE ... INCREMENT BY}. With {@link SequenceId#pooled()} off every id is its own
+ * {@code nextval}, for tables whose ids have to follow insert order. Hibernate does not compare an unpooled
+ * increment with the sequence's.
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String ALLOCATION_SIZE = "backend.id.allocation_size";
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    public PooledSequenceGenerator(SequenceId config, Member member, CustomIdGeneratorCreationContext context) {
+        Properties params = new Properties();
+        params.setProperty(SEQUENCE_PARAM, config.value());
+        if (config.pooled()) {
+            Object allocationSize = context.getServiceRegistry().getService(ConfigurationService.class)
+                    .getSettings().get(ALLOCATION_SIZE);
+            params.setProperty(INCREMENT_PARAM, allocationSize == null ? String.valueOf(DEFAULT_ALLOCATION_SIZE) : allocationSize.toString());
+            params.setProperty(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+        } else {
+            params.setProperty(INCREMENT_PARAM, "1");
+            params.setProperty(OPT_PARAM, StandardOptimizerDescriptor.NONE.getExternalName());
+        }
+        configure(context.getProperty().getType(), params, context.getServiceRegistry());
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.backend.config;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a service method as a read-only transaction, which {@link ReplicaRoutingDataSource} may serve from a
+ * replica. jakarta's {@code @Transactional} used for the writes has no read-only flag, hence spring's here. Called
+ * from inside a write transaction the method joins it and stays on the primary.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Transactional(readOnly = true)
+public @interface ReadOnlyTransactional {
+}
@@ -0,0 +1,72 @@
+package com.example.backend.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Polls how far the replica's replay is behind the primary. Until the first successful check, and whenever the
+ * replica can not be reached, the replica counts as unhealthy and reads stay on the primary. A server that is not
+ * in recovery, a primary standing in for the replica locally, reports no lag.
+ * <p>
+ * A measurement ages: the replica may have fallen further behind since, so the time since the last successful
+ * check counts towards the lag. Checks held up on a busy scheduler move reads back to the primary instead of
+ * trusting an old value.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements MeterBinder {
+
+    // replay is caught up when everything received has been replayed, the replay timestamp alone keeps growing
+    // while the primary is idle
+    static final String LAG_QUERY = "SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0 " +
+            "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE (EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000)::bigint END";
+
+    private final JdbcTemplate replica;
+    private final long maxLag;
+    private final LongSupplier clock;
+    // ms, -1 when unknown
+    private volatile long lag = -1;
+    // when lag was measured
+    private volatile long measuredAt;
+
+    public ReplicaLagMonitor(JdbcTemplate replica, long maxLag) {
+        this(replica, maxLag, System::currentTimeMillis);
+    }
+
+    ReplicaLagMonitor(JdbcTemplate replica, long maxLag, LongSupplier clock) {
+        this.replica = replica;
+        this.maxLag = maxLag;
+        this.clock = clock;
+    }
+
+    @Scheduled(fixedDelayString = "${backend.datasource.replica.lag-check-interval:1000}")
+    public void check() {
+        try {
+            Long current = replica.queryForObject(LAG_QUERY, Long.class);
+            measuredAt = clock.getAsLong();
+            lag = current == null ? -1 : current;
+        } catch (RuntimeException e) {
+            log.warn("check/replica unreachable, reading from the primary: {}", e.getMessage());
+            lag = -1;
+        }
+    }
+
+    public boolean isHealthy() {
+        long current = lag;
+        return current >= 0 && current + Math.max(0, clock.getAsLong() - measuredAt) <= maxLag;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("backend.datasource.replica.lag", this, monitor -> monitor.lag)
+                .baseUnit("milliseconds")
+                .description("replay lag of the read replica, -1 when it could not be measured")
+                .register(registry);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.backend.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Sends read-only transactions ({@link ReadOnlyTransactional}) to the replica and everything else to the primary.
+ * A read still goes to the primary when
+ * <ul>
+ *     <li>the current user committed a write within the last {@code backend.datasource.replica.sticky-window},
+ *     so they read their own writes even if the replica has not replayed them yet</li>
+ *     <li>{@link ReplicaLagMonitor} reports the replica further behind than {@code backend.datasource.replica.max-lag},
+ *     or could not reach it</li>
+ * </ul>
+ * The read-only flag is only known once the transaction has begun, so this sits behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} that fetches the connection on the
+ * first statement. Recent writers are remembered per instance.
+ * <p>
+ * A session served by the replica only reads from the second-level and query caches
+ * ({@link CacheMode#GET}), otherwise a lagging replica would put stale entities and query results there for
+ * every instance to read until they expire.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target {PRIMARY, REPLICA}
+
+    private final BooleanSupplier replicaHealthy;
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, BooleanSupplier replicaHealthy, Duration stickyWindow) {
+        this.replicaHealthy = replicaHealthy;
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(stickyWindow)
+                .build();
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String user = currentUser();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (user != null && TransactionSynchronizationManager.isSynchronizationActive()) stickAfterCommit(user);
+            return Target.PRIMARY;
+        }
+        if (user != null && recentWriters.getIfPresent(user) != null) return Target.PRIMARY;
+        if (!replicaHealthy.getAsBoolean()) return Target.PRIMARY;
+        skipCachePuts();
+        return Target.REPLICA;
+    }
+
+    /**
+     * the entity manager of the transaction is bound by the time its first statement asks for a connection, the
+     * session is closed with the transaction so the cache mode does not outlive it
+     */
+    private static void skipCachePuts() {
+        for (Object resource : TransactionSynchronizationManager.getResourceMap().values()) {
+            if (resource instanceof EntityManagerHolder holder) {
+                holder.getEntityManager().unwrap(Session.class).setCacheMode(CacheMode.GET);
+            }
+        }
+    }
+
+    private void stickAfterCommit(String user) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(user, Boolean.TRUE);
+            }
+        });
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated() || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
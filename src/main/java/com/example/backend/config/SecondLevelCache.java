@@ -0,0 +1,123 @@
+package com.example.backend.config;
+
+import com.example.backend.models.entities.Post;
+import com.example.backend.models.entities.User;
+import com.example.backend.repositories.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * Evictions for writes that bypass hibernate (JdbcTemplate batches and cascading deletes), which the
+ * second-level cache can not see on its own. Also publishes a hit ratio gauge per cache region next to the
+ * hit and miss counters that hibernate-micrometer exposes.
+ */
+@Component
+@RequiredArgsConstructor
+public class SecondLevelCache implements MeterBinder {
+
+    public static final String USERS_REGION = "users";
+    public static final String POSTS_REGION = "posts";
+    public static final String USERS_BY_EMAIL_REGION = "users-by-email";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public void evictPosts(Collection<Long> postIds) {
+        Cache cache = cache();
+        postIds.forEach(postId -> cache.evictEntityData(Post.class, postId));
+    }
+
+    public void evictPostAfterCommit(long postId) {
+        afterCommit(() -> cache().evictEntityData(Post.class, postId));
+    }
+
+    /**
+     * comment statements change the posts' comment counts without going through hibernate
+     */
+    public void evictPostsAfterCommit(Collection<Long> postIds) {
+        afterCommit(() -> evictPosts(postIds));
+    }
+
+    /**
+     * follow statements change the users' follower counts and user_followers without going through hibernate
+     */
+    public void evictFollowsAfterCommit(Collection<Long> userIds) {
+        afterCommit(() -> {
+            Cache cache = cache();
+            userIds.forEach(userId -> cache.evictEntityData(User.class, userId));
+            cache.evictQueryRegion(UserRepository.FOLLOWERS_REGION);
+        });
+    }
+
+    /**
+     * a deleted user leaves authored posts without an author and liked posts with fewer likes, and the users they
+     * followed or were followed by with different counts, so the whole post and user regions go along with its
+     * email mapping and the cached follower lookups
+     */
+    public void evictUserAfterCommit(long userId) {
+        afterCommit(() -> {
+            Cache cache = cache();
+            cache.evictEntityData(User.class);
+            cache.evictNaturalIdData(User.class);
+            cache.evictEntityData(Post.class);
+            cache.evictQueryRegion(UserRepository.FOLLOWERS_REGION);
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        ratio(registry, USERS_REGION, statistics, stats -> stats.getDomainDataRegionStatistics(USERS_REGION));
+        ratio(registry, POSTS_REGION, statistics, stats -> stats.getDomainDataRegionStatistics(POSTS_REGION));
+        ratio(registry, USERS_BY_EMAIL_REGION, statistics, stats -> stats.getDomainDataRegionStatistics(USERS_BY_EMAIL_REGION));
+        ratio(registry, UserRepository.FOLLOWERS_REGION, statistics, stats -> stats.getQueryRegionStatistics(UserRepository.FOLLOWERS_REGION));
+    }
+
+    private static void ratio(MeterRegistry registry, String region, Statistics statistics,
+                              Function<Statistics, CacheRegionStatistics> regionStatistics) {
+        Gauge.builder("hibernate.second.level.cache.hit.ratio", statistics, stats -> {
+                    CacheRegionStatistics regionStats;
+                    try {
+                        regionStats = regionStatistics.apply(stats);
+                    } catch (IllegalArgumentException e) {
+                        // the region is created on first use
+                        return Double.NaN;
+                    }
+                    if (regionStats == null) return Double.NaN;
+                    long requests = regionStats.getHitCount() + regionStats.getMissCount();
+                    return requests == 0 ? Double.NaN : (double) regionStats.getHitCount() / requests;
+                })
+                .tag("region", region)
+                .description("share of second-level cache lookups answered from the cache")
+                .register(registry);
+    }
+
+    private Cache cache() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+
+    private static void afterCommit(Runnable eviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eviction.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eviction.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.backend.config;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates the annotated id from a database sequence through {@link PooledSequenceGenerator}, taking the
+ * place of {@code @GeneratedValue}.
+ */
+@Target({ElementType.FIELD, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@IdGeneratorType(PooledSequenceGenerator.class)
+public @interface SequenceId {
+
+    /**
+     * @return the name of the sequence
+     */
+    String value();
+
+    /**
+     * @return false to call {@code nextval} for every id instead of reserving pooled blocks, for tables whose ids
+     * have to follow insert order
+     */
+    boolean pooled() default true;
+}
@@ -0,0 +1,44 @@
+package com.example.backend.controllers;
+
+
+import com.example.backend.models.dtos.DeletionJob;
+import com.example.backend.response.ApiErrorResponse;
+import com.example.backend.response.ApiFailedResponse;
+import com.example.backend.services.CascadeDeleter;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/deletion-jobs")
+public class DeletionJobController {
+
+    private final CascadeDeleter cascadeDeleter;
+
+    @GetMapping("/{jobId}")
+    @ApiOperation(value = "progress of a background delete started with async=true", response = DeletionJob.class)
+    public ResponseEntity<?> getDeletionJob(@PathVariable String jobId) {
+        log.info("getDeletionJob/jobId = {}", jobId);
+        return cascadeDeleter.findJob(jobId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> new ResponseEntity<>(new ApiFailedResponse("deletion job not found or expired"), HttpStatus.NOT_FOUND));
+    }
+
+
+    /**
+     * Exceptions Handlers
+     */
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ApiErrorResponse> handleException(Exception e) {
+        log.info("handleException/");
+        log.error("handleException/e=" + e);
+        e.printStackTrace();
+        return new ResponseEntity<>(new ApiErrorResponse(e.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.backend.controllers;
+
+
+import com.example.backend.exceptions.UserNotFoundException;
+import com.example.backend.models.dtos.FeedResponse;
+import com.example.backend.response.ApiErrorResponse;
+import com.example.backend.response.ApiFailedResponse;
+import com.example.backend.services.FeedService;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/feed")
+public class FeedController {
+
+    private final FeedService feedService;
+
+    @GetMapping
+    @ApiOperation(value = "home feed of a user, newest first. pass nextBefore of a page as before to get the next one")
+    public ResponseEntity<FeedResponse> getFeed(
+            @RequestParam Long userId,
+            @RequestParam(name = "before", required = false) Long before,
+            @RequestParam(name = "pageSize", defaultValue = "20") int pageSize
+    ) {
+        return ResponseEntity.ok(feedService.getFeed(userId, before, pageSize));
+    }
+
+
+    /**
+     * Exceptions Handlers
+     */
+
+    @ExceptionHandler(UserNotFoundException.class)
+    public ResponseEntity<ApiFailedResponse> handleUserNotFoundException(UserNotFoundException e) {
+        log.info("handleUserNotFoundException/e=" + e);
+        return new ResponseEntity<>(new ApiFailedResponse(e.getMessage()), HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ApiErrorResponse> handleException(Exception e) {
+        log.info("handleException/");
+        log.error("handleException/e=" + e);
+        e.printStackTrace();
+        return new ResponseEntity<>(new ApiErrorResponse(e.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+}
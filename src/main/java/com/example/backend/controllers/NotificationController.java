@@ -1,16 +1,27 @@
 package com.example.backend.controllers;
 
 
+import com.example.backend.exceptions.InvalidCursorException;
+import com.example.backend.exceptions.NotificationException;
 import com.example.backend.models.dtos.CreateNotificationRequest;
+import com.example.backend.models.dtos.CursorSlice;
+import com.example.backend.models.dtos.NotificationView;
+import com.example.backend.models.dtos.PageSize;
+import com.example.backend.models.dtos.UnreadCountResponse;
 import com.example.backend.models.entities.Notification;
 import com.example.backend.response.ApiErrorResponse;
+import com.example.backend.response.ApiFailedResponse;
 import com.example.backend.services.NotificationService;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.MessageSourceResolvable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Slf4j
@@ -26,27 +37,91 @@ public class NotificationController {
 
     // Create a new notification for test todo: remove API later
     @PostMapping("/")
-    public ResponseEntity<Notification> createNotification(@RequestBody @Valid CreateNotificationRequest notificationRequest) {
+    public ResponseEntity<NotificationView> createNotification(@RequestBody @Valid CreateNotificationRequest notificationRequest) {
         Notification newNotification = notificationService.createNotification(notificationRequest);
-        return ResponseEntity.ok(newNotification);
+        return ResponseEntity.ok(notificationService.getNotification(newNotification.getId()));
     }
 
     // Get notifications for a user
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Notification>> getNotificationsForUser(@PathVariable Long userId) {
-        List<Notification> notifications = notificationService.getNotificationsForUser(userId);
+    public ResponseEntity<List<NotificationView>> getNotificationsForUser(@PathVariable Long userId) {
+        List<NotificationView> notifications = notificationService.getNotificationsForUser(userId);
         return ResponseEntity.ok(notifications);
     }
 
+    // Get notifications for a user newest first by cursor
+    @GetMapping("/user/{userId}/scroll")
+    public ResponseEntity<CursorSlice<NotificationView>> scrollNotificationsForUser(
+            @PathVariable Long userId,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "pageSize", defaultValue = "10") @PageSize int pageSize
+    ) {
+        return ResponseEntity.ok(notificationService.scrollNotificationsForUser(userId, cursor, pageSize));
+    }
+
+    // Get a user's inbox, unread notifications first
+    @GetMapping("/user/{userId}/inbox")
+    public ResponseEntity<CursorSlice<NotificationView>> getInbox(
+            @PathVariable Long userId,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "pageSize", defaultValue = "20") @PageSize int pageSize
+    ) {
+        return ResponseEntity.ok(notificationService.getInbox(userId, cursor, pageSize));
+    }
+
+    // Get the number of unread notifications of a user
+    @GetMapping("/user/{userId}/unread-count")
+    public ResponseEntity<UnreadCountResponse> getUnreadCount(@PathVariable Long userId) {
+        return ResponseEntity.ok(new UnreadCountResponse(notificationService.getUnreadCount(userId)));
+    }
+
     // Mark a notification as read
     @PutMapping("/{notificationId}/mark-as-read")
-    public ResponseEntity<Notification> markNotificationAsRead(@PathVariable Long notificationId) {
+    public ResponseEntity<?> markNotificationAsRead(@PathVariable Long notificationId) {
         notificationService.markNotificationAsRead(notificationId);
         return ResponseEntity.ok().build();
     }
 
 
 
+    // Mark several notifications of a user as read
+    @PutMapping("/user/{userId}/mark-as-read")
+    public ResponseEntity<?> markNotificationsAsRead(@PathVariable Long userId, @RequestBody List<Long> notificationIds) {
+        notificationService.markNotificationsAsRead(userId, notificationIds);
+        return ResponseEntity.ok().build();
+    }
+
+    // Mark everything up to a notification id or a time as read, the whole inbox when neither is given
+    @PutMapping("/user/{userId}/mark-all-as-read")
+    public ResponseEntity<?> markAllAsRead(
+            @PathVariable Long userId,
+            @RequestParam(name = "upToId", required = false) Long upToId,
+            @RequestParam(name = "upTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime upTo
+    ) {
+        notificationService.markAllAsRead(userId, upToId, upTo);
+        return ResponseEntity.ok().build();
+    }
+
+
+    @ExceptionHandler(NotificationException.class)
+    public ResponseEntity<ApiFailedResponse> handleNotificationException(NotificationException e) {
+        log.info("handleNotificationException/e=" + e);
+        return new ResponseEntity<>(new ApiFailedResponse(e.getMessage()), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ApiFailedResponse> handleInvalidCursorException(InvalidCursorException e) {
+        log.info("handleInvalidCursorException/e=" + e);
+        return new ResponseEntity<>(new ApiFailedResponse(e.getMessage()), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    public ResponseEntity<ApiFailedResponse> handleHandlerMethodValidationException(HandlerMethodValidationException e) {
+        log.info("handleHandlerMethodValidationException/e=" + e);
+        List<String> errorList = e.getAllErrors().stream().map(MessageSourceResolvable::getDefaultMessage).toList();
+        return new ResponseEntity<>(new ApiFailedResponse(errorList), HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiErrorResponse> handleException(Exception e) {
         log.info("handleException/");
@@ -2,11 +2,11 @@ package com.example.backend.controllers;
 
 
 import com.example.backend.exceptions.CommentException;
+import com.example.backend.exceptions.InvalidCursorException;
 import com.example.backend.exceptions.PostException;
 import com.example.backend.exceptions.PostNotFoundException;
+import com.example.backend.exceptions.UserNotFoundException;
 import com.example.backend.models.dtos.*;
-import com.example.backend.models.entities.Comment;
-import com.example.backend.models.entities.Post;
 import com.example.backend.response.ApiErrorResponse;
 import com.example.backend.response.ApiFailedResponse;
 import com.example.backend.services.CommentService;
@@ -14,11 +14,13 @@ import com.example.backend.services.PostService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.MessageSourceResolvable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 
 import java.util.List;
 
@@ -34,16 +36,25 @@ public class PostController {
 
     // Get posts with pagination and sorting
     @GetMapping("/list")
-    public ResponseEntity<Page<Post>> getPostsByPage(
+    public ResponseEntity<Page<PostView>> getPostsByPage(
             @RequestParam(name = "page", defaultValue = "0") int page,
             @RequestParam(name = "pageSize", defaultValue = "10") int pageSize,
             @RequestParam(name = "sortField", defaultValue = "creationDate") String sortField,
             @RequestParam(name = "sortDirection", defaultValue = "DESC") Sort.Direction sortDirection
     ) {
-        Page<Post> posts = postService.getAllPosts(page, pageSize, sortField, sortDirection);
+        Page<PostView> posts = postService.getAllPosts(page, pageSize, sortField, sortDirection);
         return ResponseEntity.ok(posts);
     }
 
+    // Get posts newest first by cursor, no total count
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorSlice<PostView>> scrollPosts(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "pageSize", defaultValue = "10") @PageSize int pageSize
+    ) {
+        return ResponseEntity.ok(postService.scrollPosts(cursor, pageSize));
+    }
+
     // Create a new post
     @PostMapping("/")
     public ResponseEntity<CreatePostResponse> createPost(@RequestBody @Valid CreatePostRequest postRequest) {
@@ -51,6 +62,12 @@ public class PostController {
         return ResponseEntity.ok(post);
     }
 
+    // Import posts in bulk
+    @PostMapping("/import")
+    public ResponseEntity<BulkImportResponse> importPosts(@RequestBody List<CreatePostRequest> postRequests) {
+        return ResponseEntity.ok(postService.importPosts(postRequests));
+    }
+
     // Update a post
     @PutMapping("/{postId}")
     public ResponseEntity<?> updatePost(@PathVariable Long postId, @RequestBody @Valid UpdatePostRequest updatePostRequest) {
@@ -60,21 +77,32 @@ public class PostController {
 
     // Delete a post
     @DeleteMapping("/{postId}")
-    public ResponseEntity<?> deletePost(@PathVariable Long postId) {
+    public ResponseEntity<?> deletePost(@PathVariable Long postId,
+                                        @RequestParam(name = "async", defaultValue = "false") boolean async) {
+        if (async) {
+            return ResponseEntity.accepted().body(postService.deletePostAsync(postId));
+        }
         postService.deletePost(postId);
         return ResponseEntity.noContent().build();
     }
 
     // Like a post
     @PutMapping("/{postId}/like")
-    public ResponseEntity<Post> likePost(@PathVariable Long postId, @RequestParam Long userId) {
+    public ResponseEntity<?> likePost(@PathVariable Long postId, @RequestParam Long userId) {
         postService.likePost(postId, userId);
         return ResponseEntity.ok().build();
     }
 
-    // Post search endpoint
+    // Unlike a post
+    @DeleteMapping("/{postId}/like")
+    public ResponseEntity<?> unlikePost(@PathVariable Long postId, @RequestParam Long userId) {
+        postService.unlikePost(postId, userId);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Post search endpoint, sortField=relevance puts the best matches first
     @GetMapping("/search")
-    public ResponseEntity<Page<Post>> searchPosts(
+    public ResponseEntity<Page<PostView>> searchPosts(
             @RequestParam(name = "keyword", required = false) String keyword,
             @RequestParam(name = "page", defaultValue = "0") int page,
             @RequestParam(name = "pageSize", defaultValue = "10") int pageSize,
@@ -82,10 +110,20 @@ public class PostController {
             @RequestParam(name = "sortDirection", defaultValue = "DESC") Sort.Direction sortDirection
 
     ) {
-        Page<Post> posts = postService.searchPosts(keyword, page, pageSize, sortField, sortDirection);
+        Page<PostView> posts = postService.searchPosts(keyword, page, pageSize, sortField, sortDirection);
         return ResponseEntity.ok(posts);
     }
 
+    // Post search by cursor, newest first
+    @GetMapping("/search/scroll")
+    public ResponseEntity<CursorSlice<PostView>> scrollSearchPosts(
+            @RequestParam(name = "keyword", required = false) String keyword,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "pageSize", defaultValue = "10") @PageSize int pageSize
+    ) {
+        return ResponseEntity.ok(postService.scrollSearchPosts(keyword, cursor, pageSize));
+    }
+
 
     //create post's comment
     @PostMapping("/{postId}/comments")
@@ -94,6 +132,13 @@ public class PostController {
     }
 
 
+    //import comments in bulk, each request names its post
+    @PostMapping("/comments/import")
+    public ResponseEntity<BulkImportResponse> importComments(@RequestBody List<CommentRequest> commentRequests) {
+        return ResponseEntity.ok(commentService.importComments(commentRequests));
+    }
+
+
     //edit post's comment
     @PutMapping("/{postId}/comments/{commentId}")
     public void updateComment(@PathVariable long commentId, @RequestBody UpdateCommentRequest request) {
@@ -101,10 +146,10 @@ public class PostController {
     }
 
 
-    //get all comments for post
+    //get a comment of the post
     @GetMapping("/{postId}/comments/{commentId}")
-    public ResponseEntity<Comment> getComment(@PathVariable Long commentId) {
-        Comment comment = commentService.getComment(commentId);
+    public ResponseEntity<CommentResponseI> getComment(@PathVariable Long commentId) {
+        CommentResponseI comment = commentService.getCommentResponse(commentId);
         return ResponseEntity.ok(comment);
     }
 
@@ -125,6 +170,15 @@ public class PostController {
         return ResponseEntity.ok(comments);
     }
 
+    //get comments for post by cursor, newest first
+    @GetMapping("/{postId}/comments/scroll")
+    public ResponseEntity<CursorSlice<CommentResponseI>> scrollCommentsForPost(@PathVariable Long postId,
+                                                                              @RequestParam(name = "cursor", required = false) String cursor,
+                                                                              @RequestParam(name = "pageSize", defaultValue = "10") @PageSize int pageSize
+    ) {
+        return ResponseEntity.ok(commentService.scrollCommentsForPost(postId, cursor, pageSize));
+    }
+
 
     @DeleteMapping("/{postId}/comments/{commentId}")
     public ResponseEntity<?> deleteComment(@PathVariable Long commentId, @RequestParam long userId) {
@@ -132,9 +186,9 @@ public class PostController {
         return ResponseEntity.noContent().build();
     }
 
-    // Post search endpoint
+    // Comment search within a post, sortField=relevance puts the best matches first
     @GetMapping("/{postId}/comments/search")
-    public ResponseEntity<Page<CommentResponseI>> searchComments(
+    public ResponseEntity<Page<CommentSearchResponseI>> searchComments(
             @PathVariable Long postId,
             @RequestParam(name = "keyword", required = false) String keyword,
             @RequestParam(name = "page", defaultValue = "0") int page,
@@ -143,7 +197,7 @@ public class PostController {
             @RequestParam(name = "sortDirection", defaultValue = "DESC") Sort.Direction sortDirection
 
     ) {
-        Page<CommentResponseI> posts = commentService.searchComments(keyword, postId, page, pageSize, sortField, sortDirection);
+        Page<CommentSearchResponseI> posts = commentService.searchComments(keyword, postId, page, pageSize, sortField, sortDirection);
         return ResponseEntity.ok(posts);
     }
 
@@ -160,6 +214,19 @@ public class PostController {
         return new ResponseEntity<>(new ApiFailedResponse(e.getMessage()), HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ApiFailedResponse> handleInvalidCursorException(InvalidCursorException e) {
+        log.info("handleInvalidCursorException/e=" + e);
+        return new ResponseEntity<>(new ApiFailedResponse(e.getMessage()), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    public ResponseEntity<ApiFailedResponse> handleHandlerMethodValidationException(HandlerMethodValidationException e) {
+        log.info("handleHandlerMethodValidationException/e=" + e);
+        List<String> errorList = e.getAllErrors().stream().map(MessageSourceResolvable::getDefaultMessage).toList();
+        return new ResponseEntity<>(new ApiFailedResponse(errorList), HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(PostNotFoundException.class)
     public ResponseEntity<ApiFailedResponse> handlePostNotFoundException(PostNotFoundException e) {
         log.error("PostNotFoundException/e=" + e);
@@ -167,6 +234,12 @@ public class PostController {
         return new ResponseEntity<>(new ApiFailedResponse(e.getMessage()), HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(UserNotFoundException.class)
+    public ResponseEntity<ApiFailedResponse> handleUserNotFoundException(UserNotFoundException e) {
+        log.info("handleUserNotFoundException/e=" + e);
+        return new ResponseEntity<>(new ApiFailedResponse(e.getMessage()), HttpStatus.NOT_FOUND);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiErrorResponse> handleException(Exception e) {
         log.info("handleException/");
@@ -0,0 +1,105 @@
+package com.example.backend.controllers;
+
+
+import com.example.backend.exceptions.UserNotFoundException;
+import com.example.backend.response.ApiErrorResponse;
+import com.example.backend.response.ApiFailedResponse;
+import com.example.backend.services.UserService;
+import com.example.backend.storage.PictureStorage;
+import com.example.backend.storage.StoredPicture;
+import io.swagger.annotations.ApiOperation;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/users")
+public class ProfilePictureController {
+
+    private final UserService userService;
+    private final PictureStorage pictureStorage;
+
+    @GetMapping("/{userId}/profile-picture")
+    @ApiOperation(value = "download profile photo, supports ETag revalidation and single byte ranges")
+    public void getProfilePicture(@PathVariable Long userId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        StoredPicture picture = userService.getProfilePicture(userId);
+        String eTag = picture.getETag();
+        long length = picture.getSize();
+        response.setHeader(HttpHeaders.ETAG, eTag);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, picture.getLastModified().toEpochMilli());
+
+        if (matchesETag(request.getHeader(HttpHeaders.IF_NONE_MATCH), eTag)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(eTag))) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+                // multiple ranges are answered with the whole picture, which the spec allows
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                    response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, String.format("bytes %d-%d/%d", start, end, length));
+                }
+            } catch (IllegalArgumentException e) {
+                log.info("getProfilePicture/unsatisfiable range {}", range);
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+        }
+
+        response.setContentType(picture.getContentType().toString());
+        response.setContentLengthLong(end - start + 1);
+        pictureStorage.transferTo(picture.getKey(), start, end - start + 1, Channels.newChannel(response.getOutputStream()));
+    }
+
+    private static boolean matchesETag(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) return false;
+        return Arrays.stream(ifNoneMatch.split(","))
+                .map(String::trim)
+                .map(tag -> tag.startsWith("W/") ? tag.substring(2) : tag)
+                .anyMatch(tag -> tag.equals("*") || tag.equals(eTag));
+    }
+
+
+    /**
+     * Exceptions Handlers
+     */
+
+    @ExceptionHandler(UserNotFoundException.class)
+    public ResponseEntity<ApiFailedResponse> handleUserNotFoundException(UserNotFoundException e) {
+        log.info("handleUserNotFoundException/e=" + e);
+        return new ResponseEntity<>(new ApiFailedResponse(e.getMessage()), HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ApiErrorResponse> handleException(Exception e) {
+        log.info("handleException/");
+        log.error("handleException/e=" + e);
+        e.printStackTrace();
+        return new ResponseEntity<>(new ApiErrorResponse(e.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+}
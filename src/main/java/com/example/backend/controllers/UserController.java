@@ -1,6 +1,7 @@
 package com.example.backend.controllers;
 
 
+import com.example.backend.exceptions.InvalidCursorException;
 import com.example.backend.exceptions.UserException;
 import com.example.backend.exceptions.UserNotFoundException;
 import com.example.backend.models.dtos.*;
@@ -13,12 +14,15 @@ import io.swagger.annotations.ApiOperation;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.MessageSourceResolvable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -71,6 +75,24 @@ public class UserController {
         return ResponseEntity.ok(userService.getAllUsers(page, pageSize, sortField, sortDirection));
     }
 
+    @GetMapping("/scroll")
+    @ApiOperation(value = "get all users newest first by cursor, pass nextCursor back as cursor", response = CursorSlice.class)
+    public ResponseEntity<CursorSlice<User>> scrollUsers(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "pageSize", defaultValue = "10") @PageSize int pageSize
+    ) {
+        return ResponseEntity.ok(userService.scrollUsers(cursor, pageSize));
+    }
+
+    @GetMapping("/typeahead")
+    @ApiOperation(value = "usernames starting with the given prefix, for autocomplete", response = UsernameSuggestion.class)
+    public ResponseEntity<List<UsernameSuggestion>> suggestUsernames(
+            @RequestParam(name = "prefix") String prefix,
+            @RequestParam(name = "limit", defaultValue = "10") int limit
+    ) {
+        return ResponseEntity.ok(userService.suggestUsernames(prefix, limit));
+    }
+
     @GetMapping("/search/users")
     @ApiOperation(value = "search Users ", response = ApiSuccessResponse.class)
     public ResponseEntity<Page<User>> searchUsers(
@@ -96,13 +118,26 @@ public class UserController {
     }
 
     @DeleteMapping("/{userId}")
-    @ApiOperation(value = "delete user", response = ApiSuccessResponse.class)
-    public ResponseEntity<ApiSuccessResponse> deleteUser(@PathVariable Long userId) {
+    @ApiOperation(value = "delete user. async=true locks the account and deletes it in the background, poll /api/deletion-jobs/{jobId} for progress", response = ApiSuccessResponse.class)
+    public ResponseEntity<ApiSuccessResponse> deleteUser(@PathVariable Long userId,
+                                                         @RequestParam(name = "async", defaultValue = "false") boolean async) {
+        if (async) {
+            return new ResponseEntity<>(new ApiSuccessResponse(userService.deleteUserAsync(userId)), HttpStatus.ACCEPTED);
+        }
         userService.deleteUser(userId);
         return ResponseEntity.ok(new ApiSuccessResponse(null));
     }
 
 
+    @PutMapping("/{userId}/lock")
+    @PreAuthorize("hasAuthority('admin:update')")
+    @ApiOperation(value = "lock or unlock a user account", response = ApiSuccessResponse.class)
+    public ResponseEntity<ApiSuccessResponse> lockUser(@PathVariable Long userId, @RequestParam(name = "locked", defaultValue = "true") boolean locked) {
+        userService.lockUser(userId, locked);
+        return ResponseEntity.ok(new ApiSuccessResponse(null));
+    }
+
+
     @PutMapping("/{userId}/follow/{followerId}")
     @ApiOperation(value = "follow user ", response = ApiSuccessResponse.class)
     public ResponseEntity<ApiSuccessResponse> followUser(@PathVariable Long userId, @PathVariable Long followerId) {
@@ -110,6 +145,12 @@ public class UserController {
         return ResponseEntity.ok(new ApiSuccessResponse(null));
     }
 
+    @PutMapping("/{followerId}/follow")
+    @ApiOperation(value = "follow several users at once, returns the ids newly followed", response = ApiSuccessResponse.class)
+    public ResponseEntity<ApiSuccessResponse> followUsers(@PathVariable Long followerId, @RequestBody List<Long> userIds) {
+        return ResponseEntity.ok(new ApiSuccessResponse(userService.followUsers(followerId, userIds)));
+    }
+
     @PutMapping("/{userId}/unfollow/{unFollowerId}")
     @ApiOperation(value = "unfollow user ", response = ApiSuccessResponse.class)
     public ResponseEntity<ApiSuccessResponse> unFollowUser(@PathVariable Long userId, @PathVariable Long unFollowerId) {
@@ -131,6 +172,67 @@ public class UserController {
         return ResponseEntity.ok(new ApiSuccessResponse(followers));
     }
 
+    @GetMapping("/{userId}/followers/scroll")
+    @ApiOperation(value = "get the people following a user in id order by cursor, pass nextCursor back as cursor", response = CursorSlice.class)
+    public ResponseEntity<CursorSlice<UserSummary>> scrollUserFollowers(
+            @PathVariable long userId,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "pageSize", defaultValue = "20") @PageSize int pageSize
+    ) {
+        return ResponseEntity.ok(userService.scrollFollowers(userId, cursor, pageSize));
+    }
+
+    @GetMapping("/{userId}/following/scroll")
+    @ApiOperation(value = "get the people a user is following in id order by cursor, pass nextCursor back as cursor", response = CursorSlice.class)
+    public ResponseEntity<CursorSlice<UserSummary>> scrollUserFollowing(
+            @PathVariable long userId,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "pageSize", defaultValue = "20") @PageSize int pageSize
+    ) {
+        return ResponseEntity.ok(userService.scrollFollowing(userId, cursor, pageSize));
+    }
+
+    @GetMapping("/{userId}/followers/known-by/{viewerId}")
+    @ApiOperation(value = "get how many of the people the viewer follows also follow a user, with the first few of them", response = KnownFollowers.class)
+    public ResponseEntity<KnownFollowers> getKnownFollowers(
+            @PathVariable long userId,
+            @PathVariable long viewerId,
+            @RequestParam(name = "sample", defaultValue = "3") int sample
+    ) {
+        return ResponseEntity.ok(userService.getKnownFollowers(userId, viewerId, sample));
+    }
+
+    @GetMapping("/{userId}/mutuals")
+    @ApiOperation(value = "get the people who follow a user and are followed back, in id order by cursor", response = CursorSlice.class)
+    public ResponseEntity<CursorSlice<UserSummary>> scrollMutuals(
+            @PathVariable long userId,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "pageSize", defaultValue = "20") @PageSize int pageSize
+    ) {
+        return ResponseEntity.ok(userService.scrollMutuals(userId, cursor, pageSize));
+    }
+
+    @GetMapping("/{userId}/recommendations")
+    @ApiOperation(value = "get who to follow suggestions, accounts followed by the people the user follows", response = FollowRecommendation.class)
+    public ResponseEntity<List<FollowRecommendation>> getRecommendations(
+            @PathVariable long userId,
+            @RequestParam(name = "limit", defaultValue = "10") int limit
+    ) {
+        return ResponseEntity.ok(userService.getRecommendations(userId, limit));
+    }
+
+    @GetMapping("/{userId}/follow-counts")
+    @ApiOperation(value = "get how many people follow a user and how many they follow", response = FollowCounts.class)
+    public ResponseEntity<FollowCounts> getFollowCounts(@PathVariable long userId) {
+        return ResponseEntity.ok(userService.getFollowCounts(userId));
+    }
+
+    @GetMapping("/{followerId}/follows/{userId}")
+    @ApiOperation(value = "check whether one user follows another", response = ApiSuccessResponse.class)
+    public ResponseEntity<ApiSuccessResponse> isFollowing(@PathVariable long followerId, @PathVariable long userId) {
+        return ResponseEntity.ok(new ApiSuccessResponse(userService.isFollowing(followerId, userId)));
+    }
+
 
 
     /**
@@ -145,6 +247,19 @@ public class UserController {
         return new ResponseEntity<>(new ApiFailedResponse(e.getMessage()), HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ApiFailedResponse> handleInvalidCursorException(InvalidCursorException e) {
+        log.info("handleInvalidCursorException/e=" + e);
+        return new ResponseEntity<>(new ApiFailedResponse(e.getMessage()), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    public ResponseEntity<ApiFailedResponse> handleHandlerMethodValidationException(HandlerMethodValidationException e) {
+        log.info("handleHandlerMethodValidationException/e=" + e);
+        List<String> errorList = e.getAllErrors().stream().map(MessageSourceResolvable::getDefaultMessage).toList();
+        return new ResponseEntity<>(new ApiFailedResponse(errorList), HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(UserNotFoundException.class)
     public ResponseEntity<ApiFailedResponse> handleUserNotFoundException(UserNotFoundException e) {
         log.info("handleUserNotFoundException/");
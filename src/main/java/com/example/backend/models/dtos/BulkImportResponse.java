@@ -0,0 +1,14 @@
+package com.example.backend.models.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class BulkImportResponse {
+    private int imported;
+    // in the order of the request
+    private List<Long> ids;
+}
@@ -0,0 +1,6 @@
+package com.example.backend.models.dtos;
+
+public interface CommentSearchResponseI extends CommentResponseI {
+    // matching fragments of the comment with the search terms wrapped in <b></b>
+    String getHighlight();
+}
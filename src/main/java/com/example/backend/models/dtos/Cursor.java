@@ -0,0 +1,46 @@
+package com.example.backend.models.dtos;
+
+import com.example.backend.exceptions.InvalidCursorException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a list sorted by (creationDate, id) descending. Clients only ever see it as the opaque
+ * token returned by {@link #encode()}.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class Cursor {
+
+    // later than any stored row, postgres timestamps can not hold LocalDateTime.MAX
+    private static final Cursor START = new Cursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    private final LocalDateTime creationDate;
+    private final long id;
+
+    public String encode() {
+        String position = creationDate + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param token a token from {@link #encode()}, null or blank for the first page
+     */
+    public static Cursor decode(String token) {
+        if (token == null || token.isBlank()) return START;
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = position.lastIndexOf('|');
+            return new Cursor(LocalDateTime.parse(position.substring(0, separator)), Long.parseLong(position.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new InvalidCursorException("invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.backend.models.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated list. There is no total count; pass {@code nextCursor} back as
+ * {@code cursor} until {@code hasNext} is false.
+ */
+@Data
+@AllArgsConstructor
+public class CursorSlice<T> {
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private List<T> content;
+    private boolean hasNext;
+    private String nextCursor;
+
+    public static <T> CursorSlice<T> of(Slice<T> slice, Function<T, Cursor> cursorOf) {
+        List<T> content = slice.getContent();
+        String nextCursor = slice.hasNext() && !content.isEmpty()
+                ? cursorOf.apply(content.get(content.size() - 1)).encode()
+                : null;
+        return new CursorSlice<>(content, slice.hasNext(), nextCursor);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.backend.models.dtos;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a chunked, asynchronous delete. Written by the deleting thread and read by the progress endpoint,
+ * hence the volatile fields.
+ */
+@Data
+public class DeletionJob {
+
+    public enum Status {QUEUED, RUNNING, COMPLETED, FAILED}
+
+    private final String jobId;
+    private final String type;
+    private final long targetId;
+    private volatile Status status = Status.QUEUED;
+    private volatile String currentStep;
+    private volatile long rowsAffected;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+}
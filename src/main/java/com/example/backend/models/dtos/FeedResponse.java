@@ -0,0 +1,16 @@
+package com.example.backend.models.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+public class FeedResponse {
+    private List<PostResponse> posts;
+    // pass back as "before" to get the next page, null when the feed is exhausted
+    private Long nextBefore;
+}
@@ -0,0 +1,13 @@
+package com.example.backend.models.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FollowCounts {
+    private long followers;
+    private long following;
+}
@@ -0,0 +1,15 @@
+package com.example.backend.models.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FollowRecommendation {
+    private Long id;
+    private String username;
+    // how many of the people the user follows follow this account
+    private int score;
+}
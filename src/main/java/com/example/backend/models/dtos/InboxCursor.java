@@ -0,0 +1,33 @@
+package com.example.backend.models.dtos;
+
+import com.example.backend.exceptions.InvalidCursorException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Position in a notification inbox, which lists unread notifications before read ones and each group by
+ * (createdAt, id) descending.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class InboxCursor {
+
+    private final boolean read;
+    private final Cursor position;
+
+    public String encode() {
+        return (read ? "r" : "u") + position.encode();
+    }
+
+    /**
+     * @param token a token from {@link #encode()}, null or blank for the first page
+     */
+    public static InboxCursor decode(String token) {
+        if (token == null || token.isBlank()) return new InboxCursor(false, Cursor.decode(null));
+        char phase = token.charAt(0);
+        if (phase != 'r' && phase != 'u') throw new InvalidCursorException("invalid cursor");
+        return new InboxCursor(phase == 'r', Cursor.decode(token.substring(1)));
+    }
+}
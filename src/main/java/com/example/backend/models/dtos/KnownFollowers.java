@@ -0,0 +1,18 @@
+package com.example.backend.models.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * "X, Y and {@code count - sample.size()} others you follow also follow this account"
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KnownFollowers {
+    private long count;
+    private List<UserSummary> sample;
+}
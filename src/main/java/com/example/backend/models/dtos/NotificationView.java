@@ -0,0 +1,16 @@
+package com.example.backend.models.dtos;
+
+import com.example.backend.models.enums.NotificationType;
+
+import java.time.LocalDateTime;
+
+public interface NotificationView {
+    Long getId();
+    NotificationType getNotificationType();
+    Long getPostId();
+    Long getSenderId();
+    String getSenderUsername();
+    Boolean getRead();
+    Integer getAggregateCount();
+    LocalDateTime getCreatedAt();
+}
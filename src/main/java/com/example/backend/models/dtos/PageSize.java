@@ -0,0 +1,32 @@
+package com.example.backend.models.dtos;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+import jakarta.validation.ReportAsSingleViolation;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * page size of a keyset-paginated endpoint, between 1 and {@value CursorSlice#MAX_PAGE_SIZE}
+ */
+@Documented
+@Min(1)
+@Max(CursorSlice.MAX_PAGE_SIZE)
+@ReportAsSingleViolation
+@Constraint(validatedBy = {})
+@Target({ElementType.PARAMETER, ElementType.FIELD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface PageSize {
+
+    String message() default "pageSize must be between 1 and " + CursorSlice.MAX_PAGE_SIZE;
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
@@ -0,0 +1,41 @@
+package com.example.backend.models.dtos;
+
+import com.example.backend.models.entities.Post;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+public class PostResponse {
+
+    private Long postId;
+    private String content;
+    private int likesCount;
+    private int commentsCount;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME, pattern = "yyyy-MM-dd h:m:s")
+    private LocalDateTime lastCommentAt;
+
+    private Long userId;
+    private String username;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME, pattern = "yyyy-MM-dd h:m:s")
+    private LocalDateTime creationDate;
+
+    public static PostResponse from(Post post) {
+        return PostResponse.builder()
+                .postId(post.getId())
+                .content(post.getContent())
+                .likesCount(post.getLikesCount())
+                .commentsCount(post.getCommentsCount())
+                .lastCommentAt(post.getLastCommentAt())
+                .userId(post.getUser() != null ? post.getUser().getId() : null)
+                .username(post.getUser() != null ? post.getUser().getUsername() : null)
+                .creationDate(post.getCreationDate())
+                .build();
+    }
+}
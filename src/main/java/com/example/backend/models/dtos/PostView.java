@@ -0,0 +1,17 @@
+package com.example.backend.models.dtos;
+
+import java.time.LocalDateTime;
+
+/**
+ * a post as the list and search endpoints return it, read in one query together with the author's username
+ */
+public interface PostView {
+    Long getPostId();
+    String getContent();
+    Integer getLikesCount();
+    Integer getCommentsCount();
+    LocalDateTime getLastCommentAt();
+    Long getUserId();
+    String getUsername();
+    LocalDateTime getCreationDate();
+}
@@ -0,0 +1,10 @@
+package com.example.backend.models.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class UnreadCountResponse {
+    private long unreadCount;
+}
@@ -0,0 +1,47 @@
+package com.example.backend.models.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * A post pushed onto a follower's home timeline. The primary key (user_id, post_id) doubles as the
+ * index used to keyset-page a timeline newest first.
+ */
+@Entity
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@IdClass(FeedEntry.FeedEntryId.class)
+@Table(name = "feed_entries", indexes = {
+        @Index(name = "idx_feed_entries_post_id", columnList = "post_id")
+})
+public class FeedEntry {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "post_id")
+    private Long postId;
+
+    @Column(name = "author_id")
+    private Long authorId;
+
+    private LocalDateTime createdAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FeedEntryId implements Serializable {
+        private Long userId;
+        private Long postId;
+    }
+}
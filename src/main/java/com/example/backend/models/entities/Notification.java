@@ -1,11 +1,15 @@
 package com.example.backend.models.entities;
 
+import com.example.backend.config.SequenceId;
 import com.example.backend.models.enums.NotificationType;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -17,22 +21,34 @@ import java.time.LocalDateTime;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        @Index(name = "idx_notifications_user_created_at_id", columnList = "user_id, created_at, id"),
+        @Index(name = "idx_notifications_sender_id", columnList = "sender_id"),
+        @Index(name = "idx_notifications_post_id", columnList = "post_id")
+})
 public class Notification {
 
+    // not pooled: ids must grow in insert order across instances, the read watermark (NotificationCounter)
+    // marks every notification up to an id read
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SequenceId(value = "notifications_seq", pooled = false)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @JoinColumn(name = "user_id", referencedColumnName = "id")
     private User user; // Recipient of the notification
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @JoinColumn(name = "sender_id", referencedColumnName = "id")
     private User sender; // Sender of the notification
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @JoinColumn(name = "post_id", referencedColumnName = "id")
     private Post post; // Associated post
 
@@ -41,6 +57,11 @@ public class Notification {
 
     private boolean isRead;
 
+    // number of events of this type on the post collapsed into this notification, sender is the latest one
+    @Builder.Default
+    @ColumnDefault("1")
+    private int aggregateCount = 1;
+
     @CreationTimestamp
     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME, pattern = "yyyy-MM-dd h:m:s")
     private LocalDateTime createdAt;
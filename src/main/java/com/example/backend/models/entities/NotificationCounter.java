@@ -0,0 +1,31 @@
+package com.example.backend.models.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+
+/**
+ * Unread notifications per user, kept up to date as notifications are written and read
+ * so the unread badge never needs a count(*). Every notification with an id up to the read watermark counts
+ * as read whatever its own flag says, so clearing an inbox is one write.
+ */
+@Entity
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "notification_counters")
+public class NotificationCounter {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    private long unreadCount;
+
+    @ColumnDefault("0")
+    private long readWatermark;
+}
@@ -1,11 +1,16 @@
 package com.example.backend.models.entities;
 
+import com.example.backend.config.SequenceId;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.springframework.format.annotation.DateTimeFormat;
 
@@ -16,17 +21,32 @@ import java.time.LocalDateTime;
 @Builder
 @AllArgsConstructor
 @Entity
-@Table(name = "posts")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "posts")
+@Table(name = "posts", indexes = {
+        @Index(name = "idx_posts_creation_date_id", columnList = "creation_date, id"),
+        @Index(name = "idx_posts_user_id", columnList = "user_id")
+})
 @NoArgsConstructor
 public class Post {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SequenceId("posts_seq")
     private Long id;
     private String content;
+    // only ever changed by LikeCounter's relative UPDATE, an entity save must not write back a stale value.
+    // LikeCounter evicts the cached post after each flush
+    @Column(updatable = false)
     private int likesCount;
+    // kept in step by the comment statements in CommentRepository, repaired by CommentCountReconciler
+    @Column(updatable = false, columnDefinition = "integer default 0 not null")
+    private int commentsCount;
+    @Column(updatable = false)
+    private LocalDateTime lastCommentAt;
 
     @JsonIgnore
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @JoinColumn(name = "user_id")
     private User user;
 
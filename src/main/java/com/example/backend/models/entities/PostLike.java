@@ -0,0 +1,43 @@
+package com.example.backend.models.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Who liked which post. The primary key (post_id, user_id) is what stops a user liking a post twice.
+ */
+@Entity
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@IdClass(PostLike.PostLikeId.class)
+@Table(name = "post_likes", indexes = {
+        @Index(name = "idx_post_likes_user_id", columnList = "user_id")
+})
+public class PostLike {
+
+    @Id
+    @Column(name = "post_id")
+    private Long postId;
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    private LocalDateTime createdAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PostLikeId implements Serializable {
+        private Long postId;
+        private Long userId;
+    }
+}
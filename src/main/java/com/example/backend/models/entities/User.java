@@ -1,10 +1,15 @@
 package com.example.backend.models.entities;
 
+import com.example.backend.config.SequenceId;
 import com.example.backend.models.enums.Role;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -15,15 +20,22 @@ import java.util.Set;
 
 @Data
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@NaturalIdCache(region = "users-by-email")
 @Builder
 @AllArgsConstructor
 @EqualsAndHashCode
-@NoArgsConstructor@Table(name = "users")
+@NoArgsConstructor@Table(name = "users", indexes = {
+        @Index(name = "idx_users_creation_date_id", columnList = "creation_date, id")
+})
 public class User implements UserDetails {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SequenceId("users_seq")
     private Long id;
 
+    // login name, loaded through the natural id cache by UserRepository#findByEmailNaturalId
+    @NaturalId(mutable = true)
     @Column(unique = true)
     private String email;
 
@@ -43,20 +55,32 @@ public class User implements UserDetails {
     @JsonIgnore
     private Boolean enabled = false;
 
-    private byte[] profilePicture;
+    // key of the picture in the PictureStorage, the bytes themselves are not part of the users row
+    private String profilePictureKey;
 
 
     @JsonIgnore
     @ManyToMany
     @JoinTable(name = "user_followers",
             joinColumns = { @JoinColumn(name = "user_id", nullable = false) },
-            inverseJoinColumns = { @JoinColumn(name = "follower_id", nullable = false) })
+            inverseJoinColumns = { @JoinColumn(name = "follower_id", nullable = false) },
+            indexes = {
+                    @Index(name = "idx_user_followers_user_id", columnList = "user_id"),
+                    @Index(name = "idx_user_followers_follower_id", columnList = "follower_id")
+            })
     private Set<User> followers;
 
     @JsonIgnore
     @ManyToMany(mappedBy = "followers")
     private Set<User> following;
 
+    // only ever changed by the follow statements in UserRepository, an entity save must not write back a stale value
+    @Column(updatable = false, columnDefinition = "bigint default 0 not null")
+    private long followersCount;
+
+    @Column(updatable = false, columnDefinition = "bigint default 0 not null")
+    private long followingCount;
+
 
     @JsonIgnore
     @CreationTimestamp
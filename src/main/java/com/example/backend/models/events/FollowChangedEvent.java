@@ -0,0 +1,15 @@
+package com.example.backend.models.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class FollowChangedEvent {
+    private final long userId;
+    private final long followerId;
+    // false for an unfollow
+    private final boolean followed;
+}
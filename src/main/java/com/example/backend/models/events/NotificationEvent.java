@@ -0,0 +1,19 @@
+package com.example.backend.models.events;
+
+import com.example.backend.models.enums.NotificationType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class NotificationEvent {
+    private final long recipientId;
+    private final long senderId;
+    private final Long postId;
+    private final NotificationType notificationType;
+    private final LocalDateTime createdAt;
+}
@@ -0,0 +1,16 @@
+package com.example.backend.models.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class PostCreatedEvent {
+    private final long postId;
+    private final long authorId;
+    private final LocalDateTime creationDate;
+}
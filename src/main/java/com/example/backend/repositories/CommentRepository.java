@@ -2,34 +2,84 @@ package com.example.backend.repositories;
 
 import com.example.backend.models.dtos.CommentResponse;
 import com.example.backend.models.dtos.CommentResponseI;
+import com.example.backend.models.dtos.CommentSearchResponseI;
 import com.example.backend.models.entities.Comment;
 import com.example.backend.models.entities.Post;
 import com.example.backend.models.entities.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
+    @Query("SELECT c.id as commentId, c.content as content,c.user.id as userId, c.creationDate as creationDate FROM Comment c WHERE c.id = :commentId")
+    Optional<CommentResponseI> findCommentResponseById(@Param("commentId") long commentId);
+
     @Query("SELECT c.id as commentId, c.content as content,c.user.id as userId, c.creationDate as creationDate FROM Comment c WHERE c.post.id = :postId")
     Page<CommentResponseI> findAllByPost(@Param("postId") Long postId, Pageable pageable);
 
+    /**
+     * keyset page of a post's comments older than (creationDate, id), newest first
+     */
+    @Query("SELECT c.id as commentId, c.content as content,c.user.id as userId, c.creationDate as creationDate FROM Comment c " +
+            "WHERE c.post.id = :postId AND c.creationDate <= :creationDate AND (c.creationDate < :creationDate OR c.id < :id) " +
+            "ORDER BY c.creationDate DESC, c.id DESC")
+    Slice<CommentResponseI> findAllByPostBefore(@Param("postId") Long postId, @Param("creationDate") LocalDateTime creationDate,
+                                                @Param("id") long id, Pageable pageable);
+
 
     List<Comment> findAllByPost(Post post);
     void deleteAllByPost(Post post);
 
     List<Comment> findAllByUser(User user);
 
-    @Modifying
-    @Query(value = "delete from comments where id = :commentId AND user = :userId ", nativeQuery = true)
-    void deleteByCommentIdAndUserId(@Param("commentId")Long commentId, @Param("userId") long userId);
+    /**
+     * adds the given, already flushed, comments to their posts' comments_count and last_comment_at
+     * @return the ids of the posts that were updated
+     */
+    @Query(value = "WITH added AS (SELECT post_id, COUNT(*) AS n, MAX(creation_date) AS last FROM comments " +
+            "WHERE id IN :commentIds GROUP BY post_id), " +
+            "counted AS (UPDATE posts p SET comments_count = p.comments_count + a.n, " +
+            "last_comment_at = GREATEST(p.last_comment_at, a.last) FROM added a WHERE p.id = a.post_id RETURNING p.id) " +
+            "SELECT id FROM counted", nativeQuery = true)
+    List<Long> countNewComments(@Param("commentIds") Collection<Long> commentIds);
+
+    /**
+     * deletes the comment if the user wrote it and takes it off its post's counts in the same statement. The
+     * statement sees comments as they were before the delete, so the new last_comment_at leaves the comment out
+     * @return the post the comment was on, empty when nothing was deleted
+     */
+    @Query(value = "WITH removed AS (DELETE FROM comments WHERE id = :commentId AND user_id = :userId RETURNING post_id), " +
+            "counted AS (UPDATE posts p SET comments_count = GREATEST(p.comments_count - 1, 0), " +
+            "last_comment_at = (SELECT MAX(c.creation_date) FROM comments c WHERE c.post_id = p.id AND c.id <> :commentId) " +
+            "FROM removed r WHERE p.id = r.post_id RETURNING p.id) " +
+            "SELECT id FROM counted", nativeQuery = true)
+    Optional<Long> deleteByCommentIdAndUserId(@Param("commentId") long commentId, @Param("userId") long userId);
+
+
+    String SEARCH_COLUMNS = "SELECT c.id AS \"commentId\", c.content AS \"content\", c.user_id AS \"userId\", " +
+            "c.creation_date AS \"creationDate\", " +
+            "ts_headline('english', c.content, q, 'StartSel=<b>, StopSel=</b>, MaxFragments=2, MaxWords=20, MinWords=5') AS \"highlight\" ";
+    String SEARCH_MATCHES = "FROM comments c, to_tsquery('english', :query) q WHERE c.post_id = :postId AND c.content_tsv @@ q";
 
+    /**
+     * full text search within one post served by idx_comments_post_content_tsv, sorted by the pageable's column names
+     * @param query a to_tsquery expression
+     */
+    @Query(value = SEARCH_COLUMNS + SEARCH_MATCHES,
+            countQuery = "SELECT COUNT(*) " + SEARCH_MATCHES, nativeQuery = true)
+    Page<CommentSearchResponseI> searchCommentsByPostId(@Param("query") String query, @Param("postId") long postId,
+                                                        Pageable pageable);
 
-    @Query(value = "SELECT c.id as commentId, c.content as content, c.user.id as userId  FROM Comment c WHERE LOWER(c.content) LIKE LOWER(CONCAT('%', :keyword, '%')) AND c.post = :postId")
-    Page<CommentResponseI> searchCommentsByPostId(@Param("keyword") String keyword, @Param("postId") Post postId,
-                                                  Pageable pageable);
+    @Query(value = SEARCH_COLUMNS + SEARCH_MATCHES + " ORDER BY ts_rank(c.content_tsv, q) DESC, c.id DESC",
+            countQuery = "SELECT COUNT(*) " + SEARCH_MATCHES, nativeQuery = true)
+    Page<CommentSearchResponseI> searchCommentsByPostIdByRelevance(@Param("query") String query, @Param("postId") long postId,
+                                                                   Pageable pageable);
 }
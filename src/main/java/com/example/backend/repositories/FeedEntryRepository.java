@@ -0,0 +1,15 @@
+package com.example.backend.repositories;
+
+import com.example.backend.models.entities.FeedEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface FeedEntryRepository extends JpaRepository<FeedEntry, FeedEntry.FeedEntryId> {
+
+    @Query("SELECT f.postId FROM FeedEntry f WHERE f.userId = :userId AND f.postId < :before ORDER BY f.postId DESC")
+    List<Long> findPostIds(@Param("userId") long userId, @Param("before") long before, Pageable pageable);
+}
@@ -0,0 +1,33 @@
+package com.example.backend.repositories;
+
+import com.example.backend.models.entities.NotificationCounter;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+public interface NotificationCounterRepository extends JpaRepository<NotificationCounter, Long> {
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "notification_counters"))
+    @Query(value = "INSERT INTO notification_counters (user_id, unread_count) VALUES (:userId, GREATEST(:delta, 0)) " +
+            "ON CONFLICT (user_id) DO UPDATE SET unread_count = GREATEST(notification_counters.unread_count + :delta, 0)", nativeQuery = true)
+    void addUnread(@Param("userId") long userId, @Param("delta") long delta);
+
+    /**
+     * marks every notification of the user up to the given id read by moving the watermark, and recounts the
+     * unread ones above it. A single row write however many notifications it covers
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "notification_counters"))
+    @Query(value = "INSERT INTO notification_counters (user_id, unread_count, read_watermark) VALUES (:userId, " +
+            "(SELECT COUNT(*) FROM notifications n WHERE n.user_id = :userId AND n.id > :upToId AND n.is_read = false), :upToId) " +
+            "ON CONFLICT (user_id) DO UPDATE SET " +
+            "read_watermark = GREATEST(notification_counters.read_watermark, EXCLUDED.read_watermark), " +
+            "unread_count = (SELECT COUNT(*) FROM notifications n WHERE n.user_id = EXCLUDED.user_id " +
+            "AND n.id > GREATEST(notification_counters.read_watermark, EXCLUDED.read_watermark) AND n.is_read = false)", nativeQuery = true)
+    void raiseReadWatermark(@Param("userId") long userId, @Param("upToId") long upToId);
+}
@@ -1,13 +1,103 @@
 package com.example.backend.repositories;
 
+import com.example.backend.models.dtos.NotificationView;
 import com.example.backend.models.entities.Notification;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
 
 
-    //todo might need to change to native query
-    List<Notification> findByUserId(long userId);
+    String VIEW_COLUMNS = "SELECT n.id AS id, n.notificationType AS notificationType, n.post.id AS postId, " +
+            "s.id AS senderId, s.username AS senderUsername, n.isRead AS read, n.aggregateCount AS aggregateCount, " +
+            "n.createdAt AS createdAt FROM Notification n LEFT JOIN n.sender s ";
+
+    @Query(VIEW_COLUMNS + "WHERE n.id = :notificationId")
+    Optional<NotificationView> findViewById(@Param("notificationId") long notificationId);
+
+    @Query(VIEW_COLUMNS + "WHERE n.user.id = :userId ORDER BY n.createdAt DESC, n.id DESC")
+    List<NotificationView> findByUserId(@Param("userId") long userId);
+
+    /**
+     * keyset page of a user's notifications older than (createdAt, id), newest first
+     */
+    @Query(VIEW_COLUMNS + "WHERE n.user.id = :userId AND n.createdAt <= :createdAt AND (n.createdAt < :createdAt OR n.id < :id) " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    Slice<NotificationView> findByUserIdBefore(@Param("userId") long userId, @Param("createdAt") LocalDateTime createdAt,
+                                           @Param("id") long id, Pageable pageable);
+
+    String INBOX_COLUMNS = "SELECT n.id AS \"id\", n.notification_type AS \"notificationType\", n.post_id AS \"postId\", " +
+            "n.sender_id AS \"senderId\", s.username AS \"senderUsername\", (n.is_read OR n.id <= :watermark) AS \"read\", " +
+            "n.aggregate_count AS \"aggregateCount\", n.created_at AS \"createdAt\" " +
+            "FROM notifications n LEFT JOIN users s ON s.id = n.sender_id ";
+
+    /**
+     * unread notifications of a user older than (createdAt, id), newest first. Served by idx_notifications_inbox
+     * @param watermark notifications with an id up to this one count as read
+     */
+    @Query(value = INBOX_COLUMNS +
+            "WHERE n.user_id = :userId AND n.is_read = false AND n.id > :watermark AND (n.created_at, n.id) < (:createdAt, :id) " +
+            "ORDER BY n.created_at DESC, n.id DESC LIMIT :limit", nativeQuery = true)
+    List<NotificationView> findUnreadInbox(@Param("userId") long userId, @Param("watermark") long watermark,
+                                           @Param("createdAt") LocalDateTime createdAt, @Param("id") long id, @Param("limit") int limit);
+
+    /**
+     * read notifications of a user older than (createdAt, id), newest first
+     * @param watermark notifications with an id up to this one count as read
+     */
+    @Query(value = INBOX_COLUMNS +
+            "WHERE n.user_id = :userId AND (n.is_read OR n.id <= :watermark) AND (n.created_at, n.id) < (:createdAt, :id) " +
+            "ORDER BY n.created_at DESC, n.id DESC LIMIT :limit", nativeQuery = true)
+    List<NotificationView> findReadInbox(@Param("userId") long userId, @Param("watermark") long watermark,
+                                         @Param("createdAt") LocalDateTime createdAt, @Param("id") long id, @Param("limit") int limit);
+
+    @Query(value = "SELECT MAX(id) FROM notifications WHERE user_id = :userId AND created_at <= :upTo", nativeQuery = true)
+    Optional<Long> findLastIdUpTo(@Param("userId") long userId, @Param("upTo") LocalDateTime upTo);
+
+    @Query(value = "SELECT MAX(id) FROM notifications WHERE user_id = :userId", nativeQuery = true)
+    Optional<Long> findLastId(@Param("userId") long userId);
+
+    /**
+     * flags the given notifications of a user read and takes the ones still counted as unread off the counter,
+     * in one statement
+     */
+    @Modifying
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "notifications"),
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "notification_counters")
+    })
+    @Query(value = "WITH updated AS (" +
+            "UPDATE notifications SET is_read = true, updated_at = now() " +
+            "WHERE user_id = :userId AND id IN (:ids) AND is_read = false RETURNING id) " +
+            "UPDATE notification_counters c " +
+            "SET unread_count = GREATEST(c.unread_count - (SELECT COUNT(*) FROM updated u WHERE u.id > c.read_watermark), 0) " +
+            "WHERE c.user_id = :userId", nativeQuery = true)
+    int markAsRead(@Param("userId") long userId, @Param("ids") Collection<Long> ids);
+
+    /**
+     * single notification variant of {@link #markAsRead(long, Collection)}, for callers that do not know the recipient
+     */
+    @Modifying
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "notifications"),
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "notification_counters")
+    })
+    @Query(value = "WITH updated AS (" +
+            "UPDATE notifications SET is_read = true, updated_at = now() " +
+            "WHERE id = :notificationId AND is_read = false RETURNING id, user_id) " +
+            "UPDATE notification_counters c SET unread_count = GREATEST(c.unread_count - 1, 0) " +
+            "FROM updated u WHERE c.user_id = u.user_id AND u.id > c.read_watermark", nativeQuery = true)
+    int markAsRead(@Param("notificationId") long notificationId);
 }
@@ -0,0 +1,29 @@
+package com.example.backend.repositories;
+
+import com.example.backend.models.entities.PostLike;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+public interface PostLikeRepository extends JpaRepository<PostLike, PostLike.PostLikeId> {
+
+    /**
+     * @return 1 if the like was recorded, 0 if the user already liked the post
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "post_likes"))
+    @Query(value = "INSERT INTO post_likes (post_id, user_id, created_at) VALUES (:postId, :userId, now()) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("postId") long postId, @Param("userId") long userId);
+
+    /**
+     * @return 1 if a like was removed, 0 if there was none
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "post_likes"))
+    @Query(value = "DELETE FROM post_likes WHERE post_id = :postId AND user_id = :userId", nativeQuery = true)
+    int deleteByPostIdAndUserId(@Param("postId") long postId, @Param("userId") long userId);
+}
@@ -1,18 +1,70 @@
 package com.example.backend.repositories;
 
+import com.example.backend.models.dtos.PostView;
 import com.example.backend.models.entities.Post;
 import com.example.backend.models.entities.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface PostRepository extends JpaRepository<Post, Long> {
 
-    @Query("SELECT p FROM Post p WHERE LOWER(p.content) LIKE LOWER(CONCAT('%', ?1, '%'))")
-    Page<Post> searchPosts(String keyword, Pageable pageable);
+    // content_tsv is maintained by postgres, see db/indexes.sql
+    String POST_COLUMNS = "p.id AS \"postId\", p.content AS \"content\", p.likes_count AS \"likesCount\", " +
+            "p.comments_count AS \"commentsCount\", p.last_comment_at AS \"lastCommentAt\", p.user_id AS \"userId\", u.username AS \"username\", p.creation_date AS \"creationDate\"";
+    String FROM_POSTS = " FROM posts p LEFT JOIN users u ON u.id = p.user_id";
+    String MATCHES = "p.content_tsv @@ to_tsquery('english', :query)";
+    String VIEW_COLUMNS = "SELECT p.id AS postId, p.content AS content, p.likesCount AS likesCount, " +
+            "p.commentsCount AS commentsCount, p.lastCommentAt AS lastCommentAt, u.id AS userId, u.username AS username, p.creationDate AS creationDate FROM Post p LEFT JOIN p.user u";
+
+    /**
+     * page of posts with their authors' usernames, sorted by the pageable's property names
+     */
+    @Query(value = VIEW_COLUMNS, countQuery = "SELECT COUNT(p) FROM Post p")
+    Page<PostView> findAllViews(Pageable pageable);
+
+    /**
+     * full text search served by idx_posts_content_tsv, sorted by the pageable's column names
+     * @param query a to_tsquery expression
+     */
+    @Query(value = "SELECT " + POST_COLUMNS + FROM_POSTS + " WHERE " + MATCHES,
+            countQuery = "SELECT COUNT(*) FROM posts p WHERE " + MATCHES, nativeQuery = true)
+    Page<PostView> searchPosts(@Param("query") String query, Pageable pageable);
+
+    /**
+     * full text search with the best matches first
+     * @param query a to_tsquery expression
+     */
+    @Query(value = "SELECT " + POST_COLUMNS + FROM_POSTS + " WHERE " + MATCHES +
+            " ORDER BY ts_rank(p.content_tsv, to_tsquery('english', :query)) DESC, p.id DESC",
+            countQuery = "SELECT COUNT(*) FROM posts p WHERE " + MATCHES, nativeQuery = true)
+    Page<PostView> searchPostsByRelevance(@Param("query") String query, Pageable pageable);
 
     List<Post> findAllByUser(User user);
+
+    /**
+     * keyset page of posts older than (creationDate, id), newest first
+     */
+    @Query(VIEW_COLUMNS + " WHERE p.creationDate <= :creationDate AND (p.creationDate < :creationDate OR p.id < :id) " +
+            "ORDER BY p.creationDate DESC, p.id DESC")
+    Slice<PostView> findPostsBefore(@Param("creationDate") LocalDateTime creationDate, @Param("id") long id, Pageable pageable);
+
+    @Query(value = "SELECT " + POST_COLUMNS + FROM_POSTS + " WHERE " + MATCHES +
+            " AND (p.creation_date, p.id) < (:creationDate, :id) ORDER BY p.creation_date DESC, p.id DESC", nativeQuery = true)
+    Slice<PostView> searchPostsBefore(@Param("query") String query, @Param("creationDate") LocalDateTime creationDate,
+                                      @Param("id") long id, Pageable pageable);
+
+    // posts of deleted users keep their row with a null user_id, an inner join would drop them from feed pages
+    @Query("SELECT p FROM Post p LEFT JOIN FETCH p.user WHERE p.id IN :ids")
+    List<Post> findAllWithUserByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p.id FROM Post p WHERE p.user.id IN :authorIds AND p.id < :before ORDER BY p.id DESC")
+    List<Long> findIdsByAuthorsBefore(@Param("authorIds") Collection<Long> authorIds, @Param("before") long before, Pageable pageable);
 }
@@ -3,18 +3,34 @@ package com.example.backend.repositories;
 
 
 import com.example.backend.models.dtos.Followers;
+import com.example.backend.models.dtos.UsernameSuggestion;
 import com.example.backend.models.entities.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
+
+    /**
+     * query cache region for follower lookups. The native queries name user_followers as their query space, so
+     * hibernate drops their cached results whenever a statement it runs writes that table
+     */
+    String FOLLOWERS_REGION = "followers";
+
     Boolean existsByEmail(String email);
 
     Boolean existsByUsername(String username);
@@ -22,33 +38,132 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT u FROM User u WHERE LOWER(u.username) LIKE LOWER(CONCAT('%', ?1, '%'))")
     Page<User> searchUsers(String keyword, PageRequest pageRequest);
 
-    Optional<User> findByEmail(String email);
+    /**
+     * keyset page of users who registered before (creationDate, id), newest first
+     */
+    @Query("SELECT u FROM User u WHERE u.creationDate <= :creationDate AND (u.creationDate < :creationDate OR u.id < :id) " +
+            "ORDER BY u.creationDate DESC, u.id DESC")
+    Slice<User> findUsersBefore(@Param("creationDate") LocalDateTime creationDate, @Param("id") long id, Pageable pageable);
+
+    @Query("SELECT new com.example.backend.models.dtos.UsernameSuggestion(u.id, u.username) FROM User u")
+    List<UsernameSuggestion> findAllUsernames();
+
+    @Query("SELECT u.profilePictureKey FROM User u WHERE u.id = :userId")
+    Optional<String> findProfilePictureKeyById(@Param("userId") long userId);
 
 
+    // fold the follows a statement inserted or deleted, a CTE "changed" of (user_id, follower_id) rows, into
+    // followers_count and following_count with one UPDATE for all the users involved
+    String COUNT_FOLLOWS = "counted AS (UPDATE users u SET followers_count = u.followers_count + d.followers, " +
+            "following_count = u.following_count + d.following " +
+            "FROM (SELECT id, SUM(followers) AS followers, SUM(following) AS following FROM deltas GROUP BY id) d " +
+            "WHERE u.id = d.id) ";
+    String FOLLOWS_ADDED = "deltas AS (SELECT user_id AS id, 1 AS followers, 0 AS following FROM changed " +
+            "UNION ALL SELECT follower_id, 0, 1 FROM changed), " + COUNT_FOLLOWS;
+    String FOLLOWS_REMOVED = "deltas AS (SELECT user_id AS id, -1 AS followers, 0 AS following FROM changed " +
+            "UNION ALL SELECT follower_id, 0, -1 FROM changed), " + COUNT_FOLLOWS;
+
     /**
-     * unfollow user
+     * unfollow user, a no-op when not following
      * @param userId user being followed
      * @param unfollowerId id of the user performing the unfollow action
+     * @return 1 if the follow existed, 0 otherwise
      */
-    @Modifying
-    @Query(value = "DELETE FROM user_followers WHERE user_id = :userId AND follower_id = :unfollowerId", nativeQuery = true)
-    void deleteByUserIdAndFollowerId(@Param("userId") Long userId, @Param("unfollowerId") Long unfollowerId);
+    @Query(value = "WITH changed AS (DELETE FROM user_followers WHERE user_id = :userId AND follower_id = :unfollowerId " +
+            "RETURNING user_id, follower_id), " + FOLLOWS_REMOVED + "SELECT COUNT(*) FROM changed", nativeQuery = true)
+    long deleteByUserIdAndFollowerId(@Param("userId") Long userId, @Param("unfollowerId") Long unfollowerId);
 
 
     /**
-     * follow user
+     * follow user, a no-op when already following. A missing user fails the foreign keys
      * @param userId user being followed
      * @param followerId id of the user performing the follow action
+     * @return 1 if the follow is new, 0 otherwise
      */
-    @Modifying
-    @Query(value = "INSERT INTO user_followers (user_id, follower_id) VALUES (:userId, :followerId)", nativeQuery = true)
-    void insertUserFollower(@Param("userId") Long userId, @Param("followerId") Long followerId);
-
+    @Query(value = "WITH changed AS (INSERT INTO user_followers (user_id, follower_id) VALUES (:userId, :followerId) " +
+            "ON CONFLICT DO NOTHING RETURNING user_id, follower_id), " + FOLLOWS_ADDED + "SELECT COUNT(*) FROM changed", nativeQuery = true)
+    long insertUserFollower(@Param("userId") Long userId, @Param("followerId") Long followerId);
 
+    /**
+     * the follower follows every existing user among userIds, skipping ids that do not exist and users already
+     * followed. A missing follower fails the foreign key
+     * @return the ids that were newly followed
+     */
+    @Query(value = "WITH changed AS (INSERT INTO user_followers (user_id, follower_id) " +
+            "SELECT u.id, :followerId FROM users u WHERE u.id IN (:userIds) AND u.id <> :followerId " +
+            "ON CONFLICT DO NOTHING RETURNING user_id, follower_id), " + FOLLOWS_ADDED + "SELECT user_id FROM changed", nativeQuery = true)
+    List<Long> insertUserFollowers(@Param("followerId") long followerId, @Param("userIds") Collection<Long> userIds);
+
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = FOLLOWERS_REGION),
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_followers"),
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "users")
+    })
     @Query(value = "SELECT u.id as userId,  u.email, username FROM USERS U LEFT JOIN public.user_followers UF on U.id = UF.follower_id where uf.user_id = :userId", nativeQuery = true)
     Set<Followers> getUsersFollowers(@Param("userId") long userId);
 
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = FOLLOWERS_REGION),
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_followers"),
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "users")
+    })
     @Query(value = "SELECT u.id as userId,  u.email, username FROM USERS U LEFT JOIN public.user_followers UF on U.id = UF.user_id where uf.follower_id = :followerId", nativeQuery = true)
     Set<Followers> getUsersFollowing(@Param("followerId") long followerId);
+
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = FOLLOWERS_REGION),
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_followers")
+    })
+    @Query(value = "SELECT follower_id FROM user_followers WHERE user_id = :userId", nativeQuery = true)
+    List<Long> findFollowerIds(@Param("userId") long userId);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = FOLLOWERS_REGION),
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_followers")
+    })
+    @Query(value = "SELECT COUNT(*) FROM user_followers WHERE user_id = :userId", nativeQuery = true)
+    long countFollowers(@Param("userId") long userId);
+
+    @Query(value = "SELECT COUNT(*) FROM user_followers WHERE follower_id = :followerId", nativeQuery = true)
+    long countFollowing(@Param("followerId") long followerId);
+
+    /**
+     * up to limit follower ids of the user greater than afterId, ascending
+     */
+    @Query(value = "SELECT follower_id FROM user_followers WHERE user_id = :userId AND follower_id > :afterId " +
+            "ORDER BY follower_id LIMIT :limit", nativeQuery = true)
+    List<Long> findFollowerIdsAfter(@Param("userId") long userId, @Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * up to limit ids the follower follows greater than afterId, ascending
+     */
+    @Query(value = "SELECT user_id FROM user_followers WHERE follower_id = :followerId AND user_id > :afterId " +
+            "ORDER BY user_id LIMIT :limit", nativeQuery = true)
+    List<Long> findFollowingIdsAfter(@Param("followerId") long followerId, @Param("afterId") long afterId, @Param("limit") int limit);
+
+    @Query(value = "SELECT user_id FROM user_followers GROUP BY user_id HAVING COUNT(*) > :threshold", nativeQuery = true)
+    List<Long> findUserIdsWithMoreFollowersThan(@Param("threshold") long threshold);
+
+    /**
+     * authors with at most threshold followers whose latest post is in no one's feed, the posts they wrote while
+     * they were above the threshold were never fanned out
+     */
+    @Query(value = "SELECT u.id FROM users u " +
+            "CROSS JOIN LATERAL (SELECT p.id FROM posts p WHERE p.user_id = u.id ORDER BY p.id DESC LIMIT 1) latest " +
+            "WHERE u.followers_count BETWEEN 1 AND :threshold " +
+            "AND NOT EXISTS (SELECT 1 FROM feed_entries e WHERE e.post_id = latest.id)", nativeQuery = true)
+    List<Long> findUserIdsWithLatestPostNotFannedOut(@Param("threshold") long threshold);
+
+    /**
+     * the subset of the given users that the follower follows
+     */
+    @Query(value = "SELECT user_id FROM user_followers WHERE follower_id = :followerId AND user_id IN (:userIds)", nativeQuery = true)
+    List<Long> findFollowedAmong(@Param("followerId") long followerId, @Param("userIds") Collection<Long> userIds);
 }
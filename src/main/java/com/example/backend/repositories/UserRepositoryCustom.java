@@ -0,0 +1,22 @@
+package com.example.backend.repositories;
+
+import com.example.backend.models.entities.User;
+
+import java.util.Optional;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * looks the user up by email through hibernate's natural id cache, only going to the database on a miss
+     */
+    Optional<User> findByEmailNaturalId(String email);
+
+    /**
+     * streams every row of user_followers through the consumer without loading the table into memory
+     */
+    void forEachFollow(FollowConsumer consumer);
+
+    interface FollowConsumer {
+        void accept(long userId, long followerId);
+    }
+}
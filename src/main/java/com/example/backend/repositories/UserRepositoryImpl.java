@@ -0,0 +1,40 @@
+package com.example.backend.repositories;
+
+import com.example.backend.models.entities.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    private static final int FOLLOW_FETCH_SIZE = 10_000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // transactional so the session stays open when called outside a request, e.g. from the jwt filter
+    @Override
+    @Transactional
+    public Optional<User> findByEmailNaturalId(String email) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(User.class)
+                .loadOptional(email);
+    }
+
+    // transactional so pgjdbc fetches the rows through a cursor, FOLLOW_FETCH_SIZE at a time
+    @Override
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public void forEachFollow(FollowConsumer consumer) {
+        try (Stream<Object[]> rows = entityManager.createNativeQuery("SELECT user_id, follower_id FROM user_followers")
+                .setHint(HibernateHints.HINT_FETCH_SIZE, FOLLOW_FETCH_SIZE)
+                .getResultStream()) {
+            rows.forEach(row -> consumer.accept(((Number) row[0]).longValue(), ((Number) row[1]).longValue()));
+        }
+    }
+}
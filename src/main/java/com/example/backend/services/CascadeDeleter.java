@@ -0,0 +1,234 @@
+package com.example.backend.services;
+
+import com.example.backend.config.SecondLevelCache;
+import com.example.backend.models.dtos.DeletionJob;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Deletes a post or a user together with everything that points at it, one set-based statement per table.
+ * <p>
+ * {@link #deletePost(long)} and {@link #deleteUser(long)} run every statement unbounded inside the caller's
+ * transaction. The submit methods do the same work on a background thread in chunks of
+ * {@code backend.deletion.chunk-size} rows, each chunk in its own short transaction, and report progress through
+ * a {@link DeletionJob}; a final transaction sweeps up rows written while the job ran and removes the target row.
+ * Jobs run one at a time so a large account can not crowd out regular traffic. None of this goes through
+ * hibernate, so the affected second-level cache entries are evicted once the rows are gone.
+ */
+@Slf4j
+@Component
+public class CascadeDeleter {
+
+    public static final String POST = "post";
+    public static final String USER = "user";
+
+    // %1$s is the table, %2$s the predicate choosing the rows, possibly narrowed to one chunk
+    private static final String DELETE = "WITH affected AS (DELETE FROM %1$s WHERE %2$s RETURNING 1) " +
+            "SELECT COUNT(*) FROM affected";
+    private static final String DETACH_USER = "WITH affected AS (UPDATE %1$s SET user_id = NULL WHERE %2$s RETURNING 1) " +
+            "SELECT COUNT(*) FROM affected";
+    // keeps the recipients' unread counters in step with the notifications that disappear
+    private static final String DELETE_NOTIFICATIONS = "WITH removed AS (DELETE FROM %1$s WHERE %2$s RETURNING id, user_id, is_read), " +
+            "unread AS (SELECT r.user_id, COUNT(*) AS n FROM removed r JOIN notification_counters c ON c.user_id = r.user_id " +
+            "WHERE NOT r.is_read AND r.id > c.read_watermark GROUP BY r.user_id), " +
+            "adjusted AS (UPDATE notification_counters c SET unread_count = GREATEST(c.unread_count - u.n, 0) " +
+            "FROM unread u WHERE c.user_id = u.user_id) " +
+            "SELECT COUNT(*) FROM removed";
+    // takes the deleted user's likes off the posts they liked
+    private static final String DELETE_LIKES = "WITH removed AS (DELETE FROM %1$s WHERE %2$s RETURNING post_id), " +
+            "adjusted AS (UPDATE posts p SET likes_count = GREATEST(p.likes_count - r.n, 0) " +
+            "FROM (SELECT post_id, COUNT(*) AS n FROM removed GROUP BY post_id) r WHERE p.id = r.post_id) " +
+            "SELECT COUNT(*) FROM removed";
+    // take the deleted user off the following counts of their followers and the follower counts of those they follow
+    private static final String DELETE_FOLLOWERS = "WITH removed AS (DELETE FROM %1$s WHERE %2$s RETURNING follower_id), " +
+            "adjusted AS (UPDATE users u SET following_count = GREATEST(u.following_count - 1, 0) " +
+            "FROM removed r WHERE u.id = r.follower_id) " +
+            "SELECT COUNT(*) FROM removed";
+    private static final String DELETE_FOLLOWING = "WITH removed AS (DELETE FROM %1$s WHERE %2$s RETURNING user_id), " +
+            "adjusted AS (UPDATE users u SET followers_count = GREATEST(u.followers_count - 1, 0) " +
+            "FROM removed r WHERE u.id = r.user_id) " +
+            "SELECT COUNT(*) FROM removed";
+
+    private static final List<Step> POST_CASCADE = List.of(
+            new Step("comments", DELETE, "comments", "post_id = ?"),
+            new Step("notifications", DELETE_NOTIFICATIONS, "notifications", "post_id = ?"),
+            new Step("likes", DELETE, "post_likes", "post_id = ?"),
+            new Step("feed entries", DELETE, "feed_entries", "post_id = ?")
+    );
+    private static final List<Step> POST_TARGET = List.of(
+            new Step("post", DELETE, "posts", "id = ?")
+    );
+    private static final List<Step> USER_CASCADE = List.of(
+            new Step("posts", DETACH_USER, "posts", "user_id = ?"),
+            new Step("comments", DETACH_USER, "comments", "user_id = ?"),
+            new Step("received notifications", DELETE_NOTIFICATIONS, "notifications", "user_id = ?"),
+            new Step("sent notifications", DELETE_NOTIFICATIONS, "notifications", "sender_id = ?"),
+            new Step("likes", DELETE_LIKES, "post_likes", "user_id = ?"),
+            new Step("followers", DELETE_FOLLOWERS, "user_followers", "user_id = ?"),
+            new Step("following", DELETE_FOLLOWING, "user_followers", "follower_id = ?"),
+            new Step("feed entries", DELETE, "feed_entries", "user_id = ?")
+    );
+    private static final List<Step> USER_TARGET = List.of(
+            new Step("notification counter", DELETE, "notification_counters", "user_id = ?"),
+            new Step("user", DELETE, "users", "id = ?")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SecondLevelCache secondLevelCache;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final Cache<String, DeletionJob> jobs;
+    private final Executor executor;
+
+    @Autowired
+    public CascadeDeleter(
+            JdbcTemplate jdbcTemplate,
+            SecondLevelCache secondLevelCache,
+            PlatformTransactionManager transactionManager,
+            @Value("${backend.deletion.chunk-size:5000}") int chunkSize,
+            @Value("${backend.deletion.job-retention:3600000}") long jobRetention
+    ) {
+        this(jdbcTemplate, secondLevelCache, transactionManager, chunkSize, jobRetention,
+                Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "cascade-delete")));
+    }
+
+    CascadeDeleter(JdbcTemplate jdbcTemplate, SecondLevelCache secondLevelCache, PlatformTransactionManager transactionManager,
+                   int chunkSize, long jobRetention, Executor executor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.secondLevelCache = secondLevelCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.jobs = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(jobRetention))
+                .build();
+        this.executor = executor;
+    }
+
+    @Transactional
+    public long deletePost(long postId) {
+        log.info("deletePost/postId = {}", postId);
+        long rows = runAll(POST_CASCADE, postId) + runAll(POST_TARGET, postId);
+        secondLevelCache.evictPostAfterCommit(postId);
+        return rows;
+    }
+
+    @Transactional
+    public long deleteUser(long userId) {
+        log.info("deleteUser/userId = {}", userId);
+        long rows = runAll(USER_CASCADE, userId) + runAll(USER_TARGET, userId);
+        secondLevelCache.evictUserAfterCommit(userId);
+        return rows;
+    }
+
+    /**
+     * queues a chunked delete of the post, {@code afterDelete} runs once the post row is gone
+     */
+    public DeletionJob submitPostDeletion(long postId, Runnable afterDelete) {
+        return submit(POST, postId, POST_CASCADE, POST_TARGET, afterDelete);
+    }
+
+    /**
+     * queues a chunked delete of the user, {@code afterDelete} runs once the user row is gone
+     */
+    public DeletionJob submitUserDeletion(long userId, Runnable afterDelete) {
+        return submit(USER, userId, USER_CASCADE, USER_TARGET, afterDelete);
+    }
+
+    public Optional<DeletionJob> findJob(String jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ExecutorService executorService) executorService.shutdownNow();
+    }
+
+    private DeletionJob submit(String type, long targetId, List<Step> cascade, List<Step> target, Runnable afterDelete) {
+        DeletionJob job = new DeletionJob(UUID.randomUUID().toString(), type, targetId);
+        jobs.put(job.getJobId(), job);
+        log.info("submit/{} {} as job {}", type, targetId, job.getJobId());
+        executor.execute(() -> run(job, cascade, target, afterDelete));
+        return job;
+    }
+
+    private void run(DeletionJob job, List<Step> cascade, List<Step> target, Runnable afterDelete) {
+        job.setStatus(DeletionJob.Status.RUNNING);
+        job.setStartedAt(LocalDateTime.now());
+        try {
+            for (Step step : cascade) {
+                job.setCurrentStep(step.name);
+                long deleted;
+                do {
+                    deleted = transactionTemplate.execute(status -> step.run(jdbcTemplate, job.getTargetId(), chunkSize));
+                    progress(job, deleted);
+                } while (deleted >= chunkSize);
+            }
+            job.setCurrentStep(job.getType());
+            long swept = transactionTemplate.execute(status ->
+                    runAll(cascade, job.getTargetId()) + runAll(target, job.getTargetId()));
+            progress(job, swept);
+            if (POST.equals(job.getType())) {
+                secondLevelCache.evictPostAfterCommit(job.getTargetId());
+            } else {
+                secondLevelCache.evictUserAfterCommit(job.getTargetId());
+            }
+            afterDelete.run();
+            job.setStatus(DeletionJob.Status.COMPLETED);
+            log.info("run/job {} deleted {} rows", job.getJobId(), job.getRowsAffected());
+        } catch (RuntimeException e) {
+            log.error("run/job {} failed at {}", job.getJobId(), job.getCurrentStep(), e);
+            job.setError(e.getMessage());
+            job.setStatus(DeletionJob.Status.FAILED);
+        } finally {
+            job.setFinishedAt(LocalDateTime.now());
+            jobs.put(job.getJobId(), job);
+        }
+    }
+
+    private void progress(DeletionJob job, long rows) {
+        job.setRowsAffected(job.getRowsAffected() + rows);
+        // re-put so a long running job does not expire while it is still being polled
+        jobs.put(job.getJobId(), job);
+    }
+
+    private long runAll(List<Step> steps, long id) {
+        long rows = 0;
+        for (Step step : steps) {
+            rows += step.run(jdbcTemplate, id, 0);
+        }
+        return rows;
+    }
+
+    private record Step(String name, String template, String table, String condition) {
+
+        /**
+         * a positive chunk narrows the statement to that many rows, picked by ctid since some tables have no
+         * single column key
+         */
+        long run(JdbcTemplate jdbcTemplate, long id, int chunk) {
+            String rows = chunk > 0
+                    ? String.format("ctid = ANY(ARRAY(SELECT ctid FROM %s WHERE %s LIMIT %d))", table, condition, chunk)
+                    : condition;
+            Long count = jdbcTemplate.queryForObject(String.format(template, table, rows), Long.class, id);
+            return count == null ? 0 : count;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.backend.services;
+
+import com.example.backend.config.SecondLevelCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Recounts {@code posts.comments_count} and {@code last_comment_at} from the comments table and repairs the posts
+ * that drifted, for instance through comments written or removed outside {@link CommentService}. Walks the posts in
+ * id order, {@code backend.comments.reconcile-chunk-size} at a time, each chunk in its own short transaction. A
+ * run holds one thread of the scheduling pool, which {@code spring.task.scheduling.pool.size} accounts for.
+ */
+@Slf4j
+@Component
+public class CommentCountReconciler {
+
+    // the last id of the next chunk, null once every post has been visited
+    static final String CHUNK_END = "SELECT MAX(id) FROM (SELECT id FROM posts WHERE id > ? ORDER BY id LIMIT ?) chunk";
+    // holds the comment statements of the chunk's posts back until the recount commits; they lock the post row
+    // when they count a comment, so the recount below sees every comment counted before it and none counted after
+    static final String LOCK_CHUNK = "SELECT id FROM posts WHERE id > ? AND id <= ? ORDER BY id FOR UPDATE";
+    static final String RECOUNT = "WITH actual AS (SELECT p.id, COUNT(c.id) AS n, MAX(c.creation_date) AS last " +
+            "FROM posts p LEFT JOIN comments c ON c.post_id = p.id WHERE p.id > ? AND p.id <= ? GROUP BY p.id), " +
+            "repaired AS (UPDATE posts p SET comments_count = a.n, last_comment_at = a.last FROM actual a " +
+            "WHERE p.id = a.id AND (p.comments_count <> a.n OR p.last_comment_at IS DISTINCT FROM a.last) RETURNING p.id) " +
+            "SELECT id FROM repaired";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SecondLevelCache secondLevelCache;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public CommentCountReconciler(
+            JdbcTemplate jdbcTemplate,
+            SecondLevelCache secondLevelCache,
+            PlatformTransactionManager transactionManager,
+            @Value("${backend.comments.reconcile-chunk-size:1000}") int chunkSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.secondLevelCache = secondLevelCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return the number of posts whose counts were repaired
+     */
+    @Scheduled(fixedDelayString = "${backend.comments.reconcile-interval:3600000}",
+            initialDelayString = "${backend.comments.reconcile-interval:3600000}")
+    public long reconcile() {
+        long started = System.currentTimeMillis();
+        long repaired = 0;
+        long after = 0;
+        Long end;
+        while ((end = jdbcTemplate.queryForObject(CHUNK_END, Long.class, after, chunkSize)) != null) {
+            long from = after;
+            long to = end;
+            List<Long> postIds = transactionTemplate.execute(status -> {
+                jdbcTemplate.queryForList(LOCK_CHUNK, Long.class, from, to);
+                return jdbcTemplate.queryForList(RECOUNT, Long.class, from, to);
+            });
+            if (postIds != null && !postIds.isEmpty()) {
+                secondLevelCache.evictPosts(postIds);
+                repaired += postIds.size();
+            }
+            after = end;
+        }
+        log.info("reconcile/repaired = {} in {} ms", repaired, System.currentTimeMillis() - started);
+        return repaired;
+    }
+}
@@ -1,9 +1,16 @@
 package com.example.backend.services;
 
+import com.example.backend.config.ReadOnlyTransactional;
+import com.example.backend.config.SecondLevelCache;
 import com.example.backend.exceptions.CommentException;
+import com.example.backend.models.dtos.BulkImportResponse;
+import com.example.backend.models.dtos.CommentRequest;
 import com.example.backend.models.dtos.CommentResponse;
 import com.example.backend.models.dtos.CommentResponseI;
+import com.example.backend.models.dtos.CommentSearchResponseI;
 import com.example.backend.models.dtos.CreateNotificationRequest;
+import com.example.backend.models.dtos.Cursor;
+import com.example.backend.models.dtos.CursorSlice;
 import com.example.backend.models.entities.Comment;
 import com.example.backend.models.entities.Post;
 import com.example.backend.models.entities.User;
@@ -16,22 +23,31 @@ import org.apache.logging.log4j.util.Strings;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class CommentService {
 
+    private static final Map<String, String> SEARCH_SORT_COLUMNS = Map.of(
+            "creationDate", "creation_date",
+            "id", "id"
+    );
+
     private final CommentRepository commentRepository;
     private final PostService postService;
     private final UserService userService;
     private final NotificationService notificationService;
+    private final SecondLevelCache secondLevelCache;
 
 
     @Transactional
@@ -47,7 +63,7 @@ public class CommentService {
                 .post(post)
                 .user(post.getUser())
                 .build();
-        notificationService.createNotification(notificationRequest);
+        notificationService.publishNotification(notificationRequest);
         createComment(user, post, content);
     }
 
@@ -69,19 +85,80 @@ public class CommentService {
         return findCommentById(commentId);
     }
 
+    @ReadOnlyTransactional
+    public CommentResponseI getCommentResponse(Long commentId) {
+        log.info("getCommentResponse/commentId = {}", commentId);
+        return commentRepository.findCommentResponseById(commentId)
+                .orElseThrow(() -> new CommentException(String.format("comment with Id: %s not found", commentId)));
+    }
+
 
+    /**
+     * deletes the comment if the user wrote it, a no-op otherwise
+     */
+    @Transactional
     public void deleteComment(Long commentId, long userId) {
-        commentRepository.deleteByCommentIdAndUserId(commentId,userId );
+        log.info("deleteComment/commentId = {}", commentId);
+        commentRepository.deleteByCommentIdAndUserId(commentId, userId)
+                .ifPresent(postId -> secondLevelCache.evictPostsAfterCommit(List.of(postId)));
     }
+    @ReadOnlyTransactional
     public Page<CommentResponseI> getCommentForPost(Long postId, int page, int pageSize, String sortField, Sort.Direction sortDirection ) {
         Sort sort = Sort.by(sortDirection, sortField);
         return commentRepository.findAllByPost(postId, PageRequest.of(page, pageSize,sort ));
     }
+
+    /**
+     * keyset alternative to {@link #getCommentForPost}, newest first and without a count query
+     */
+    @ReadOnlyTransactional
+    public CursorSlice<CommentResponseI> scrollCommentsForPost(Long postId, String cursor, int pageSize) {
+        log.info("scrollCommentsForPost/postId = {}", postId);
+        log.info("scrollCommentsForPost/cursor = {}", cursor);
+        log.info("scrollCommentsForPost/pageSize = {}", pageSize);
+        Cursor position = Cursor.decode(cursor);
+        Slice<CommentResponseI> comments = commentRepository.findAllByPostBefore(postId, position.getCreationDate(), position.getId(), PageRequest.of(0, pageSize));
+        return CursorSlice.of(comments, comment -> new Cursor(comment.getCreationDate(), comment.getCommentId()));
+    }
+
     private Comment findCommentById(long commentId) {
         return commentRepository.findById(commentId).orElseThrow(() -> new CommentException(String.format("comment with Id: %s not found", commentId)));
 
     }
 
+    /**
+     * inserts up to {@value PostService#MAX_IMPORT} comments, on any posts, in one transaction. Ids come from the
+     * pooled sequence so hibernate sends the inserts in JDBC batches. No notifications are sent for imported comments
+     */
+    @Transactional
+    public BulkImportResponse importComments(List<CommentRequest> commentRequests) {
+        log.info("importComments/size = {}", commentRequests.size());
+        if (commentRequests.isEmpty() || commentRequests.size() > PostService.MAX_IMPORT) {
+            throw new CommentException(String.format("can import between 1 and %d comments at a time", PostService.MAX_IMPORT));
+        }
+        commentRequests.forEach(commentRequest -> {
+            if (commentRequest.getUserId() == null || commentRequest.getPostId() == null) {
+                throw new CommentException("user id and post id can not be null");
+            }
+            validateComment(commentRequest.getContent());
+        });
+        Map<Long, User> users = userService.getUsers(commentRequests.stream().map(CommentRequest::getUserId).collect(Collectors.toSet()));
+        Map<Long, Post> posts = postService.getPosts(commentRequests.stream().map(CommentRequest::getPostId).collect(Collectors.toSet()));
+        LocalDateTime now = LocalDateTime.now();
+        List<Comment> comments = commentRequests.stream()
+                .map(commentRequest -> Comment.builder()
+                        .post(posts.get(commentRequest.getPostId()))
+                        .user(users.get(commentRequest.getUserId()))
+                        .content(commentRequest.getContent())
+                        .creationDate(now)
+                        .build())
+                .toList();
+        List<Long> ids = commentRepository.saveAll(comments).stream().map(Comment::getId).toList();
+        commentRepository.flush();
+        secondLevelCache.evictPostsAfterCommit(commentRepository.countNewComments(ids));
+        return new BulkImportResponse(ids.size(), ids);
+    }
+
     private void validateComment(String content) {
         if (Strings.isBlank(content)) throw new CommentException("invalid comment");
     }
@@ -95,25 +172,28 @@ public class CommentService {
                 .content(comment)
                 .creationDate(LocalDateTime.now())
                 .build();
-        commentRepository.save(newComment);
-
+        Comment saved = commentRepository.save(newComment);
+        // the counter update reads the comment back, so it has to be written first
+        commentRepository.flush();
+        secondLevelCache.evictPostsAfterCommit(commentRepository.countNewComments(List.of(saved.getId())));
     }
 
 
-    public Page<CommentResponseI> searchComments(String keyword, long postId, int page, int pageSize, String sortField, Sort.Direction sortDirection) {
+    @ReadOnlyTransactional
+    public Page<CommentSearchResponseI> searchComments(String keyword, long postId, int page, int pageSize, String sortField, Sort.Direction sortDirection) {
         log.info("searchComments/postId = {}", postId);
         log.info("searchComments/keyword = {}", keyword);
         log.info("searchComments/page = {}", page);
         log.info("searchComments/pageSize = {}", pageSize);
         log.info("searchComments/sortField = {}", sortField);
         log.info("searchComments/sortDirection = {}", sortDirection);
-        Sort sort = Sort.by(sortDirection, sortField);
-        if (Strings.isNotBlank(keyword)) {
-            Post post = postService.getPost(postId);
-            return commentRepository.searchCommentsByPostId(keyword, post, PageRequest.of(page, pageSize, sort));
-        }else{
-            throw new CommentException("please enter a search keyword");
+        String query = SearchQueries.toPrefixQuery(keyword).orElseThrow(() -> new CommentException("please enter a search keyword"));
+        if (SearchQueries.RELEVANCE.equals(sortField)) {
+            return commentRepository.searchCommentsByPostIdByRelevance(query, postId, PageRequest.of(page, pageSize));
         }
+        String column = SEARCH_SORT_COLUMNS.get(sortField);
+        if (column == null) throw new CommentException(String.format("can not sort search results by %s", sortField));
+        return commentRepository.searchCommentsByPostId(query, postId, PageRequest.of(page, pageSize, Sort.by(sortDirection, column)));
     }
 
 
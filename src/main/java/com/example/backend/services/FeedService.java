@@ -0,0 +1,253 @@
+package com.example.backend.services;
+
+import com.example.backend.exceptions.UserNotFoundException;
+import com.example.backend.models.dtos.FeedResponse;
+import com.example.backend.models.dtos.PostResponse;
+import com.example.backend.models.entities.Post;
+import com.example.backend.models.events.FollowChangedEvent;
+import com.example.backend.models.events.PostCreatedEvent;
+import com.example.backend.repositories.FeedEntryRepository;
+import com.example.backend.repositories.PostRepository;
+import com.example.backend.repositories.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Home feed built by fan-out-on-write: a new post id is written to every follower's row set in
+ * {@code feed_entries} and pushed onto the in-memory timeline of followers that have one loaded.
+ * Authors with more than {@code backend.feed.fan-out-threshold} followers are not fanned out;
+ * their posts are merged in when a feed is read. An author who drops back below the threshold has their
+ * newest {@code backend.feed.timeline-size} posts written to their followers' feeds, so those posts do not
+ * disappear once the merge stops. Unfollowing someone takes their posts back out of the reader's feed.
+ */
+@Slf4j
+@Service
+public class FeedService {
+
+    private static final String INSERT_FEED_ENTRY =
+            "INSERT INTO feed_entries (user_id, post_id, author_id, created_at) VALUES (?, ?, ?, ?) ON CONFLICT DO NOTHING";
+    private static final int INSERT_BATCH_SIZE = 1000;
+    // the author's newest posts for every follower, existing entries are left alone
+    private static final String BACKFILL_FEED_ENTRIES = "INSERT INTO feed_entries (user_id, post_id, author_id, created_at) " +
+            "SELECT f.follower_id, p.id, p.user_id, p.creation_date " +
+            "FROM (SELECT id, user_id, creation_date FROM posts WHERE user_id = ? ORDER BY id DESC LIMIT ?) p " +
+            "JOIN user_followers f ON f.user_id = p.user_id ON CONFLICT DO NOTHING";
+    private static final String DELETE_AUTHOR_ENTRIES = "DELETE FROM feed_entries WHERE user_id = ? AND author_id = ?";
+    static final int MAX_PAGE_SIZE = 100;
+
+    private final FeedEntryRepository feedEntryRepository;
+    private final UserRepository userRepository;
+    private final PostRepository postRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int timelineSize;
+    private final long fanOutThreshold;
+    private final Cache<Long, Timeline> timelines;
+    private final Set<Long> fanOutOnReadAuthors = ConcurrentHashMap.newKeySet();
+
+    public FeedService(
+            FeedEntryRepository feedEntryRepository,
+            UserRepository userRepository,
+            PostRepository postRepository,
+            JdbcTemplate jdbcTemplate,
+            @Value("${backend.feed.timeline-size:300}") int timelineSize,
+            @Value("${backend.feed.max-timelines:20000}") long maxTimelines,
+            @Value("${backend.feed.fan-out-threshold:10000}") long fanOutThreshold
+    ) {
+        this.feedEntryRepository = feedEntryRepository;
+        this.userRepository = userRepository;
+        this.postRepository = postRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.timelineSize = timelineSize;
+        this.fanOutThreshold = fanOutThreshold;
+        this.timelines = Caffeine.newBuilder().maximumSize(maxTimelines).build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFanOutOnReadAuthors() {
+        fanOutOnReadAuthors.addAll(userRepository.findUserIdsWithMoreFollowersThan(fanOutThreshold));
+        log.info("loadFanOutOnReadAuthors/count = {}", fanOutOnReadAuthors.size());
+        // authors who dropped below the threshold without posting since, possibly while no instance was running
+        userRepository.findUserIdsWithLatestPostNotFannedOut(fanOutThreshold).forEach(this::backfill);
+    }
+
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostCreated(PostCreatedEvent event) {
+        log.info("onPostCreated/event = {}", event);
+        long authorId = event.getAuthorId();
+        if (userRepository.countFollowers(authorId) > fanOutThreshold) {
+            if (fanOutOnReadAuthors.add(authorId)) {
+                log.info("onPostCreated/switching author {} to fan-out-on-read", authorId);
+            }
+            return;
+        }
+        if (fanOutOnReadAuthors.remove(authorId)) backfill(authorId);
+
+        List<Long> followerIds = userRepository.findFollowerIds(authorId);
+        Timestamp createdAt = Timestamp.valueOf(event.getCreationDate());
+        for (int from = 0; from < followerIds.size(); from += INSERT_BATCH_SIZE) {
+            List<Object[]> batch = followerIds.subList(from, Math.min(from + INSERT_BATCH_SIZE, followerIds.size())).stream()
+                    .map(followerId -> new Object[]{followerId, event.getPostId(), authorId, createdAt})
+                    .toList();
+            jdbcTemplate.batchUpdate(INSERT_FEED_ENTRY, batch);
+        }
+        // computeIfPresent waits for a timeline that is being loaded, so a concurrent load never misses this post
+        for (Long followerId : followerIds) {
+            timelines.asMap().computeIfPresent(followerId, (id, timeline) -> {
+                timeline.add(event.getPostId());
+                return timeline;
+            });
+        }
+    }
+
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFollowChanged(FollowChangedEvent event) {
+        if (event.isFollowed()) return;
+        log.info("onFollowChanged/event = {}", event);
+        int entries = jdbcTemplate.update(DELETE_AUTHOR_ENTRIES, event.getFollowerId(), event.getUserId());
+        // a loaded timeline still holds the author's posts, it is read again from feed_entries. invalidate waits for
+        // a load in progress, so a timeline read before the delete is not kept either
+        timelines.invalidate(event.getFollowerId());
+        log.info("onFollowChanged/removed entries = {}", entries);
+    }
+
+    /**
+     * @param before only posts with a smaller id are returned, null for the newest page
+     */
+    public FeedResponse getFeed(long userId, Long before, int pageSize) {
+        log.info("getFeed/userId = {}", userId);
+        log.info("getFeed/before = {}", before);
+        log.info("getFeed/pageSize = {}", pageSize);
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotFoundException(String.format("user with id:%s not found", userId));
+        }
+        int limit = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+        long cursor = before == null ? Long.MAX_VALUE : before;
+
+        SortedSet<Long> ids = new TreeSet<>(Comparator.reverseOrder());
+        ids.addAll(pushedPostIds(userId, cursor, limit));
+        if (!fanOutOnReadAuthors.isEmpty()) {
+            List<Long> followed = userRepository.findFollowedAmong(userId, fanOutOnReadAuthors);
+            if (!followed.isEmpty()) {
+                ids.addAll(postRepository.findIdsByAuthorsBefore(followed, cursor, PageRequest.of(0, limit)));
+            }
+        }
+        List<Long> page = ids.stream().limit(limit).toList();
+
+        Map<Long, Post> posts = page.isEmpty() ? Map.of() : postRepository.findAllWithUserByIdIn(page).stream()
+                .collect(Collectors.toMap(Post::getId, Function.identity()));
+        // entries of deleted posts are skipped, the cursor still moves past them
+        List<PostResponse> content = page.stream()
+                .map(posts::get)
+                .filter(Objects::nonNull)
+                .map(PostResponse::from)
+                .toList();
+        return FeedResponse.builder()
+                .posts(content)
+                .nextBefore(page.size() == limit ? page.get(limit - 1) : null)
+                .build();
+    }
+
+    private void backfill(long authorId) {
+        int entries = jdbcTemplate.update(BACKFILL_FEED_ENTRIES, authorId, timelineSize);
+        // loaded timelines are missing the backfilled posts, they are read again from feed_entries
+        timelines.invalidateAll(userRepository.findFollowerIds(authorId));
+        log.info("backfill/authorId = {}, entries = {}", authorId, entries);
+    }
+
+    private List<Long> pushedPostIds(long userId, long before, int limit) {
+        Timeline timeline = timelines.get(userId, this::loadTimeline);
+        List<Long> ids = timeline.before(before, limit);
+        if (ids.size() < limit && timeline.isTruncated()) {
+            // the page runs past the oldest post held in memory
+            long from = ids.isEmpty() ? Math.min(before, timeline.oldest()) : ids.get(ids.size() - 1);
+            ids = new ArrayList<>(ids);
+            ids.addAll(feedEntryRepository.findPostIds(userId, from, PageRequest.of(0, limit - ids.size())));
+        }
+        return ids;
+    }
+
+    private Timeline loadTimeline(long userId) {
+        List<Long> ids = feedEntryRepository.findPostIds(userId, Long.MAX_VALUE, PageRequest.of(0, timelineSize + 1));
+        Timeline timeline = new Timeline(timelineSize);
+        ids.stream().limit(timelineSize).forEach(timeline::add);
+        timeline.truncated = ids.size() > timelineSize;
+        return timeline;
+    }
+
+    /**
+     * The newest post ids of one user's feed, newest first. Once posts have been dropped off the end
+     * the timeline is truncated and older pages come from {@code feed_entries}.
+     */
+    static class Timeline {
+        private final long[] ids;
+        private int size;
+        private boolean truncated;
+
+        Timeline(int capacity) {
+            this.ids = new long[capacity];
+        }
+
+        synchronized void add(long postId) {
+            int index = indexOfFirstBelow(postId);
+            if (index > 0 && ids[index - 1] == postId) return;
+            if (index == ids.length) {
+                truncated = true;
+                return;
+            }
+            int moved = Math.min(size, ids.length - 1) - index;
+            if (size == ids.length) truncated = true;
+            System.arraycopy(ids, index, ids, index + 1, moved);
+            ids[index] = postId;
+            size = Math.min(size + 1, ids.length);
+        }
+
+        synchronized List<Long> before(long before, int limit) {
+            List<Long> result = new ArrayList<>(limit);
+            for (int i = indexOfFirstBelow(before); i < size && result.size() < limit; i++) {
+                result.add(ids[i]);
+            }
+            return result;
+        }
+
+        synchronized boolean isTruncated() {
+            return truncated;
+        }
+
+        synchronized long oldest() {
+            return size == 0 ? Long.MAX_VALUE : ids[size - 1];
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        // ids are kept in descending order
+        private int indexOfFirstBelow(long postId) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (ids[mid] >= postId) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.backend.services;
+
+import com.example.backend.models.events.FollowChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * "Who to follow": per user, the top {@code backend.graph.recommendations.top-k} accounts followed by the people
+ * they follow, ranked by how many of them do. Computed from {@link FollowerGraph} on a fork-join pool and held in a
+ * map, so a lookup is a single get.
+ * <p>
+ * The whole table is rebuilt every {@code rebuild-interval}. In between, a user who follows or unfollows someone is
+ * recomputed on the next {@code update-interval} tick; the people following them, whose second hop changed as well,
+ * catch up at the next rebuild. A user without an entry is queued the same way.
+ */
+@Slf4j
+@Component
+public class FollowRecommendations {
+
+    // users per fork-join leaf
+    private static final int BATCH = 256;
+
+    private final FollowerGraph followerGraph;
+    private final int topK;
+    private final int maxFanOut;
+    private final ForkJoinPool pool;
+    private final Map<Long, Ranked> recommendations = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private volatile boolean built;
+
+    @Autowired
+    public FollowRecommendations(
+            FollowerGraph followerGraph,
+            @Value("${backend.graph.recommendations.top-k:20}") int topK,
+            @Value("${backend.graph.recommendations.max-fan-out:5000}") int maxFanOut,
+            @Value("${backend.graph.recommendations.parallelism:0}") int parallelism
+    ) {
+        this(followerGraph, topK, maxFanOut,
+                new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors()));
+    }
+
+    FollowRecommendations(FollowerGraph followerGraph, int topK, int maxFanOut, ForkJoinPool pool) {
+        this.followerGraph = followerGraph;
+        this.topK = topK;
+        this.maxFanOut = maxFanOut;
+        this.pool = pool;
+    }
+
+    /**
+     * the precomputed recommendations, best first, or null if the user has none yet
+     */
+    public Ranked get(long userId) {
+        Ranked ranked = recommendations.get(userId);
+        if (ranked == null && built) dirty.add(userId);
+        return ranked;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFollowChanged(FollowChangedEvent event) {
+        dirty.add(event.getFollowerId());
+    }
+
+    @Scheduled(fixedDelayString = "${backend.graph.recommendations.update-interval:10000}")
+    public void update() {
+        if (!followerGraph.isLoaded()) return;
+        if (!built) {
+            rebuild();
+            return;
+        }
+        if (dirty.isEmpty()) return;
+        long[] users = dirty.stream().mapToLong(Long::longValue).toArray();
+        Arrays.stream(users).forEach(dirty::remove);
+        compute(users);
+        log.info("update/users = {}", users.length);
+    }
+
+    @Scheduled(fixedDelayString = "${backend.graph.recommendations.rebuild-interval:3600000}",
+            initialDelayString = "${backend.graph.recommendations.rebuild-interval:3600000}")
+    public void rebuild() {
+        if (!followerGraph.isLoaded()) return;
+        long started = System.currentTimeMillis();
+        long[] users = followerGraph.usersFollowingAnyone();
+        compute(users);
+        // users who stopped following anyone since the last rebuild
+        Set<Long> current = ConcurrentHashMap.newKeySet(users.length);
+        Arrays.stream(users).forEach(current::add);
+        recommendations.keySet().retainAll(current);
+        built = true;
+        log.info("rebuild/users = {} in {} ms", users.length, System.currentTimeMillis() - started);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private void compute(long[] users) {
+        pool.invoke(new Batch(users, 0, users.length));
+    }
+
+    /**
+     * scores every account two hops away by the number of followees following it, skipping followees who follow
+     * more than max-fan-out accounts, which say little about the user and cost the most to walk
+     */
+    Ranked recommend(long userId) {
+        long[] followees = followerGraph.followingIds(userId);
+        Map<Long, Integer> scores = new HashMap<>();
+        for (long followee : followees) {
+            if (followerGraph.countFollowing(followee) > maxFanOut) continue;
+            for (long candidate : followerGraph.followingIds(followee)) scores.merge(candidate, 1, Integer::sum);
+        }
+        scores.remove(userId);
+        for (long followee : followees) scores.remove(followee);
+        if (scores.isEmpty()) return null;
+
+        // the weakest of the best k on top, ties broken towards the lower id
+        PriorityQueue<Map.Entry<Long, Integer>> best = new PriorityQueue<>(topK + 1,
+                Map.Entry.<Long, Integer>comparingByValue().thenComparing(Map.Entry.<Long, Integer>comparingByKey().reversed()));
+        for (Map.Entry<Long, Integer> candidate : scores.entrySet()) {
+            best.add(candidate);
+            if (best.size() > topK) best.poll();
+        }
+        long[] ids = new long[best.size()];
+        int[] counts = new int[best.size()];
+        for (int i = ids.length - 1; i >= 0; i--) {
+            Map.Entry<Long, Integer> entry = best.poll();
+            ids[i] = entry.getKey();
+            counts[i] = entry.getValue();
+        }
+        return new Ranked(ids, counts);
+    }
+
+    private class Batch extends RecursiveAction {
+        private final long[] users;
+        private final int from;
+        private final int to;
+
+        Batch(long[] users, int from, int to) {
+            this.users = users;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > BATCH) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Batch(users, from, middle), new Batch(users, middle, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                Ranked ranked = recommend(users[i]);
+                if (ranked == null) recommendations.remove(users[i]);
+                else recommendations.put(users[i], ranked);
+            }
+        }
+    }
+
+    /**
+     * recommended ids best first, with how many of the user's followees follow each
+     */
+    public record Ranked(long[] ids, int[] scores) {
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.backend.services;
+
+import com.example.backend.repositories.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory copy of user_followers as two adjacency maps, followers and following, each user's ids held in a
+ * compressed roaring bitmap rather than a set of boxed longs. Lists come back in id order and are paged by rank, so
+ * a page deep into a celebrity's followers costs the same as the first one.
+ * Loaded once the application is ready and kept current by {@link UserService} after each committed follow,
+ * unfollow or deletion. Until the first load completes, lists, counts and follow checks are answered from
+ * user_followers instead. The after-commit hooks only see this instance's writes, so the graph is read again every
+ * {@code backend.graph.reload-interval} to pick up the follows other instances committed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FollowerGraph {
+
+    private static final long[] NONE = new long[0];
+
+    private final UserRepository userRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock loadLock = new ReentrantLock();
+    // guarded by lock
+    private Map<Long, Roaring64NavigableMap> followers = new HashMap<>();
+    private Map<Long, Roaring64NavigableMap> following = new HashMap<>();
+    // changes committed while load() runs, replayed over the loaded rows since the snapshot may predate them
+    private List<Runnable> changesDuringLoad;
+    private volatile boolean loaded;
+
+    /**
+     * reads user_followers into new maps and swaps them in, reads are served from the previous maps meanwhile, so a
+     * reload holds two copies of the graph until the swap
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${backend.graph.reload-interval:900000}",
+            initialDelayString = "${backend.graph.reload-interval:900000}")
+    public void load() {
+        if (!loadLock.tryLock()) return;
+        try {
+            Map<Long, Roaring64NavigableMap> loadedFollowers = new HashMap<>();
+            Map<Long, Roaring64NavigableMap> loadedFollowing = new HashMap<>();
+            write(() -> changesDuringLoad = new ArrayList<>());
+            long[] edges = {0};
+            try {
+                userRepository.forEachFollow((userId, followerId) -> {
+                    add(loadedFollowers, loadedFollowing, userId, followerId);
+                    edges[0]++;
+                });
+            } catch (RuntimeException e) {
+                write(() -> changesDuringLoad = null);
+                throw e;
+            }
+            loadedFollowers.values().forEach(Roaring64NavigableMap::runOptimize);
+            loadedFollowing.values().forEach(Roaring64NavigableMap::runOptimize);
+            write(() -> {
+                followers = loadedFollowers;
+                following = loadedFollowing;
+                changesDuringLoad.forEach(Runnable::run);
+                changesDuringLoad = null;
+            });
+            loaded = true;
+            log.info("load/edges = {}", edges[0]);
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * up to limit follower ids of the user greater than afterId, ascending
+     */
+    public long[] followers(long userId, long afterId, int limit) {
+        if (!loaded) return toArray(userRepository.findFollowerIdsAfter(userId, afterId, Math.max(limit, 0)));
+        return page(followers, userId, afterId, limit);
+    }
+
+    /**
+     * up to limit ids the user follows greater than afterId, ascending
+     */
+    public long[] following(long userId, long afterId, int limit) {
+        if (!loaded) return toArray(userRepository.findFollowingIdsAfter(userId, afterId, Math.max(limit, 0)));
+        return page(following, userId, afterId, limit);
+    }
+
+    /**
+     * every id the user follows, ascending
+     */
+    public long[] followingIds(long userId) {
+        lock.readLock().lock();
+        try {
+            Roaring64NavigableMap ids = following.get(userId);
+            return ids == null ? NONE : ids.toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * the users who follow at least one other user
+     */
+    public long[] usersFollowingAnyone() {
+        lock.readLock().lock();
+        try {
+            return following.keySet().stream().mapToLong(Long::longValue).toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long countFollowers(long userId) {
+        if (!loaded) return userRepository.countFollowers(userId);
+        return count(followers, userId);
+    }
+
+    public long countFollowing(long userId) {
+        if (!loaded) return userRepository.countFollowing(userId);
+        return count(following, userId);
+    }
+
+    public boolean follows(long followerId, long userId) {
+        if (!loaded) return !userRepository.findFollowedAmong(followerId, List.of(userId)).isEmpty();
+        lock.readLock().lock();
+        try {
+            Roaring64NavigableMap ids = following.get(followerId);
+            return ids != null && ids.contains(userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * users the viewer follows who also follow userId, as a copy the caller owns
+     */
+    public Roaring64NavigableMap followersFollowedBy(long viewerId, long userId) {
+        return intersect(following, viewerId, followers, userId);
+    }
+
+    /**
+     * users who follow userId and are followed back by them, as a copy the caller owns
+     */
+    public Roaring64NavigableMap mutuals(long userId) {
+        return intersect(followers, userId, following, userId);
+    }
+
+    public void followAfterCommit(long userId, long followerId) {
+        afterCommit(() -> apply(() -> add(userId, followerId)));
+    }
+
+    public void unfollowAfterCommit(long userId, long followerId) {
+        afterCommit(() -> apply(() -> remove(userId, followerId)));
+    }
+
+    public void removeUserAfterCommit(long userId) {
+        afterCommit(() -> apply(() -> removeUser(userId)));
+    }
+
+    /**
+     * up to limit ids of the set greater than afterId, ascending
+     */
+    static long[] page(Roaring64NavigableMap ids, long afterId, int limit) {
+        if (ids == null || limit <= 0) return NONE;
+        // rank is the number of ids <= afterId, so the page starts at that position
+        long from = afterId < 0 ? 0 : ids.rankLong(afterId);
+        int size = (int) Math.max(0, Math.min(limit, ids.getLongCardinality() - from));
+        long[] page = new long[size];
+        for (int i = 0; i < size; i++) page[i] = ids.select(from + i);
+        return page;
+    }
+
+    private static long[] toArray(List<Long> ids) {
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private long[] page(Map<Long, Roaring64NavigableMap> adjacency, long userId, long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            return page(adjacency.get(userId), afterId, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Roaring64NavigableMap intersect(Map<Long, Roaring64NavigableMap> leftAdjacency, long leftId,
+                                            Map<Long, Roaring64NavigableMap> rightAdjacency, long rightId) {
+        Roaring64NavigableMap result = new Roaring64NavigableMap(false, false);
+        lock.readLock().lock();
+        try {
+            Roaring64NavigableMap left = leftAdjacency.get(leftId);
+            Roaring64NavigableMap right = rightAdjacency.get(rightId);
+            if (left == null || right == null) return result;
+            // copy the smaller set and narrow it down, so a celebrity's million followers are only probed
+            boolean leftSmaller = left.getLongCardinality() <= right.getLongCardinality();
+            result.or(leftSmaller ? left : right);
+            result.and(leftSmaller ? right : left);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long count(Map<Long, Roaring64NavigableMap> adjacency, long userId) {
+        lock.readLock().lock();
+        try {
+            Roaring64NavigableMap ids = adjacency.get(userId);
+            return ids == null ? 0 : ids.getLongCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Runnable change) {
+        write(() -> {
+            change.run();
+            if (changesDuringLoad != null) changesDuringLoad.add(change);
+        });
+    }
+
+    private void write(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // the methods below run under the write lock
+
+    private void add(long userId, long followerId) {
+        add(followers, following, userId, followerId);
+    }
+
+    // also fills a load's maps before they are swapped in, no other thread sees those yet
+    private static void add(Map<Long, Roaring64NavigableMap> followers, Map<Long, Roaring64NavigableMap> following,
+                            long userId, long followerId) {
+        // cardinalities are not cached, caching would make the read-locked rank and select calls write to the bitmap
+        followers.computeIfAbsent(userId, id -> new Roaring64NavigableMap(false, false)).addLong(followerId);
+        following.computeIfAbsent(followerId, id -> new Roaring64NavigableMap(false, false)).addLong(userId);
+    }
+
+    private void remove(long userId, long followerId) {
+        removeId(followers, userId, followerId);
+        removeId(following, followerId, userId);
+    }
+
+    private void removeUser(long userId) {
+        Roaring64NavigableMap followerIds = followers.remove(userId);
+        if (followerIds != null) followerIds.forEach(followerId -> removeId(following, followerId, userId));
+        Roaring64NavigableMap followingIds = following.remove(userId);
+        if (followingIds != null) followingIds.forEach(followedId -> removeId(followers, followedId, userId));
+    }
+
+    private static void removeId(Map<Long, Roaring64NavigableMap> adjacency, long userId, long id) {
+        Roaring64NavigableMap ids = adjacency.get(userId);
+        if (ids == null) return;
+        ids.removeLong(id);
+        if (ids.isEmpty()) adjacency.remove(userId);
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
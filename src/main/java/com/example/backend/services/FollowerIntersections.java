@@ -0,0 +1,72 @@
+package com.example.backend.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Set intersections over {@link FollowerGraph}: the followers a viewer knows ("X, Y and 12 others you follow")
+ * and a user's mutual follows. Followers-you-know is shown on every profile view, so each (viewer, user) pair is
+ * cached with its count and the first few ids; a cached pair can lag behind follows by up to
+ * {@code backend.graph.known-followers.ttl}.
+ */
+@Component
+public class FollowerIntersections {
+
+    public static final int MAX_SAMPLE = 10;
+
+    private final FollowerGraph followerGraph;
+    private final Cache<ViewerPair, Known> knownFollowers;
+
+    public FollowerIntersections(
+            FollowerGraph followerGraph,
+            @Value("${backend.graph.known-followers.max-size:100000}") long maxSize,
+            @Value("${backend.graph.known-followers.ttl:60000}") long ttlMillis,
+            MeterRegistry meterRegistry
+    ) {
+        this.followerGraph = followerGraph;
+        this.knownFollowers = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, knownFollowers, "graph.known-followers");
+    }
+
+    /**
+     * how many of the viewer's followees follow userId, and the first {@link #MAX_SAMPLE} of them by id
+     */
+    public Known knownFollowers(long viewerId, long userId) {
+        return knownFollowers.get(new ViewerPair(viewerId, userId), pair -> {
+            Roaring64NavigableMap known = followerGraph.followersFollowedBy(pair.viewerId(), pair.userId());
+            return new Known(known.getLongCardinality(), first(known, MAX_SAMPLE));
+        });
+    }
+
+    /**
+     * up to limit mutual follows of the user greater than afterId, ascending
+     */
+    public long[] mutuals(long userId, long afterId, int limit) {
+        return FollowerGraph.page(followerGraph.mutuals(userId), afterId, limit);
+    }
+
+    private static long[] first(Roaring64NavigableMap ids, int limit) {
+        long[] first = new long[(int) Math.min(limit, ids.getLongCardinality())];
+        LongIterator iterator = ids.getLongIterator();
+        for (int i = 0; i < first.length; i++) first[i] = iterator.next();
+        return first;
+    }
+
+    private record ViewerPair(long viewerId, long userId) {
+    }
+
+    public record Known(long count, long[] sample) {
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.backend.services;
+
+import com.example.backend.config.SecondLevelCache;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Buffers like deltas per post in a {@link LongAdder} so concurrent likes never contend on the posts row,
+ * and periodically adds them to {@code posts.likes_count} in one JDBC batch.
+ * Counts are eventually consistent, lagging by at most one flush interval. The flushed posts are evicted from the
+ * second-level cache, which does not see JDBC writes.
+ */
+@Slf4j
+@Component
+public class LikeCounter {
+
+    private static final String ADD_LIKES = "UPDATE posts SET likes_count = likes_count + ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SecondLevelCache secondLevelCache;
+    private final ConcurrentHashMap<Long, LongAdder> pending = new ConcurrentHashMap<>();
+    // a lock rather than synchronized, a virtual thread blocked on the batch inside a monitor would pin its carrier
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // adders removed on the previous flush; a thread may still hold one, so they are drained once more
+    private Map<Long, LongAdder> retired = Map.of();
+
+    public LikeCounter(JdbcTemplate jdbcTemplate, SecondLevelCache secondLevelCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.secondLevelCache = secondLevelCache;
+    }
+
+    public void add(long postId, long delta) {
+        pending.computeIfAbsent(postId, id -> new LongAdder()).add(delta);
+    }
+
+    /**
+     * counts the delta once the surrounding transaction commits, so a rolled back like is never counted
+     */
+    public void addAfterCommit(long postId, long delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(postId, delta);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(postId, delta);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${backend.likes.flush-interval:1000}")
+    @PreDestroy
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<Long, Long> deltas = new ConcurrentHashMap<>();
+            retired.forEach((postId, adder) -> drain(postId, adder, deltas));
+            Map<Long, LongAdder> idle = new ConcurrentHashMap<>();
+            pending.forEach((postId, adder) -> {
+                if (!drain(postId, adder, deltas) && pending.remove(postId, adder)) {
+                    idle.put(postId, adder);
+                }
+            });
+            retired = idle;
+            if (deltas.isEmpty()) return;
+
+            List<Object[]> batch = new ArrayList<>(deltas.size());
+            deltas.forEach((postId, delta) -> batch.add(new Object[]{delta, postId}));
+            try {
+                jdbcTemplate.batchUpdate(ADD_LIKES, batch);
+                log.info("flush/posts = {}", batch.size());
+                secondLevelCache.evictPosts(deltas.keySet());
+            } catch (RuntimeException e) {
+                log.error("flush/failed, keeping {} deltas for the next flush", batch.size(), e);
+                deltas.forEach(this::add);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    long pendingCount(long postId) {
+        LongAdder adder = pending.get(postId);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    private static boolean drain(long postId, LongAdder adder, Map<Long, Long> deltas) {
+        long delta = adder.sumThenReset();
+        if (delta == 0) return false;
+        deltas.merge(postId, delta, Long::sum);
+        return true;
+    }
+}
@@ -1,28 +1,46 @@
 package com.example.backend.services;
 
+import com.example.backend.config.ReadOnlyTransactional;
 
+import com.example.backend.exceptions.NotificationException;
 import com.example.backend.models.dtos.CreateNotificationRequest;
+import com.example.backend.models.dtos.Cursor;
+import com.example.backend.models.dtos.CursorSlice;
+import com.example.backend.models.dtos.InboxCursor;
+import com.example.backend.models.dtos.NotificationView;
 import com.example.backend.models.entities.Notification;
 import com.example.backend.models.entities.Post;
 import com.example.backend.models.entities.User;
+import com.example.backend.models.events.NotificationEvent;
+import com.example.backend.repositories.NotificationCounterRepository;
 import com.example.backend.repositories.NotificationRepository;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class NotificationService {
 
+    private static final int MAX_MARK_AS_READ = 1000;
+
     private final NotificationRepository notificationRepository;
+    private final NotificationCounterRepository notificationCounterRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
 
 
+    @Transactional
     public Notification createNotification(CreateNotificationRequest notificationRequest) {
         log.info("createNotification/request="+notificationRequest);
         Notification notification = Notification.builder()
@@ -32,26 +50,121 @@ public class NotificationService {
                 .notificationType(notificationRequest.getNotificationType())
                 .createdAt(LocalDateTime.now())
                 .isRead(false).build();
-        return notificationRepository.save(notification);
+        Notification newNotification = notificationRepository.save(notification);
+        notificationCounterRepository.addUnread(notificationRequest.getUser().getId(), 1);
+        return newNotification;
+    }
+
+    /**
+     * queues the notification to be written by {@link NotificationWriter} once the caller's transaction commits
+     */
+    public void publishNotification(CreateNotificationRequest notificationRequest) {
+        log.info("publishNotification/request="+notificationRequest.getNotificationType());
+        eventPublisher.publishEvent(new NotificationEvent(
+                notificationRequest.getUser().getId(),
+                notificationRequest.getSender().getId(),
+                notificationRequest.getPost() != null ? notificationRequest.getPost().getId() : null,
+                notificationRequest.getNotificationType(),
+                LocalDateTime.now()));
     }
 
-    public List<Notification> getNotificationsForUser(long userId) {
+    @ReadOnlyTransactional
+    public NotificationView getNotification(long notificationId) {
+        log.info("getNotification/notificationId = {}", notificationId);
+        return notificationRepository.findViewById(notificationId)
+                .orElseThrow(() -> new NotificationException(String.format("notification with id %s not found", notificationId)));
+    }
+
+    @ReadOnlyTransactional
+    public List<NotificationView> getNotificationsForUser(long userId) {
         log.info("getNotificationsForUser/userId="+userId);
 
         return notificationRepository.findByUserId(userId);
     }
 
+    @ReadOnlyTransactional
+    public CursorSlice<NotificationView> scrollNotificationsForUser(long userId, String cursor, int pageSize) {
+        log.info("scrollNotificationsForUser/userId = {}", userId);
+        log.info("scrollNotificationsForUser/cursor = {}", cursor);
+        Cursor position = Cursor.decode(cursor);
+        Slice<NotificationView> notifications = notificationRepository.findByUserIdBefore(userId, position.getCreationDate(), position.getId(), PageRequest.of(0, pageSize));
+        return CursorSlice.of(notifications, notification -> new Cursor(notification.getCreatedAt(), notification.getId()));
+    }
+
+    /**
+     * unread notifications first, then read ones, each newest first
+     */
+    @ReadOnlyTransactional
+    public CursorSlice<NotificationView> getInbox(long userId, String cursor, int pageSize) {
+        log.info("getInbox/userId = {}", userId);
+        log.info("getInbox/cursor = {}", cursor);
+        log.info("getInbox/pageSize = {}", pageSize);
+        InboxCursor position = InboxCursor.decode(cursor);
+        long watermark = findReadWatermark(userId);
+        // one extra row tells whether there is a next page
+        int limit = pageSize + 1;
+        List<NotificationView> notifications = new ArrayList<>(limit);
+        if (!position.isRead()) {
+            notifications.addAll(notificationRepository.findUnreadInbox(userId, watermark,
+                    position.getPosition().getCreationDate(), position.getPosition().getId(), limit));
+        }
+        if (notifications.size() < limit) {
+            Cursor readPosition = position.isRead() ? position.getPosition() : Cursor.decode(null);
+            notifications.addAll(notificationRepository.findReadInbox(userId, watermark,
+                    readPosition.getCreationDate(), readPosition.getId(), limit - notifications.size()));
+        }
+
+        boolean hasNext = notifications.size() > pageSize;
+        List<NotificationView> content = hasNext ? notifications.subList(0, pageSize) : notifications;
+        String nextCursor = null;
+        if (hasNext) {
+            NotificationView last = content.get(content.size() - 1);
+            nextCursor = new InboxCursor(last.getRead(), new Cursor(last.getCreatedAt(), last.getId())).encode();
+        }
+        return new CursorSlice<>(content, hasNext, nextCursor);
+    }
+
+    @ReadOnlyTransactional
+    public long getUnreadCount(long userId) {
+        log.info("getUnreadCount/userId = {}", userId);
+        return notificationCounterRepository.findById(userId).map(counter -> counter.getUnreadCount()).orElse(0L);
+    }
+
+    @Transactional
     public void markNotificationAsRead(long notificationId) {
         log.info("markNotificationAsRead/notificationId="+notificationId);
+        notificationRepository.markAsRead(notificationId);
+    }
 
-        Notification notification = findNotificationById(notificationId);
-        notification.setRead(true);
-        notificationRepository.save(notification);
+    @Transactional
+    public void markNotificationsAsRead(long userId, List<Long> notificationIds) {
+        log.info("markNotificationsAsRead/userId = {}", userId);
+        log.info("markNotificationsAsRead/count = {}", notificationIds == null ? 0 : notificationIds.size());
+        if (notificationIds == null || notificationIds.isEmpty()) {
+            throw new NotificationException("provide the ids of the notifications to mark as read");
+        }
+        if (notificationIds.size() > MAX_MARK_AS_READ) {
+            throw new NotificationException(String.format("can not mark more than %s notifications at once", MAX_MARK_AS_READ));
+        }
+        notificationRepository.markAsRead(userId, notificationIds);
     }
 
+    /**
+     * marks everything up to a notification id or a point in time read, or the whole inbox when neither is given
+     */
+    @Transactional
+    public void markAllAsRead(long userId, Long upToId, LocalDateTime upTo) {
+        log.info("markAllAsRead/userId = {}", userId);
+        log.info("markAllAsRead/upToId = {}", upToId);
+        log.info("markAllAsRead/upTo = {}", upTo);
+        // the watermark never comes back down, so an id past the user's newest notification is clamped to it
+        Optional<Long> lastId = upToId != null ? notificationRepository.findLastId(userId).map(id -> Math.min(id, upToId))
+                : upTo != null ? notificationRepository.findLastIdUpTo(userId, upTo)
+                : notificationRepository.findLastId(userId);
+        lastId.ifPresent(id -> notificationCounterRepository.raiseReadWatermark(userId, id));
+    }
 
-    private Notification findNotificationById(long notificationId) {
-        log.info("findNotificationById/notificationId="+notificationId);
-        return notificationRepository.findById(notificationId).orElseThrow(() -> new NoSuchElementException("notification not found"));
+    private long findReadWatermark(long userId) {
+        return notificationCounterRepository.findById(userId).map(counter -> counter.getReadWatermark()).orElse(0L);
     }
 }
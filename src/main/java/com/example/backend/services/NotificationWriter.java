@@ -0,0 +1,195 @@
+package com.example.backend.services;
+
+import com.example.backend.models.enums.NotificationType;
+import com.example.backend.models.events.NotificationEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes notifications outside the like and comment transactions. Committed {@link NotificationEvent}s are
+ * queued in memory and inserted in JDBC batches every {@code backend.notifications.flush-interval}; events for
+ * the same recipient, post and type within one interval become a single row with an aggregate count.
+ * When the queue is full the event is written by the publishing thread instead. Each batch also adds its rows
+ * to the recipients' unread counters in the same transaction. A batch that fails is written again row by row:
+ * a row the database rejects, such as one whose post or user was deleted in the meantime, is dropped on its own.
+ * When the database can not be reached the rows are kept and written again on the following flushes, up to
+ * {@code backend.notifications.max-attempts} times before they are dropped.
+ */
+@Slf4j
+@Component
+public class NotificationWriter {
+
+    // ids come from the same sequence hibernate allocates from, see PooledSequenceGenerator
+    private static final String INSERT_NOTIFICATION = "INSERT INTO notifications " +
+            "(id, user_id, sender_id, post_id, notification_type, is_read, aggregate_count, created_at, updated_at) " +
+            "VALUES (nextval('notifications_seq'), ?, ?, ?, ?, false, ?, ?, ?)";
+    private static final String ADD_UNREAD = "INSERT INTO notification_counters (user_id, unread_count) VALUES (?, ?) " +
+            "ON CONFLICT (user_id) DO UPDATE SET unread_count = notification_counters.unread_count + EXCLUDED.unread_count";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<NotificationEvent> queue;
+    private final int batchSize;
+    private final int maxAttempts;
+    // coalesced rows whose insert failed, written before anything newer on the next flush
+    private final Queue<Aggregate> failed = new ConcurrentLinkedQueue<>();
+    // not synchronized, a virtual thread writing a batch inside a monitor would pin its carrier
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public NotificationWriter(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${backend.notifications.queue-capacity:10000}") int queueCapacity,
+            @Value("${backend.notifications.batch-size:1000}") int batchSize,
+            @Value("${backend.notifications.max-attempts:5}") int maxAttempts
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotification(NotificationEvent event) {
+        if (!queue.offer(event)) {
+            log.warn("onNotification/queue full, writing {} directly", event);
+            flushLock.lock();
+            try {
+                write(coalesce(List.of(event)));
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${backend.notifications.flush-interval:2000}")
+    @PreDestroy
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<Aggregate> retries = new ArrayList<>();
+            for (Aggregate aggregate; (aggregate = failed.poll()) != null; ) retries.add(aggregate);
+            // the database is still failing, the queue waits for the next flush
+            if (!retries.isEmpty() && !write(retries)) return;
+            List<NotificationEvent> events = new ArrayList<>(batchSize);
+            while (queue.drainTo(events, batchSize) > 0) {
+                if (!write(coalesce(events))) return;
+                events.clear();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    int pending() {
+        return queue.size();
+    }
+
+    int failed() {
+        return failed.size();
+    }
+
+    /**
+     * @return false when the database could not be reached, the rows not written are then kept for the next flush
+     * or dropped once they have been tried max-attempts times
+     */
+    private boolean write(List<Aggregate> notifications) {
+        try {
+            insert(notifications);
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("write/batch of {} notifications failed, writing them one by one", notifications.size(), e);
+        }
+        for (int i = 0; i < notifications.size(); i++) {
+            try {
+                insert(notifications.subList(i, i + 1));
+            } catch (DataIntegrityViolationException e) {
+                log.error("write/dropping a notification the database rejects", e);
+            } catch (RuntimeException e) {
+                List<Aggregate> unwritten = notifications.subList(i, notifications.size());
+                int dropped = 0;
+                for (Aggregate notification : unwritten) {
+                    if (++notification.attempts < maxAttempts) failed.add(notification);
+                    else dropped++;
+                }
+                log.error("write/could not write {} notifications, dropped {} after {} attempts",
+                        unwritten.size(), dropped, maxAttempts, e);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void insert(List<Aggregate> notifications) {
+        List<Object[]> batch = notifications.stream()
+                .map(notification -> new Object[]{
+                        notification.event.getRecipientId(),
+                        notification.event.getSenderId(),
+                        notification.event.getPostId(),
+                        notification.event.getNotificationType().name(),
+                        notification.count,
+                        Timestamp.valueOf(notification.event.getCreatedAt()),
+                        Timestamp.valueOf(notification.event.getCreatedAt())
+                })
+                .toList();
+        Map<Long, Long> unread = new LinkedHashMap<>();
+        notifications.forEach(notification -> unread.merge(notification.event.getRecipientId(), 1L, Long::sum));
+        List<Object[]> counters = unread.entrySet().stream()
+                .map(entry -> new Object[]{entry.getKey(), entry.getValue()})
+                .toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_NOTIFICATION, batch);
+            jdbcTemplate.batchUpdate(ADD_UNREAD, counters);
+        });
+        log.info("insert/notifications = {}", batch.size());
+    }
+
+    // keeps the latest event of each (recipient, post, type) so the row names the most recent sender
+    private static List<Aggregate> coalesce(List<NotificationEvent> events) {
+        Map<Key, Aggregate> aggregates = new LinkedHashMap<>();
+        for (NotificationEvent event : events) {
+            Key key = new Key(event.getRecipientId(), event.getPostId(), event.getNotificationType());
+            Aggregate aggregate = aggregates.get(key);
+            if (aggregate == null) {
+                aggregates.put(key, new Aggregate(event));
+            } else {
+                aggregate.event = event;
+                aggregate.count++;
+            }
+        }
+        return new ArrayList<>(aggregates.values());
+    }
+
+    private record Key(long recipientId, Long postId, NotificationType notificationType) {
+    }
+
+    private static final class Aggregate {
+        private NotificationEvent event;
+        private int count = 1;
+        private int attempts;
+
+        private Aggregate(NotificationEvent event) {
+            this.event = event;
+        }
+    }
+}
@@ -1,37 +1,63 @@
 package com.example.backend.services;
 
+import com.example.backend.config.ReadOnlyTransactional;
 import com.example.backend.exceptions.PostException;
 import com.example.backend.exceptions.PostNotFoundException;
+import com.example.backend.models.dtos.BulkImportResponse;
 import com.example.backend.models.dtos.CreateNotificationRequest;
 import com.example.backend.models.dtos.CreatePostRequest;
 import com.example.backend.models.dtos.CreatePostResponse;
-import com.example.backend.models.entities.Comment;
+import com.example.backend.models.dtos.Cursor;
+import com.example.backend.models.dtos.CursorSlice;
+import com.example.backend.models.dtos.DeletionJob;
+import com.example.backend.models.dtos.PostView;
 import com.example.backend.models.entities.Post;
 import com.example.backend.models.entities.User;
 import com.example.backend.models.enums.NotificationType;
+import com.example.backend.models.events.PostCreatedEvent;
 import com.example.backend.repositories.CommentRepository;
+import com.example.backend.repositories.PostLikeRepository;
 import com.example.backend.repositories.PostRepository;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.logging.log4j.util.Strings;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class PostService {
 
+    public static final int MAX_IMPORT = 10_000;
+
+    private static final Map<String, String> SEARCH_SORT_COLUMNS = Map.of(
+            "creationDate", "creation_date",
+            "likesCount", "likes_count",
+            "commentsCount", "comments_count",
+            "id", "id"
+    );
+
     private final PostRepository postRepository;
     private final UserService userService;
     private final CommentRepository commentRepository;
     private final NotificationService notificationService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PostLikeRepository postLikeRepository;
+    private final LikeCounter likeCounter;
+    private final CascadeDeleter cascadeDeleter;
 
     @Transactional
     public CreatePostResponse createPost(CreatePostRequest postRequest) {
@@ -43,11 +69,14 @@ public class PostService {
                 .likesCount(0)
                 .user(user)
                 .build();
-        Post newPost = postRepository.save(post);
+        Long postId = postRepository.save(post).getId();
+        Long userId = user.getId();
+        // fanned out to followers' feeds once the post is committed
+        eventPublisher.publishEvent(new PostCreatedEvent(postId, userId, post.getCreationDate()));
         return CreatePostResponse.builder()
-                .postId(newPost.getId())
+                .postId(postId)
                 .content(post.getContent())
-                .userId(user.getId())
+                .userId(userId)
                 .username(user.getUsername())
                 .creationDate(post.getCreationDate())
                 .likesCount(post.getLikesCount())
@@ -55,11 +84,51 @@ public class PostService {
 
     }
 
+    /**
+     * inserts up to {@value #MAX_IMPORT} posts in one transaction. Ids come from the pooled sequence so hibernate
+     * sends the inserts in JDBC batches. Imported posts are not fanned out to feeds
+     */
+    @Transactional
+    public BulkImportResponse importPosts(List<CreatePostRequest> postRequests) {
+        log.info("importPosts/size = {}", postRequests.size());
+        if (postRequests.isEmpty() || postRequests.size() > MAX_IMPORT) {
+            throw new PostException(String.format("can import between 1 and %d posts at a time", MAX_IMPORT));
+        }
+        postRequests.forEach(postRequest -> {
+            if (postRequest.getUserId() == null) throw new PostException("user id can not be null");
+            validatePostContent(postRequest.getContent());
+        });
+        Map<Long, User> users = userService.getUsers(postRequests.stream().map(CreatePostRequest::getUserId).collect(Collectors.toSet()));
+        LocalDateTime now = LocalDateTime.now();
+        List<Post> posts = postRequests.stream()
+                .map(postRequest -> Post.builder()
+                        .creationDate(now)
+                        .content(postRequest.getContent())
+                        .likesCount(0)
+                        .user(users.get(postRequest.getUserId()))
+                        .build())
+                .toList();
+        List<Long> ids = postRepository.saveAll(posts).stream().map(Post::getId).toList();
+        return new BulkImportResponse(ids.size(), ids);
+    }
+
     public Post getPost(Long postId) {
         log.info("getPost/postId = {}", postId);
         return findPostById(postId);
     }
 
+    /**
+     * loads the posts in one query, failing if any of them does not exist
+     */
+    public Map<Long, Post> getPosts(Collection<Long> postIds) {
+        log.info("getPosts/postIds = {}", postIds.size());
+        Map<Long, Post> posts = postRepository.findAllById(postIds).stream()
+                .collect(Collectors.toMap(Post::getId, Function.identity()));
+        List<Long> missing = postIds.stream().filter(postId -> !posts.containsKey(postId)).distinct().toList();
+        if (!missing.isEmpty()) throw new PostNotFoundException(String.format("posts with ids %s not found", missing));
+        return posts;
+    }
+
     public void updatePost(Long postId,Long userId, String content) {
         log.info("updatePost/userId = {}", userId);
         log.info("updatePost/postId = {}", postId);
@@ -76,22 +145,18 @@ public class PostService {
         postRepository.save(post);
     }
 
+    @Transactional
     public void deletePost(Long postId) {
         log.info("deletePost/postId = {}", postId);
+        findPostById(postId);
+        long rows = cascadeDeleter.deletePost(postId);
+        log.info("deletePost/rows = {}", rows);
+    }
 
-        Post post = findPostById(postId);
-
-        // Delete associated comments
-        List<Comment> comments = commentRepository.findAllByPost(post);
-        commentRepository.deleteAll(comments);
-
-        // Finally, delete the post
-        postRepository.delete(post);
-
-        //delete post
-        postRepository.deleteById(postId);
-
-
+    public DeletionJob deletePostAsync(Long postId) {
+        log.info("deletePostAsync/postId = {}", postId);
+        findPostById(postId);
+        return cascadeDeleter.submitPostDeletion(postId, () -> log.info("deletePostAsync/deleted post {}", postId));
     }
 
     @Transactional
@@ -99,7 +164,11 @@ public class PostService {
         log.info("likePost/postId = {}", postId);
         Post post = findPostById(postId);
         User user = userService.getUser(userId);
-        post.setLikesCount(post.getLikesCount() + 1);
+        if (postLikeRepository.insertIfAbsent(postId, userId) == 0) {
+            log.info("likePost/user {} already liked post {}", userId, postId);
+            return;
+        }
+        likeCounter.addAfterCommit(postId, 1);
 
         CreateNotificationRequest notificationRequest = CreateNotificationRequest.builder()
                 .notificationType(NotificationType.LIKE)
@@ -107,31 +176,66 @@ public class PostService {
                 .post(post)
                 .user(post.getUser())
                 .build();
-        notificationService.createNotification(notificationRequest);
+        notificationService.publishNotification(notificationRequest);
+    }
+
+    @Transactional
+    public void unlikePost(long postId, long userId) {
+        log.info("unlikePost/postId = {}", postId);
+        if (postLikeRepository.deleteByPostIdAndUserId(postId, userId) == 1) {
+            likeCounter.addAfterCommit(postId, -1);
+        }
     }
 
 
-    public Page<Post> searchPosts(String keyword, int page, int pageSize, String sortField, Sort.Direction sortDirection) {
+    @ReadOnlyTransactional
+    public Page<PostView> searchPosts(String keyword, int page, int pageSize, String sortField, Sort.Direction sortDirection) {
         log.info("searchPosts/keyword = {}", keyword);
         log.info("searchPosts/page = {}", page);
         log.info("searchPosts/pageSize = {}", pageSize);
         log.info("searchPosts/sortField = {}", sortField);
         log.info("searchPosts/sortDirection = {}", sortDirection);
-        Sort sort = Sort.by(sortDirection, sortField);
-        if (Strings.isNotBlank(keyword)) {
-            return postRepository.searchPosts(keyword, PageRequest.of(page, pageSize, sort));
-        }else{
-            throw new PostException("provide a search keyword");
+        String query = SearchQueries.toPrefixQuery(keyword).orElseThrow(() -> new PostException("provide a search keyword"));
+        if (SearchQueries.RELEVANCE.equals(sortField)) {
+            return postRepository.searchPostsByRelevance(query, PageRequest.of(page, pageSize));
         }
+        String column = SEARCH_SORT_COLUMNS.get(sortField);
+        if (column == null) throw new PostException(String.format("can not sort search results by %s", sortField));
+        return postRepository.searchPosts(query, PageRequest.of(page, pageSize, Sort.by(sortDirection, column)));
     }
 
-    public Page<Post> getAllPosts(int page, int pageSize, String sortField, Sort.Direction sortDirection) {
+    @ReadOnlyTransactional
+    public Page<PostView> getAllPosts(int page, int pageSize, String sortField, Sort.Direction sortDirection) {
         log.info("getAllPosts/page = {}", page);
         log.info("getAllPosts/pageSize = {}", pageSize);
         log.info("getAllPosts/sortField = {}", sortField);
         log.info("getAllPosts/sortDirection = {}", sortDirection);
         Sort sort = Sort.by(sortDirection, sortField);
-        return postRepository.findAll(PageRequest.of(page, pageSize, sort));
+        return postRepository.findAllViews(PageRequest.of(page, pageSize, sort));
+    }
+
+
+    /**
+     * keyset alternative to {@link #getAllPosts}, newest first and without a count query
+     */
+    @ReadOnlyTransactional
+    public CursorSlice<PostView> scrollPosts(String cursor, int pageSize) {
+        log.info("scrollPosts/cursor = {}", cursor);
+        log.info("scrollPosts/pageSize = {}", pageSize);
+        Cursor position = Cursor.decode(cursor);
+        Slice<PostView> posts = postRepository.findPostsBefore(position.getCreationDate(), position.getId(), PageRequest.of(0, pageSize));
+        return CursorSlice.of(posts, post -> new Cursor(post.getCreationDate(), post.getPostId()));
+    }
+
+    @ReadOnlyTransactional
+    public CursorSlice<PostView> scrollSearchPosts(String keyword, String cursor, int pageSize) {
+        log.info("scrollSearchPosts/keyword = {}", keyword);
+        log.info("scrollSearchPosts/cursor = {}", cursor);
+        log.info("scrollSearchPosts/pageSize = {}", pageSize);
+        String query = SearchQueries.toPrefixQuery(keyword).orElseThrow(() -> new PostException("provide a search keyword"));
+        Cursor position = Cursor.decode(cursor);
+        Slice<PostView> posts = postRepository.searchPostsBefore(query, position.getCreationDate(), position.getId(), PageRequest.of(0, pageSize));
+        return CursorSlice.of(posts, post -> new Cursor(post.getCreationDate(), post.getPostId()));
     }
 
 
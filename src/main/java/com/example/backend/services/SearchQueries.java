@@ -0,0 +1,41 @@
+package com.example.backend.services;
+
+import org.apache.logging.log4j.util.Strings;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Builds postgres tsquery expressions from what users type into a search box.
+ */
+final class SearchQueries {
+
+    // sortField asking for the best matches first
+    static final String RELEVANCE = "relevance";
+
+    private static final Pattern TERM_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MAX_TERMS = 8;
+
+    private SearchQueries() {
+    }
+
+    /**
+     * matches text containing every word, the last one as a prefix so results show up while the user is
+     * still typing, e.g. "spring boo" becomes "spring & boo:*". Empty when the keyword has no words
+     */
+    static Optional<String> toPrefixQuery(String keyword) {
+        if (Strings.isBlank(keyword)) return Optional.empty();
+        List<String> terms = Arrays.stream(TERM_SEPARATOR.split(keyword.toLowerCase(Locale.ROOT)))
+                .filter(Strings::isNotBlank)
+                .limit(MAX_TERMS)
+                .toList();
+        if (terms.isEmpty()) return Optional.empty();
+        List<String> query = new ArrayList<>(terms);
+        query.set(query.size() - 1, query.get(query.size() - 1) + ":*");
+        return Optional.of(String.join(" & ", query));
+    }
+}
@@ -1,22 +1,32 @@
 package com.example.backend.services;
 
+import com.example.backend.config.JwtDenyList;
 import com.example.backend.config.JwtService;
+import com.example.backend.config.JwtTokenCache;
+import com.example.backend.config.ReadOnlyTransactional;
+import com.example.backend.config.SecondLevelCache;
+import com.example.backend.exceptions.InvalidCursorException;
 import com.example.backend.exceptions.UserException;
 import com.example.backend.exceptions.UserNotFoundException;
 import com.example.backend.models.dtos.*;
-import com.example.backend.models.entities.Comment;
-import com.example.backend.models.entities.Post;
 import com.example.backend.models.entities.User;
 import com.example.backend.models.enums.Role;
+import com.example.backend.models.events.FollowChangedEvent;
 import com.example.backend.repositories.CommentRepository;
 import com.example.backend.repositories.PostRepository;
 import com.example.backend.repositories.UserRepository;
+import com.example.backend.storage.PictureStorage;
+import com.example.backend.storage.StoredPicture;
 import jakarta.transaction.Transactional;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.logging.log4j.util.Strings;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -28,21 +38,41 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class UserService implements UserDetailsService {
 
+    private static final int MAX_SUGGESTIONS = 20;
+    private static final int MAX_BATCH_FOLLOW = 500;
+    private static final int MAX_RECOMMENDATIONS = 20;
+
     private final UserRepository userRepository;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
     private final PasswordEncoder passwordEncoder;
     private final PostRepository postRepository;
     private final CommentRepository commentRepository;
+    private final JwtTokenCache tokenCache;
+    private final JwtDenyList denyList;
+    private final PictureStorage pictureStorage;
+    private final UsernameIndex usernameIndex;
+    private final CascadeDeleter cascadeDeleter;
+    private final FollowerGraph followerGraph;
+    private final SecondLevelCache secondLevelCache;
+    private final FollowerIntersections followerIntersections;
+    private final FollowRecommendations followRecommendations;
+    private final ApplicationEventPublisher eventPublisher;
 
 
     public AuthenticationResponse loginUser(@NotNull AuthenticationRequest request) {
@@ -85,12 +115,13 @@ public class UserService implements UserDetailsService {
                             .username(userRequest.getUsername().toLowerCase().trim())
                             .password(encodedPassword)
                             .role(Role.USER)
-                            .profilePicture(null)
+                            .profilePictureKey(null)
                             .enabled(true)
                             .locked(false)
                             .followers(Collections.emptySet())
                             .following(Collections.emptySet()).build();
                     User user = userRepository.save(newUser);
+                    usernameIndex.putAfterCommit(user.getId(), user.getUsername());
                     log.info("createUser/ user {} created successfully", userRequest.getEmail());
 
                     var jwtToken = jwtService.generateToken(user);
@@ -109,9 +140,12 @@ public class UserService implements UserDetailsService {
     public User updateUser(long userId, UpdateUserRequest userRequest) {
         log.info("updateUser/userRequest = {}", userRequest);
         User user = findUserById(userId);
+        tokenCache.invalidateUser(user.getEmail());
+        denyList.revoke(userId);
         //todo: ideally email should be verified before updating but...
         user.setEmail(userRequest.getEmail());
         user.setUsername(userRequest.getUsername());
+        usernameIndex.putAfterCommit(userId, userRequest.getUsername());
         return userRepository.save(user);
     }
 
@@ -120,77 +154,135 @@ public class UserService implements UserDetailsService {
         return findUserById(userId);
     }
 
+    /**
+     * loads the users in one query, failing if any of them does not exist
+     */
+    public Map<Long, User> getUsers(Collection<Long> userIds) {
+        log.info("getUsers/userIds = {}", userIds.size());
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        List<Long> missing = userIds.stream().filter(userId -> !users.containsKey(userId)).distinct().toList();
+        if (!missing.isEmpty()) throw new UserNotFoundException(String.format("users with ids %s not found", missing));
+        return users;
+    }
+
     @Transactional
     public void deleteUser(long userId) {
         log.info("deleteUser/userId = {}", userId);
         User user = findUserById(userId);
+        long rows = cascadeDeleter.deleteUser(userId);
+        log.info("deleteUser/rows = {}", rows);
+        afterUserDeleted(user);
+    }
 
-        // Remove the user from posts
-        List<Post> userPosts = postRepository.findAllByUser(user);
-        for (Post post : userPosts) {
-            post.setUser(null);
-            postRepository.save(post);
-        }
+    /**
+     * locks the account right away and deletes it in chunks in the background, for accounts too large for a
+     * single transaction
+     */
+    @Transactional
+    public DeletionJob deleteUserAsync(long userId) {
+        log.info("deleteUserAsync/userId = {}", userId);
+        User user = findUserById(userId);
+        user.setLocked(true);
+        userRepository.save(user);
+        tokenCache.invalidateUser(user.getEmail());
+        denyList.revoke(userId);
+        return cascadeDeleter.submitUserDeletion(userId, () -> afterUserDeleted(user));
+    }
 
-        // Remove the user from comments
-        List<Comment> userComments = commentRepository.findAllByUser(user);
-        for (Comment comment : userComments) {
-            comment.setUser(null);
-            commentRepository.save(comment);
-        }
+    private void afterUserDeleted(User user) {
+        tokenCache.invalidateUser(user.getEmail());
+        denyList.revoke(user.getId());
+        usernameIndex.removeAfterCommit(user.getId());
+        followerGraph.removeUserAfterCommit(user.getId());
+        if (user.getProfilePictureKey() != null) pictureStorage.delete(user.getProfilePictureKey());
+    }
 
-        // Delete the user
-        userRepository.delete(user);
+    @Transactional
+    public void lockUser(long userId, boolean locked) {
+        log.info("lockUser/userId = {}", userId);
+        log.info("lockUser/locked = {}", locked);
+        User user = findUserById(userId);
+        user.setLocked(locked);
+        userRepository.save(user);
+        tokenCache.invalidateUser(user.getEmail());
+        if (locked) denyList.revoke(userId);
     }
 
+    /**
+     * one statement that records the follow and updates both users' counts. Following again is a no-op, and a
+     * missing user is reported by the foreign keys instead of being looked up first
+     */
     @Transactional
     public void followUser(long userId, long followerId) {
         log.info("followUser/userId={}", userId);
         log.info("followUser/followerId={}", followerId);
 
-        boolean userExists = existsById(userId);
-
         if (userId == followerId) throw new UserException("user can not follow himself");
-        if (userExists) {
-            boolean followerExists = existsById(followerId);
-            if (followerExists) {
-                //update user's followers
-                userRepository.insertUserFollower(userId, followerId);
-            } else {
-                throw new UserNotFoundException(String.format("follower with Id: %s does not Exist", userId));
-            }
-        } else {
-            throw new UserNotFoundException(String.format("user with Id: %s does not Exist", userId));
+        long followed;
+        try {
+            followed = userRepository.insertUserFollower(userId, followerId);
+        } catch (DataIntegrityViolationException e) {
+            throw new UserNotFoundException(String.format("user with Id: %s or follower with Id: %s does not Exist", userId, followerId));
+        }
+        if (followed > 0) {
+            followerGraph.followAfterCommit(userId, followerId);
+            secondLevelCache.evictFollowsAfterCommit(List.of(userId, followerId));
+            eventPublisher.publishEvent(new FollowChangedEvent(userId, followerId, true));
         }
+    }
 
+    /**
+     * follows all the given users in one statement, for onboarding. Ids that do not exist and users already
+     * followed are skipped
+     * @return the ids of the users newly followed
+     */
+    @Transactional
+    public List<Long> followUsers(long followerId, List<Long> userIds) {
+        log.info("followUsers/followerId = {}", followerId);
+        log.info("followUsers/size = {}", userIds.size());
+        if (userIds.isEmpty() || userIds.size() > MAX_BATCH_FOLLOW) {
+            throw new UserException(String.format("can follow between 1 and %d users at a time", MAX_BATCH_FOLLOW));
+        }
+        // List.of and friends throw on contains(null)
+        if (userIds.stream().anyMatch(Objects::isNull)) throw new UserException("user id can not be null");
+        List<Long> followed;
+        try {
+            followed = userRepository.insertUserFollowers(followerId, userIds);
+        } catch (DataIntegrityViolationException e) {
+            throw new UserNotFoundException(String.format("follower with Id: %s does not Exist", followerId));
+        }
+        if (!followed.isEmpty()) {
+            followed.forEach(userId -> {
+                followerGraph.followAfterCommit(userId, followerId);
+                eventPublisher.publishEvent(new FollowChangedEvent(userId, followerId, true));
+            });
+            List<Long> changed = new ArrayList<>(followed);
+            changed.add(followerId);
+            secondLevelCache.evictFollowsAfterCommit(changed);
+        }
+        return followed;
     }
 
+    /**
+     * one statement that removes the follow and updates both users' counts, a no-op when not following
+     */
     @Transactional
     public void unFollowUser(long userId, long followerId) {
 
         log.info("unFollowUser/userId={}", userId);
         log.info("unFollowUser/followerId={}", followerId);
-        boolean userExists = existsById(userId);
 
         if (userId == followerId) throw new UserException("user can not follow himself");
-        if (userExists) {
-
-            boolean followerExists = existsById(followerId);
-            if (followerExists) {
-
-                //update user's followers
-                userRepository.deleteByUserIdAndFollowerId(userId, followerId);
-            } else {
-                throw new UserNotFoundException(String.format("follower with Id: %s does not Exist", userId));
-            }
-        } else {
-            throw new UserNotFoundException(String.format("user with Id: %s does not Exist", userId));
+        if (userRepository.deleteByUserIdAndFollowerId(userId, followerId) > 0) {
+            followerGraph.unfollowAfterCommit(userId, followerId);
+            secondLevelCache.evictFollowsAfterCommit(List.of(userId, followerId));
+            eventPublisher.publishEvent(new FollowChangedEvent(userId, followerId, false));
         }
-
-        //update userToBeFollowed
     }
 
 
+    @ReadOnlyTransactional
     public Set<Followers> getUserFollowers(long userId) {
         boolean userExists = existsById(userId);
         if (userExists) {
@@ -200,6 +292,7 @@ public class UserService implements UserDetailsService {
         }
     }
 
+    @ReadOnlyTransactional
     public Set<Followers> getUserFollowing(long userId) {
         boolean userExists = existsById(userId);
         if (userExists) {
@@ -209,13 +302,107 @@ public class UserService implements UserDetailsService {
         }
     }
 
+    /**
+     * followers in id order, served from {@link FollowerGraph} without touching the database.
+     * Pass nextCursor back as cursor until hasNext is false.
+     */
+    public CursorSlice<UserSummary> scrollFollowers(long userId, String cursor, int pageSize) {
+        log.info("scrollFollowers/userId = {}", userId);
+        log.info("scrollFollowers/cursor = {}", cursor);
+        requireUser(userId);
+        return toSummaries(followerGraph.followers(userId, decodeIdCursor(cursor), pageSize + 1), pageSize);
+    }
+
+    public CursorSlice<UserSummary> scrollFollowing(long userId, String cursor, int pageSize) {
+        log.info("scrollFollowing/userId = {}", userId);
+        log.info("scrollFollowing/cursor = {}", cursor);
+        requireUser(userId);
+        return toSummaries(followerGraph.following(userId, decodeIdCursor(cursor), pageSize + 1), pageSize);
+    }
+
+    public FollowCounts getFollowCounts(long userId) {
+        log.info("getFollowCounts/userId = {}", userId);
+        requireUser(userId);
+        return new FollowCounts(followerGraph.countFollowers(userId), followerGraph.countFollowing(userId));
+    }
+
+    public boolean isFollowing(long followerId, long userId) {
+        log.info("isFollowing/followerId = {}", followerId);
+        log.info("isFollowing/userId = {}", userId);
+        requireUser(followerId);
+        requireUser(userId);
+        return followerGraph.follows(followerId, userId);
+    }
+
+    /**
+     * the people the viewer follows who also follow userId: how many, and the first sampleSize of them
+     */
+    public KnownFollowers getKnownFollowers(long userId, long viewerId, int sampleSize) {
+        log.info("getKnownFollowers/userId = {}", userId);
+        log.info("getKnownFollowers/viewerId = {}", viewerId);
+        requireUser(userId);
+        requireUser(viewerId);
+        FollowerIntersections.Known known = followerIntersections.knownFollowers(viewerId, userId);
+        int size = Math.max(0, Math.min(sampleSize, known.sample().length));
+        List<UserSummary> sample = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) sample.add(toSummary(known.sample()[i]));
+        return new KnownFollowers(known.count(), sample);
+    }
+
+    /**
+     * people who follow the user and are followed back, in id order
+     */
+    public CursorSlice<UserSummary> scrollMutuals(long userId, String cursor, int pageSize) {
+        log.info("scrollMutuals/userId = {}", userId);
+        log.info("scrollMutuals/cursor = {}", cursor);
+        requireUser(userId);
+        return toSummaries(followerIntersections.mutuals(userId, decodeIdCursor(cursor), pageSize + 1), pageSize);
+    }
+
+    /**
+     * precomputed "who to follow" suggestions, best first. Empty until the user's first computation, and accounts
+     * followed since then are left out
+     */
+    public List<FollowRecommendation> getRecommendations(long userId, int limit) {
+        log.info("getRecommendations/userId = {}", userId);
+        requireUser(userId);
+        FollowRecommendations.Ranked ranked = followRecommendations.get(userId);
+        if (ranked == null) return List.of();
+        int max = Math.max(1, Math.min(limit, MAX_RECOMMENDATIONS));
+        List<FollowRecommendation> recommendations = new ArrayList<>(max);
+        for (int i = 0; i < ranked.ids().length && recommendations.size() < max; i++) {
+            long candidate = ranked.ids()[i];
+            if (followerGraph.follows(userId, candidate)) continue;
+            String username = usernameIndex.findUsername(candidate).orElse(null);
+            recommendations.add(new FollowRecommendation(candidate, username, ranked.scores()[i]));
+        }
+        return recommendations;
+    }
+
     public User uploadProfilePicture(long userId, MultipartFile profilePicture) throws IOException {
+        log.info("uploadProfilePicture/userId = {}", userId);
+        log.info("uploadProfilePicture/size = {}", profilePicture.getSize());
+        if (profilePicture.isEmpty() || !PictureStorage.SUPPORTED_CONTENT_TYPES.contains(profilePicture.getContentType())) {
+            throw new UserException(String.format("unsupported profile picture type: %s", profilePicture.getContentType()));
+        }
         User userProfile = getUser(userId);
-        userProfile.setProfilePicture(profilePicture.getBytes());
-        return userRepository.save(userProfile);
+        String previousKey = userProfile.getProfilePictureKey();
+        userProfile.setProfilePictureKey(pictureStorage.store(String.valueOf(userId), profilePicture));
+        User user = userRepository.save(userProfile);
+        if (previousKey != null) pictureStorage.delete(previousKey);
+        return user;
+    }
+
+    public StoredPicture getProfilePicture(long userId) throws IOException {
+        log.info("getProfilePicture/userId = {}", userId);
+        String key = userRepository.findProfilePictureKeyById(userId)
+                .orElseThrow(() -> new UserNotFoundException(String.format("user with id %s has no profile picture", userId)));
+        return pictureStorage.find(key)
+                .orElseThrow(() -> new UserNotFoundException(String.format("user with id %s has no profile picture", userId)));
     }
 
 
+    @ReadOnlyTransactional
     public Page<User> getAllUsers(int page, int pageSize, String sortField, Sort.Direction sortDirection) {
         log.info("getAllUsers/page = {}", page);
         log.info("getAllUsers/pageSize = {}", pageSize);
@@ -225,6 +412,25 @@ public class UserService implements UserDetailsService {
         return userRepository.findAll(PageRequest.of(page, pageSize, sort));
     }
 
+    /**
+     * keyset alternative to {@link #getAllUsers}, newest first and without a count query
+     */
+    @ReadOnlyTransactional
+    public CursorSlice<User> scrollUsers(String cursor, int pageSize) {
+        log.info("scrollUsers/cursor = {}", cursor);
+        log.info("scrollUsers/pageSize = {}", pageSize);
+        Cursor position = Cursor.decode(cursor);
+        Slice<User> users = userRepository.findUsersBefore(position.getCreationDate(), position.getId(), PageRequest.of(0, pageSize));
+        return CursorSlice.of(users, user -> new Cursor(user.getCreationDate(), user.getId()));
+    }
+
+    public List<UsernameSuggestion> suggestUsernames(String prefix, int limit) {
+        log.info("suggestUsernames/prefix = {}", prefix);
+        if (Strings.isBlank(prefix)) throw new UserException("provide the start of a username");
+        return usernameIndex.search(prefix.trim(), Math.max(1, Math.min(limit, MAX_SUGGESTIONS)));
+    }
+
+    @ReadOnlyTransactional
     public Page<User> searchUsers(String keyword, int page, int pageSize, String sortField, Sort.Direction sortDirection) {
         log.info("searchUsers/keyword = {}", keyword);
         log.info("searchUsers/page = {}", page);
@@ -240,7 +446,7 @@ public class UserService implements UserDetailsService {
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
 
         log.info("loadByUsername/email:{}", email);
-        return userRepository.findByEmail(email).orElseThrow(() -> {
+        return userRepository.findByEmailNaturalId(email).orElseThrow(() -> {
             log.error(String.format("no user with email: %s found", email));
             return new UserException(String.format("no user with email: %s found", email));
         });
@@ -252,7 +458,37 @@ public class UserService implements UserDetailsService {
     }
 
     private User findUserByEmail(String email) {
-        return userRepository.findByEmail(email).orElseThrow(() -> new UserNotFoundException(String.format("user with email %s not found", email)));
+        return userRepository.findByEmailNaturalId(email).orElseThrow(() -> new UserNotFoundException(String.format("user with email %s not found", email)));
+    }
+
+    // the index only knows the users this instance has loaded or seen registered, a miss is checked against the table
+    private void requireUser(long userId) {
+        if (usernameIndex.findUsername(userId).isEmpty() && !userRepository.existsById(userId)) {
+            throw new UserNotFoundException(String.format("user with id %s not found", userId));
+        }
+    }
+
+    // ids holds up to pageSize + 1 entries, the extra one only tells whether there is a next page
+    private CursorSlice<UserSummary> toSummaries(long[] ids, int pageSize) {
+        int size = Math.min(ids.length, Math.max(pageSize, 0));
+        List<UserSummary> content = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) content.add(toSummary(ids[i]));
+        boolean hasNext = ids.length > size;
+        String nextCursor = hasNext && size > 0 ? String.valueOf(ids[size - 1]) : null;
+        return new CursorSlice<>(content, hasNext, nextCursor);
+    }
+
+    private UserSummary toSummary(long userId) {
+        return new UserSummary(userId, usernameIndex.findUsername(userId).orElse(null));
+    }
+
+    private static long decodeIdCursor(String cursor) {
+        if (Strings.isBlank(cursor)) return -1;
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException("invalid cursor");
+        }
     }
 
     private boolean existsById(long userId) {
@@ -0,0 +1,92 @@
+package com.example.backend.services;
+
+import com.example.backend.models.dtos.UsernameSuggestion;
+import com.example.backend.repositories.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory sorted index of usernames for typeahead. A prefix lookup is a range scan of a skip list,
+ * so the first few characters typed are answered without touching the database.
+ * Loaded at startup and kept current by {@link UserService} after each committed change.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UsernameIndex {
+
+    // "lowercase username \0 id" keeps case-insensitive duplicates apart and sorts them together
+    private static final char SEPARATOR = '\0';
+
+    private final UserRepository userRepository;
+    private final ConcurrentSkipListMap<String, UsernameSuggestion> byName = new ConcurrentSkipListMap<>();
+    private final Map<Long, String> keysById = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        userRepository.findAllUsernames().forEach(user -> put(user.getId(), user.getUsername()));
+        log.info("load/usernames = {}", byName.size());
+    }
+
+    public List<UsernameSuggestion> search(String prefix, int limit) {
+        String from = prefix.toLowerCase(Locale.ROOT);
+        ConcurrentNavigableMap<String, UsernameSuggestion> matches = byName.subMap(from, true, from + Character.MAX_VALUE, false);
+        return matches.values().stream().limit(limit).toList();
+    }
+
+    public Optional<String> findUsername(long userId) {
+        String key = keysById.get(userId);
+        UsernameSuggestion user = key == null ? null : byName.get(key);
+        return Optional.ofNullable(user).map(UsernameSuggestion::getUsername);
+    }
+
+    /**
+     * adds or renames the user once the current transaction commits
+     */
+    public void putAfterCommit(long userId, String username) {
+        afterCommit(() -> put(userId, username));
+    }
+
+    public void removeAfterCommit(long userId) {
+        afterCommit(() -> remove(userId));
+    }
+
+    synchronized void put(long userId, String username) {
+        remove(userId);
+        if (username == null) return;
+        String key = username.toLowerCase(Locale.ROOT) + SEPARATOR + userId;
+        byName.put(key, new UsernameSuggestion(userId, username));
+        keysById.put(userId, key);
+    }
+
+    synchronized void remove(long userId) {
+        String key = keysById.remove(userId);
+        if (key != null) byName.remove(key);
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.backend.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Local-filesystem picture store. Pictures live at {@code <root>/<owner>/<uuid>.<ext>}; uploads are handed
+ * over with {@link MultipartFile#transferTo(java.io.File)} (a rename when the multipart temp dir is on the same
+ * filesystem) and served with {@link FileChannel#transferTo(long, long, WritableByteChannel)}.
+ */
+@Slf4j
+@Component
+public class LocalPictureStorage implements PictureStorage {
+
+    private static final Pattern KEY_PATTERN = Pattern.compile("\\d+/[0-9a-f\\-]{36}\\.(png|jpg|gif|webp)");
+    private static final Pattern OWNER_PATTERN = Pattern.compile("\\d+");
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "image/png", "png",
+            "image/jpeg", "jpg",
+            "image/gif", "gif",
+            "image/webp", "webp"
+    );
+
+    private final Path root;
+
+    public LocalPictureStorage(@Value("${backend.storage.pictures.root}") String root) throws IOException {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        Files.createDirectories(this.root);
+        log.info("LocalPictureStorage/root={}", this.root);
+    }
+
+    @Override
+    public String store(String owner, MultipartFile picture) throws IOException {
+        String extension = EXTENSIONS.get(picture.getContentType());
+        if (extension == null || !OWNER_PATTERN.matcher(owner).matches()) {
+            throw new IllegalArgumentException(String.format("can not store picture of type %s", picture.getContentType()));
+        }
+        String key = owner + "/" + UUID.randomUUID() + "." + extension;
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        Path incoming = target.resolveSibling(target.getFileName() + ".part");
+        try {
+            picture.transferTo(incoming.toFile());
+            Files.move(incoming, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(incoming);
+            throw e;
+        }
+        log.info("store/key={}", key);
+        return key;
+    }
+
+    @Override
+    public Optional<StoredPicture> find(String key) throws IOException {
+        Path path = resolve(key);
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        String extension = key.substring(key.lastIndexOf('.') + 1);
+        MediaType contentType = EXTENSIONS.entrySet().stream()
+                .filter(entry -> entry.getValue().equals(extension))
+                .map(entry -> MediaType.parseMediaType(entry.getKey()))
+                .findFirst()
+                .orElse(MediaType.APPLICATION_OCTET_STREAM);
+        return Optional.of(new StoredPicture(key, attributes.size(), contentType, attributes.lastModifiedTime().toInstant()));
+    }
+
+    @Override
+    public void transferTo(String key, long position, long count, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ)) {
+            long offset = position;
+            long remaining = count;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(offset, remaining, target);
+                if (transferred <= 0) break;
+                offset += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        try {
+            Files.deleteIfExists(resolve(key));
+        } catch (IOException e) {
+            log.warn("delete/could not delete picture {}", key, e);
+        }
+    }
+
+    private Path resolve(String key) {
+        if (key == null || !KEY_PATTERN.matcher(key).matches()) {
+            throw new IllegalArgumentException("invalid picture key");
+        }
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root)) {
+            throw new IllegalArgumentException("invalid picture key");
+        }
+        return path;
+    }
+}
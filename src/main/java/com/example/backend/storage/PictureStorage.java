@@ -0,0 +1,30 @@
+package com.example.backend.storage;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Blob store for profile pictures. Entities only keep the key returned by {@link #store(String, MultipartFile)}.
+ */
+public interface PictureStorage {
+
+    Set<String> SUPPORTED_CONTENT_TYPES = Set.of("image/png", "image/jpeg", "image/gif", "image/webp");
+
+    /**
+     * streams the upload into the store under a new, never reused key and returns that key
+     */
+    String store(String owner, MultipartFile picture) throws IOException;
+
+    Optional<StoredPicture> find(String key) throws IOException;
+
+    /**
+     * copies {@code count} bytes starting at {@code position} of the picture to the target channel
+     */
+    void transferTo(String key, long position, long count, WritableByteChannel target) throws IOException;
+
+    void delete(String key);
+}
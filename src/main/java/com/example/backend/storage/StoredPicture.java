@@ -0,0 +1,23 @@
+package com.example.backend.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.http.MediaType;
+
+import java.time.Instant;
+
+@Getter
+@AllArgsConstructor
+public class StoredPicture {
+    private final String key;
+    private final long size;
+    private final MediaType contentType;
+    private final Instant lastModified;
+
+    /**
+     * keys are never reused for different content, so the key itself is a strong validator
+     */
+    public String getETag() {
+        return "\"" + key.replace('/', '-') + "\"";
+    }
+}
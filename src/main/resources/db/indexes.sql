@@ -0,0 +1,63 @@
+-- Indexes JPA can not describe. Runs on every startup after Hibernate has updated the schema,
+-- so every statement must be idempotent.
+
+-- post search: a stored tsvector postgres keeps in step with content on every insert and update,
+-- so ranking never re-parses the text
+ALTER TABLE posts ADD COLUMN IF NOT EXISTS content_tsv tsvector
+    GENERATED ALWAYS AS (to_tsvector('english', coalesce(content, ''))) STORED;
+CREATE INDEX IF NOT EXISTS idx_posts_content_tsv ON posts USING GIN (content_tsv);
+
+-- comment search scoped to one post: btree_gin lets post_id and the tsvector share one GIN index
+CREATE EXTENSION IF NOT EXISTS btree_gin;
+ALTER TABLE comments ADD COLUMN IF NOT EXISTS content_tsv tsvector
+    GENERATED ALWAYS AS (to_tsvector('english', coalesce(content, ''))) STORED;
+CREATE INDEX IF NOT EXISTS idx_comments_post_content_tsv ON comments USING GIN (post_id, content_tsv);
+
+-- notification inbox: unread first, newest first, answered from the index alone
+CREATE INDEX IF NOT EXISTS idx_notifications_inbox
+    ON notifications (user_id, is_read, created_at DESC, id DESC)
+    INCLUDE (notification_type, post_id, sender_id, aggregate_count);
+
+-- a follow is recorded once, follows use ON CONFLICT DO NOTHING against this index. Duplicates from before it
+-- existed are removed first, the check on pg_indexes makes that a no-op once the index is there
+DELETE FROM user_followers a USING user_followers b
+WHERE a.ctid > b.ctid AND a.user_id = b.user_id AND a.follower_id = b.follower_id
+  AND NOT EXISTS (SELECT 1 FROM pg_indexes WHERE indexname = 'uq_user_followers_user_follower');
+CREATE UNIQUE INDEX IF NOT EXISTS uq_user_followers_user_follower ON user_followers (user_id, follower_id);
+
+-- users.followers_count and following_count are kept in step by the follow statements (UserRepository) and
+-- CascadeDeleter. Counted once here for follows made before the columns existed
+UPDATE users u
+SET followers_count = (SELECT COUNT(*) FROM user_followers f WHERE f.user_id = u.id),
+    following_count = (SELECT COUNT(*) FROM user_followers f WHERE f.follower_id = u.id)
+WHERE EXISTS (SELECT 1 FROM user_followers)
+  AND NOT EXISTS (SELECT 1 FROM users c WHERE c.followers_count > 0 OR c.following_count > 0);
+
+-- posts.comments_count and last_comment_at are kept in step by the comment statements (CommentRepository) and
+-- repaired by CommentCountReconciler. Counted once here for comments made before the columns existed
+UPDATE posts p
+SET comments_count = c.n, last_comment_at = c.last
+FROM (SELECT post_id, COUNT(*) AS n, MAX(creation_date) AS last FROM comments GROUP BY post_id) c
+WHERE p.id = c.post_id
+  AND NOT EXISTS (SELECT 1 FROM posts x WHERE x.comments_count > 0);
+
+-- ids come from sequences (SequenceId). Tables created while ids were identity (or serial) columns lose that
+-- default once, so no insert can take an id outside the sequence, and the sequence is moved past the ids it did
+-- not hand out, never back. Later startups only read the catalog: the ALTERs take an ACCESS EXCLUSIVE lock, and
+-- the advisory lock keeps instances starting together from migrating the same table twice.
+DO '
+DECLARE
+    t text;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext(''indexes.sql sequence ids''));
+    FOREACH t IN ARRAY ARRAY[''users'', ''posts'', ''comments'', ''notifications''] LOOP
+        IF EXISTS (SELECT 1 FROM information_schema.columns
+                   WHERE table_schema = current_schema() AND table_name = t AND column_name = ''id''
+                     AND (is_identity = ''YES'' OR column_default IS NOT NULL)) THEN
+            EXECUTE format(''ALTER TABLE %I ALTER COLUMN id DROP IDENTITY IF EXISTS, ALTER COLUMN id DROP DEFAULT'', t);
+            EXECUTE format(''SELECT setval(%1$L, GREATEST(COALESCE(MAX(r.id), 0) + 1, COALESCE(s.last_value + s.increment_by, 1)), false) ''
+                           ''FROM %2$I r, pg_sequences s WHERE s.schemaname = current_schema() AND s.sequencename = %1$L ''
+                           ''GROUP BY s.last_value, s.increment_by'', t || ''_seq'', t);
+        END IF;
+    END LOOP;
+END';
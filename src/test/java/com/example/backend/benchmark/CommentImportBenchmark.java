@@ -0,0 +1,140 @@
+package com.example.backend.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Rows/second for inserting 100k comments in one transaction, replaying the statements hibernate sends:
+ * <ul>
+ *     <li>{@code identity}: one {@code INSERT ... RETURNING id} round trip per row, what an IDENTITY id forces</li>
+ *     <li>{@code sequence}: ids reserved 50 at a time with the pooled-lo scheme of
+ *     {@link com.example.backend.config.PooledSequenceGenerator} and inserts sent in JDBC batches of 50</li>
+ *     <li>{@code sequence-rewrite}: the same with pgjdbc's {@code reWriteBatchedInserts}, as configured in application.yml</li>
+ * </ul>
+ * Needs a postgres to talk to; it uses its own table and leaves the application tables alone.
+ * <p>
+ * run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.backend.benchmark.CommentImportBenchmark
+ * -Dbenchmark.db.url=jdbc:postgresql://localhost:5432/backend -Dbenchmark.db.username=postgres -Dbenchmark.db.password=root
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class CommentImportBenchmark {
+
+    private static final int COMMENTS = 100_000;
+    private static final int ALLOCATION_SIZE = 50;
+    private static final int BATCH_SIZE = 50;
+
+    @Param({"identity", "sequence", "sequence-rewrite"})
+    public String strategy;
+
+    private Connection connection;
+    private PreparedStatement nextBlock;
+
+    @Setup
+    public void setUp() throws SQLException {
+        String url = System.getProperty("benchmark.db.url", "jdbc:postgresql://localhost:5432/backend");
+        if (strategy.equals("sequence-rewrite")) {
+            url += (url.contains("?") ? "&" : "?") + "reWriteBatchedInserts=true";
+        }
+        connection = DriverManager.getConnection(url,
+                System.getProperty("benchmark.db.username", "postgres"),
+                System.getProperty("benchmark.db.password", "root"));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS import_benchmark_comments (" +
+                    "id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, content varchar(255), " +
+                    "creation_date timestamp, user_id bigint, post_id bigint)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_import_benchmark_comments_post " +
+                    "ON import_benchmark_comments (post_id, creation_date, id)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_import_benchmark_comments_user ON import_benchmark_comments (user_id)");
+            statement.execute("CREATE SEQUENCE IF NOT EXISTS import_benchmark_comments_seq " +
+                    "START WITH 1000000000 INCREMENT BY " + ALLOCATION_SIZE);
+        }
+        nextBlock = connection.prepareStatement("SELECT nextval('import_benchmark_comments_seq')");
+        connection.setAutoCommit(false);
+    }
+
+    @Setup(Level.Invocation)
+    public void truncate() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE import_benchmark_comments");
+        }
+        connection.commit();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COMMENTS)
+    public void insertComments() throws SQLException {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        if (strategy.equals("identity")) {
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO import_benchmark_comments " +
+                    "(content, creation_date, user_id, post_id) VALUES (?, ?, ?, ?) RETURNING id")) {
+                for (int i = 0; i < COMMENTS; i++) {
+                    bind(insert, 0, i, now);
+                    try (ResultSet id = insert.executeQuery()) {
+                        id.next();
+                    }
+                }
+            }
+        } else {
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO import_benchmark_comments " +
+                    "(id, content, creation_date, user_id, post_id) VALUES (?, ?, ?, ?, ?)")) {
+                long next = 0;
+                long blockEnd = 0;
+                for (int i = 0; i < COMMENTS; i++) {
+                    if (next == blockEnd) {
+                        next = nextId();
+                        blockEnd = next + ALLOCATION_SIZE;
+                    }
+                    insert.setLong(1, next++);
+                    bind(insert, 1, i, now);
+                    insert.addBatch();
+                    if ((i + 1) % BATCH_SIZE == 0) insert.executeBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+        connection.commit();
+    }
+
+    private long nextId() throws SQLException {
+        try (ResultSet value = nextBlock.executeQuery()) {
+            value.next();
+            return value.getLong(1);
+        }
+    }
+
+    private static void bind(PreparedStatement insert, int offset, int i, Timestamp now) throws SQLException {
+        insert.setString(offset + 1, "imported comment number " + i);
+        insert.setTimestamp(offset + 2, now);
+        insert.setLong(offset + 3, i % 1_000);
+        insert.setLong(offset + 4, i % 10_000);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        // the forked benchmark JVM does not inherit system properties
+        String[] connectionProperties = Stream.of("benchmark.db.url", "benchmark.db.username", "benchmark.db.password")
+                .filter(property -> System.getProperty(property) != null)
+                .map(property -> "-D" + property + "=" + System.getProperty(property))
+                .toArray(String[]::new);
+        new Runner(new OptionsBuilder()
+                .include(CommentImportBenchmark.class.getSimpleName())
+                .jvmArgsAppend(connectionProperties)
+                .build()).run();
+    }
+}
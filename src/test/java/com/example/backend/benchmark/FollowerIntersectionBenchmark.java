@@ -0,0 +1,117 @@
+package com.example.backend.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Microseconds to intersect a 1M member follower set with a second set of {@code otherSize} members, the way
+ * followers-you-know and mutual follows are computed: boxed {@code HashSet.retainAll} over the smaller set,
+ * a merge of sorted {@code long[]} (binary search from the smaller side when the sizes are far apart), and the
+ * roaring bitmaps {@link com.example.backend.services.FollowerGraph} keeps. Ids are drawn from the first 20M
+ * user ids, so the sets are as sparse as follower lists on a large instance.
+ * <p>
+ * run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.backend.benchmark.FollowerIntersectionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class FollowerIntersectionBenchmark {
+
+    private static final int FOLLOWERS = 1_000_000;
+    private static final long ID_RANGE = 20_000_000;
+
+    @Param({"1000", "100000", "1000000"})
+    private int otherSize;
+
+    private Set<Long> followersSet;
+    private Set<Long> otherSet;
+    private long[] followersArray;
+    private long[] otherArray;
+    private Roaring64NavigableMap followersBitmap;
+    private Roaring64NavigableMap otherBitmap;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        followersArray = randomIds(random, FOLLOWERS);
+        otherArray = randomIds(random, otherSize);
+        followersSet = toSet(followersArray);
+        otherSet = toSet(otherArray);
+        followersBitmap = toBitmap(followersArray);
+        otherBitmap = toBitmap(otherArray);
+    }
+
+    @Benchmark
+    public int hashSet() {
+        Set<Long> smaller = followersSet.size() <= otherSet.size() ? followersSet : otherSet;
+        Set<Long> larger = smaller == followersSet ? otherSet : followersSet;
+        Set<Long> result = new HashSet<>(smaller);
+        result.retainAll(larger);
+        return result.size();
+    }
+
+    @Benchmark
+    public int sortedArray() {
+        long[] smaller = followersArray.length <= otherArray.length ? followersArray : otherArray;
+        long[] larger = smaller == followersArray ? otherArray : followersArray;
+        int count = 0;
+        if ((long) smaller.length * 32 < larger.length) {
+            for (long id : smaller) if (Arrays.binarySearch(larger, id) >= 0) count++;
+            return count;
+        }
+        for (int i = 0, j = 0; i < smaller.length && j < larger.length; ) {
+            if (smaller[i] < larger[j]) i++;
+            else if (smaller[i] > larger[j]) j++;
+            else {
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public long roaring() {
+        Roaring64NavigableMap smaller = followersBitmap.getLongCardinality() <= otherBitmap.getLongCardinality() ? followersBitmap : otherBitmap;
+        Roaring64NavigableMap result = new Roaring64NavigableMap(false, false);
+        result.or(smaller);
+        result.and(smaller == followersBitmap ? otherBitmap : followersBitmap);
+        return result.getLongCardinality();
+    }
+
+    private static long[] randomIds(SplittableRandom random, int size) {
+        return random.longs(1, ID_RANGE).distinct().limit(size).sorted().toArray();
+    }
+
+    private static Set<Long> toSet(long[] ids) {
+        Set<Long> set = new HashSet<>(ids.length * 2);
+        for (long id : ids) set.add(id);
+        return set;
+    }
+
+    private static Roaring64NavigableMap toBitmap(long[] ids) {
+        Roaring64NavigableMap bitmap = new Roaring64NavigableMap(false, false);
+        for (long id : ids) bitmap.addLong(id);
+        bitmap.runOptimize();
+        return bitmap;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FollowerIntersectionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
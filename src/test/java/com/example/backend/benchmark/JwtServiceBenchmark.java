@@ -0,0 +1,104 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.config.JwtService;
+import com.example.backend.models.entities.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokens/second for generating and validating tokens, comparing the previous per-call key decoding and
+ * parser building ("legacy") against {@link JwtService} with its precomputed key and shared parser.
+ * <p>
+ * run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.backend.benchmark.JwtServiceBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET_KEY = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+    private static final long EXPIRATION = 86400000;
+
+    private JwtService jwtService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRET_KEY);
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", EXPIRATION);
+        ReflectionTestUtils.setField(jwtService, "refreshExpiration", EXPIRATION);
+        ReflectionTestUtils.invokeMethod(jwtService, "init");
+
+        user = new User();
+        user.setEmail("bashir.okala@hotmail.com");
+        token = jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateLegacy() {
+        return Jwts
+                .builder()
+                .setClaims(new HashMap<>())
+                .setSubject(user.getUsername())
+                .setIssuedAt(new Date(System.currentTimeMillis()))
+                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION))
+                .signWith(legacySignInKey(), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    @Benchmark
+    public String generatePrecomputed() {
+        return jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean validateLegacy() {
+        // the previous isTokenValid parsed the token once for the subject and once more for the expiry
+        String username = legacyExtractAllClaims(token).getSubject();
+        return username.equals(user.getUsername()) && !legacyExtractAllClaims(token).getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public boolean validatePrecomputed() {
+        return jwtService.isTokenValid(token, user);
+    }
+
+    private Claims legacyExtractAllClaims(String token) {
+        return Jwts
+                .parserBuilder()
+                .setSigningKey(legacySignInKey())
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    private Key legacySignInKey() {
+        byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
+        return Keys.hmacShaKeyFor(keyBytes);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtServiceBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
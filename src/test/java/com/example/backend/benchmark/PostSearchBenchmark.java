@@ -0,0 +1,126 @@
+package com.example.backend.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Searches/second over 1M posts: the previous {@code LOWER(content) LIKE '%kw%'} scan against the
+ * tsvector + GIN search {@link com.example.backend.services.PostService#searchPosts} now runs, unranked and
+ * ranked. Needs a postgres to talk to; it seeds its own table and leaves the application tables alone.
+ * <p>
+ * run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.backend.benchmark.PostSearchBenchmark
+ * -Dbenchmark.db.url=jdbc:postgresql://localhost:5432/backend -Dbenchmark.db.username=postgres -Dbenchmark.db.password=root
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PostSearchBenchmark {
+
+    private static final int POSTS = 1_000_000;
+    private static final String[] WORDS = {
+            "spring", "boot", "java", "postgres", "index", "search", "feed", "like", "comment", "follow",
+            "coffee", "weekend", "travel", "music", "football", "release", "deploy", "bug", "review", "holiday"
+    };
+
+    @Param({"deploy", "postgres index"})
+    public String keyword;
+
+    private Connection connection;
+    private PreparedStatement like;
+    private PreparedStatement fullText;
+    private PreparedStatement fullTextRanked;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("benchmark.db.url", "jdbc:postgresql://localhost:5432/backend"),
+                System.getProperty("benchmark.db.username", "postgres"),
+                System.getProperty("benchmark.db.password", "root"));
+        seed();
+        like = connection.prepareStatement("SELECT id FROM search_benchmark_posts " +
+                "WHERE LOWER(content) LIKE LOWER(CONCAT('%', ?, '%')) ORDER BY creation_date DESC LIMIT 10");
+        fullText = connection.prepareStatement("SELECT id FROM search_benchmark_posts " +
+                "WHERE content_tsv @@ to_tsquery('english', ?) ORDER BY creation_date DESC LIMIT 10");
+        fullTextRanked = connection.prepareStatement("SELECT id FROM search_benchmark_posts " +
+                "WHERE content_tsv @@ to_tsquery('english', ?) " +
+                "ORDER BY ts_rank(content_tsv, to_tsquery('english', ?)) DESC, id DESC LIMIT 10");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public void like(Blackhole blackhole) throws SQLException {
+        like.setString(1, keyword);
+        consume(like, blackhole);
+    }
+
+    @Benchmark
+    public void fullText(Blackhole blackhole) throws SQLException {
+        fullText.setString(1, prefixQuery());
+        consume(fullText, blackhole);
+    }
+
+    @Benchmark
+    public void fullTextRanked(Blackhole blackhole) throws SQLException {
+        fullTextRanked.setString(1, prefixQuery());
+        fullTextRanked.setString(2, prefixQuery());
+        consume(fullTextRanked, blackhole);
+    }
+
+    // same shape as PostService.toPrefixQuery
+    private String prefixQuery() {
+        return String.join(" & ", keyword.split(" ")) + ":*";
+    }
+
+    private static void consume(PreparedStatement statement, Blackhole blackhole) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) blackhole.consume(resultSet.getLong(1));
+        }
+    }
+
+    private void seed() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS search_benchmark_posts (" +
+                    "id bigserial PRIMARY KEY, content varchar(255), creation_date timestamp, " +
+                    "content_tsv tsvector GENERATED ALWAYS AS (to_tsvector('english', coalesce(content, ''))) STORED)");
+            try (ResultSet count = statement.executeQuery("SELECT COUNT(*) FROM search_benchmark_posts")) {
+                count.next();
+                if (count.getLong(1) >= POSTS) return;
+            }
+            statement.execute("TRUNCATE search_benchmark_posts");
+            String words = "ARRAY['" + String.join("','", WORDS) + "']";
+            // the subquery refers to g so postgres draws new words for every row
+            statement.execute("INSERT INTO search_benchmark_posts (content, creation_date) " +
+                    "SELECT (SELECT string_agg((" + words + ")[1 + floor(random() * " + WORDS.length + ")::int], ' ') " +
+                    "FROM generate_series(1, 12) WHERE g > 0), now() - g * interval '1 second' " +
+                    "FROM generate_series(1, " + POSTS + ") g");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_search_benchmark_posts_tsv ON search_benchmark_posts USING GIN (content_tsv)");
+            statement.execute("ANALYZE search_benchmark_posts");
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        // the forked benchmark JVM does not inherit system properties
+        String[] connectionProperties = Stream.of("benchmark.db.url", "benchmark.db.username", "benchmark.db.password")
+                .filter(property -> System.getProperty(property) != null)
+                .map(property -> "-D" + property + "=" + System.getProperty(property))
+                .toArray(String[]::new);
+        new Runner(new OptionsBuilder()
+                .include(PostSearchBenchmark.class.getSimpleName())
+                .jvmArgsAppend(connectionProperties)
+                .build()).run();
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.backend.benchmark;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.Tomcat;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * p99 latency of tomcat on its platform thread pool vs on virtual threads while the database is slow. Not a JMH
+ * benchmark: it starts an embedded tomcat per mode and sends an open-model load, a fixed number of requests per
+ * second whatever the response times, half to {@code /slow}, which holds a pooled connection for
+ * {@code SELECT pg_sleep(latency)} like a blocking JPA call during a postgres latency spike, and half to
+ * {@code /fast}, which needs no database. Latency is measured from the scheduled send time so a stalled server is
+ * not hidden by a stalled client.
+ * <p>
+ * The slow requests arrive faster than the pool can serve them. On platform threads they end up holding every
+ * request thread while they wait for a connection and the fast requests queue behind them; on virtual threads
+ * only the slow requests wait, in the pool, and give up after the connection timeout.
+ * <p>
+ * run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.backend.benchmark.VirtualThreadLoadBenchmark
+ * -Dbenchmark.db.url=jdbc:postgresql://localhost:5432/backend -Dbenchmark.db.username=postgres -Dbenchmark.db.password=root
+ * and optionally -Dbenchmark.load.rate=300 (requests/second) -Dbenchmark.load.duration=30 (seconds)
+ * -Dbenchmark.db.latency=200 (ms) -Dbenchmark.db.pool-size=20 -Dbenchmark.db.connection-timeout=3000 (ms)
+ */
+public class VirtualThreadLoadBenchmark {
+
+    private static final int PLATFORM_THREADS = 200;
+
+    public static void main(String[] args) throws Exception {
+        int rate = Integer.getInteger("benchmark.load.rate", 300);
+        int duration = Integer.getInteger("benchmark.load.duration", 30);
+        int latency = Integer.getInteger("benchmark.db.latency", 200);
+        int poolSize = Integer.getInteger("benchmark.db.pool-size", 20);
+        int connectionTimeout = Integer.getInteger("benchmark.db.connection-timeout", 3000);
+        System.out.printf("%d requests/s for %ds, database latency %dms, pool of %d connections (%d slow requests/s at most)%n",
+                rate, duration, latency, poolSize, poolSize * 1000 / latency);
+        System.out.printf("%-10s %-6s %10s %10s %10s %8s%n", "threads", "path", "requests", "p50 ms", "p99 ms", "errors");
+        for (boolean virtual : new boolean[]{false, true}) {
+            try (HikariDataSource dataSource = dataSource(poolSize, connectionTimeout)) {
+                Tomcat tomcat = start(dataSource, latency, virtual);
+                try {
+                    Result result = load(tomcat.getConnector().getLocalPort(), rate, duration);
+                    result.print(virtual ? "virtual" : "platform");
+                } finally {
+                    tomcat.stop();
+                    tomcat.destroy();
+                }
+            }
+        }
+    }
+
+    private static HikariDataSource dataSource(int poolSize, int connectionTimeout) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(System.getProperty("benchmark.db.url", "jdbc:postgresql://localhost:5432/backend"));
+        config.setUsername(System.getProperty("benchmark.db.username", "postgres"));
+        config.setPassword(System.getProperty("benchmark.db.password", "root"));
+        config.setMaximumPoolSize(poolSize);
+        config.setMinimumIdle(poolSize);
+        config.setConnectionTimeout(connectionTimeout);
+        return new HikariDataSource(config);
+    }
+
+    private static Tomcat start(DataSource dataSource, int latency, boolean virtual) throws LifecycleException, IOException {
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(Files.createTempDirectory("virtual-thread-load").toString());
+        Connector connector = new Connector();
+        connector.setPort(0);
+        if (virtual) {
+            // what spring.threads.virtual.enabled does to the embedded tomcat
+            connector.getProtocolHandler().setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        } else {
+            connector.setProperty("maxThreads", String.valueOf(PLATFORM_THREADS));
+        }
+        tomcat.setConnector(connector);
+        Context context = tomcat.addContext("", null);
+        Tomcat.addServlet(context, "slow", new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                try (Connection connection = dataSource.getConnection();
+                     PreparedStatement sleep = connection.prepareStatement("SELECT pg_sleep(?)")) {
+                    sleep.setDouble(1, latency / 1000.0);
+                    sleep.execute();
+                    response.getWriter().write("slow");
+                } catch (SQLException e) {
+                    response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, e.getMessage());
+                }
+            }
+        });
+        Tomcat.addServlet(context, "fast", new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                response.getWriter().write("fast");
+            }
+        });
+        context.addServletMappingDecoded("/slow", "slow");
+        context.addServletMappingDecoded("/fast", "fast");
+        tomcat.start();
+        return tomcat;
+    }
+
+    private static Result load(int port, int rate, int duration) throws InterruptedException {
+        Result result = new Result();
+        ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor();
+        HttpClient client = HttpClient.newBuilder()
+                .executor(clientThreads)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        URI slow = URI.create("http://localhost:" + port + "/slow");
+        URI fast = URI.create("http://localhost:" + port + "/fast");
+        List<CompletableFuture<?>> requests = new ArrayList<>(rate * duration);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        for (int i = 0; i < rate * duration; i++) {
+            long scheduled = start + i * intervalNanos;
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+            boolean isSlow = i % 2 == 0;
+            HttpRequest request = HttpRequest.newBuilder(isSlow ? slow : fast).timeout(Duration.ofSeconds(60)).build();
+            requests.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> result.record(isSlow, scheduled,
+                            error == null && response.statusCode() == 200)));
+        }
+        requests.forEach(request -> request.exceptionally(error -> null).join());
+        clientThreads.shutdown();
+        return result;
+    }
+
+    private static class Result {
+        private final Queue<Long> slow = new ConcurrentLinkedQueue<>();
+        private final Queue<Long> fast = new ConcurrentLinkedQueue<>();
+        private final AtomicLong slowErrors = new AtomicLong();
+        private final AtomicLong fastErrors = new AtomicLong();
+
+        void record(boolean isSlow, long scheduled, boolean ok) {
+            long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - scheduled);
+            (isSlow ? slow : fast).add(latencyMillis);
+            if (!ok) (isSlow ? slowErrors : fastErrors).incrementAndGet();
+        }
+
+        void print(String threads) {
+            print(threads, "/slow", slow, slowErrors.get());
+            print(threads, "/fast", fast, fastErrors.get());
+        }
+
+        private static void print(String threads, String path, Queue<Long> latencies, long errors) {
+            List<Long> sorted = latencies.stream().sorted().toList();
+            System.out.printf("%-10s %-6s %10d %10d %10d %8d%n", threads, path, sorted.size(),
+                    percentile(sorted, 0.50), percentile(sorted, 0.99), errors);
+        }
+
+        private static long percentile(List<Long> sorted, double percentile) {
+            if (sorted.isEmpty()) return 0;
+            return sorted.get((int) Math.ceil(percentile * sorted.size()) - 1);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class HikariPoolSizingTest {
+
+    /**
+     * Method under test: {@link HikariPoolSizing#postProcessAfterInitialization(Object, String)}
+     */
+    @Test
+    void testPoolIsSizedFromDatabaseCores() {
+        HikariPoolSizing sizing = new HikariPoolSizing(0, 8, 1);
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            assertSame(dataSource, sizing.postProcessAfterInitialization(dataSource, "dataSource"));
+            assertEquals(17, dataSource.getMaximumPoolSize());
+            assertEquals(17, dataSource.getMinimumIdle());
+        }
+    }
+
+    /**
+     * Method under test: {@link HikariPoolSizing#postProcessAfterInitialization(Object, String)}
+     */
+    @Test
+    void testConfiguredPoolSizeWins() {
+        HikariPoolSizing sizing = new HikariPoolSizing(30, 8, 1);
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            sizing.postProcessAfterInitialization(dataSource, "dataSource");
+            assertEquals(30, dataSource.getMaximumPoolSize());
+        }
+        Object other = new Object();
+        assertSame(other, sizing.postProcessAfterInitialization(other, "other"));
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.backend.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtDenyListTest {
+
+    private static Claims claims(long userId, long issuedAt) {
+        Claims claims = Jwts.claims();
+        claims.setSubject("bashir.okala@hotmail.com");
+        claims.setIssuedAt(new Date(issuedAt));
+        claims.put(JwtPrincipal.USER_ID_CLAIM, userId);
+        return claims;
+    }
+
+    /**
+     * Method under test: {@link JwtDenyList#isDenied(Claims)}
+     */
+    @Test
+    void testTokensIssuedBeforeRevocationAreDenied() {
+        JwtDenyList denyList = new JwtDenyList(86400000);
+        long issuedAt = System.currentTimeMillis() - 60_000;
+        assertFalse(denyList.isDenied(claims(1L, issuedAt)));
+
+        denyList.revoke(1L);
+        assertTrue(denyList.isDenied(claims(1L, issuedAt)));
+        assertFalse(denyList.isDenied(claims(2L, issuedAt)));
+        assertFalse(denyList.isDenied(claims(1L, System.currentTimeMillis() + 60_000)));
+    }
+
+    /**
+     * Method under test: {@link JwtDenyList#revoke(long)}
+     */
+    @Test
+    void testTokensIssuedInTheSecondOfRevocationAreDenied() {
+        JwtDenyList denyList = new JwtDenyList(86400000);
+        // "iat" as the token carries it, truncated to the second
+        long issuedAt = System.currentTimeMillis() / 1000 * 1000;
+        denyList.revoke(1L);
+        assertTrue(denyList.isDenied(claims(1L, issuedAt)));
+    }
+
+    /**
+     * Method under test: {@link JwtDenyList#isDenied(Claims)}
+     */
+    @Test
+    void testTokensWithoutPrincipalClaimsAreIgnored() {
+        JwtDenyList denyList = new JwtDenyList(86400000);
+        denyList.revoke(1L);
+        Claims claims = Jwts.claims();
+        claims.setSubject("bashir.okala@hotmail.com");
+        claims.setIssuedAt(new Date(0));
+        assertFalse(denyList.isDenied(claims));
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.backend.config;
+
+import com.example.backend.models.entities.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class JwtTokenCacheTest {
+
+    private static Claims claims(String subject, long expiresInMillis) {
+        Claims claims = Jwts.claims();
+        claims.setSubject(subject);
+        claims.setExpiration(new Date(System.currentTimeMillis() + expiresInMillis));
+        return claims;
+    }
+
+    /**
+     * Method under test: {@link JwtTokenCache#get(String)}
+     */
+    @Test
+    void testGetReturnsCachedPrincipal() {
+        JwtTokenCache tokenCache = new JwtTokenCache(true, 100, 60_000, new SimpleMeterRegistry());
+        User user = new User();
+        user.setEmail("bashir.okala@hotmail.com");
+        tokenCache.put("token", claims("bashir.okala@hotmail.com", 60_000), user);
+
+        JwtTokenCache.CachedToken cached = tokenCache.get("token");
+        assertNotNull(cached);
+        assertSame(user, cached.getPrincipal());
+        assertEquals("bashir.okala@hotmail.com", cached.getClaims().getSubject());
+        assertNull(tokenCache.get("other-token"));
+    }
+
+    /**
+     * Method under test: {@link JwtTokenCache#get(String)}
+     */
+    @Test
+    void testExpiredTokenIsNotReturned() {
+        JwtTokenCache tokenCache = new JwtTokenCache(true, 100, 60_000, new SimpleMeterRegistry());
+        tokenCache.put("token", claims("bashir.okala@hotmail.com", -1_000), new User());
+        assertNull(tokenCache.get("token"));
+    }
+
+    /**
+     * Method under test: {@link JwtTokenCache#invalidateUser(String)}
+     */
+    @Test
+    void testInvalidateUser() {
+        JwtTokenCache tokenCache = new JwtTokenCache(true, 100, 60_000, new SimpleMeterRegistry());
+        tokenCache.put("token1", claims("bashir.okala@hotmail.com", 60_000), new User());
+        tokenCache.put("token2", claims("warl0ck@hotmail.com", 60_000), new User());
+
+        tokenCache.invalidateUser("bashir.okala@hotmail.com");
+        assertNull(tokenCache.get("token1"));
+        assertNotNull(tokenCache.get("token2"));
+    }
+
+    /**
+     * Method under test: {@link JwtTokenCache#get(String)}
+     */
+    @Test
+    void testDisabledCache() {
+        JwtTokenCache tokenCache = new JwtTokenCache(false, 100, 60_000, new SimpleMeterRegistry());
+        tokenCache.put("token", claims("bashir.okala@hotmail.com", 60_000), new User());
+        assertNull(tokenCache.get("token"));
+    }
+}
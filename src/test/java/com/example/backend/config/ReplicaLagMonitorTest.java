@@ -0,0 +1,73 @@
+package com.example.backend.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaLagMonitorTest {
+
+    private final JdbcTemplate replica = mock(JdbcTemplate.class);
+    private final ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica, 5000);
+
+    /**
+     * Method under test: {@link ReplicaLagMonitor#check()}
+     */
+    @Test
+    void testReplicaWithinMaxLagIsHealthy() {
+        assertFalse(monitor.isHealthy());
+        when(replica.queryForObject(ReplicaLagMonitor.LAG_QUERY, Long.class)).thenReturn(1200L);
+        monitor.check();
+        assertTrue(monitor.isHealthy());
+    }
+
+    /**
+     * Method under test: {@link ReplicaLagMonitor#check()}
+     */
+    @Test
+    void testReplicaBehindMaxLagIsUnhealthy() {
+        when(replica.queryForObject(ReplicaLagMonitor.LAG_QUERY, Long.class)).thenReturn(12000L);
+        monitor.check();
+        assertFalse(monitor.isHealthy());
+    }
+
+    /**
+     * Method under test: {@link ReplicaLagMonitor#check()}
+     */
+    @Test
+    void testUnreachableReplicaIsUnhealthy() {
+        when(replica.queryForObject(ReplicaLagMonitor.LAG_QUERY, Long.class)).thenReturn(0L);
+        monitor.check();
+        assertTrue(monitor.isHealthy());
+
+        when(replica.queryForObject(ReplicaLagMonitor.LAG_QUERY, Long.class))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+        monitor.check();
+        assertFalse(monitor.isHealthy());
+    }
+
+    /**
+     * Method under test: {@link ReplicaLagMonitor#isHealthy()}
+     */
+    @Test
+    void testStaleMeasurementCountsTowardsTheLag() {
+        AtomicLong now = new AtomicLong(100_000);
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica, 5000, now::get);
+        when(replica.queryForObject(ReplicaLagMonitor.LAG_QUERY, Long.class)).thenReturn(1200L);
+        monitor.check();
+        now.addAndGet(3800);
+        assertTrue(monitor.isHealthy());
+
+        // no check since, the replica may be further behind than measured
+        now.addAndGet(1);
+        assertFalse(monitor.isHealthy());
+        monitor.check();
+        assertTrue(monitor.isHealthy());
+    }
+}
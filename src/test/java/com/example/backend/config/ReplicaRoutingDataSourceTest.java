@@ -0,0 +1,122 @@
+package com.example.backend.config;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final AtomicBoolean replicaHealthy = new AtomicBoolean(true);
+    private final ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(mock(DataSource.class),
+            mock(DataSource.class), replicaHealthy::get, Duration.ofMinutes(1));
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        List.copyOf(TransactionSynchronizationManager.getResourceMap().keySet())
+                .forEach(TransactionSynchronizationManager::unbindResource);
+        SecurityContextHolder.clearContext();
+    }
+
+    /**
+     * Method under test: {@link ReplicaRoutingDataSource#determineCurrentLookupKey()}
+     */
+    @Test
+    void testReadOnlyTransactionGoesToReplica() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals(ReplicaRoutingDataSource.Target.REPLICA, routing.determineCurrentLookupKey());
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        assertEquals(ReplicaRoutingDataSource.Target.PRIMARY, routing.determineCurrentLookupKey());
+    }
+
+    /**
+     * Method under test: {@link ReplicaRoutingDataSource#determineCurrentLookupKey()}
+     */
+    @Test
+    void testWriterReadsFromPrimaryAfterCommit() {
+        authenticate("alice");
+        TransactionSynchronizationManager.initSynchronization();
+        assertEquals(ReplicaRoutingDataSource.Target.PRIMARY, routing.determineCurrentLookupKey());
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals(ReplicaRoutingDataSource.Target.PRIMARY, routing.determineCurrentLookupKey());
+
+        authenticate("bob");
+        assertEquals(ReplicaRoutingDataSource.Target.REPLICA, routing.determineCurrentLookupKey());
+    }
+
+    /**
+     * Method under test: {@link ReplicaRoutingDataSource#determineCurrentLookupKey()}
+     */
+    @Test
+    void testRolledBackWriteDoesNotStick() {
+        authenticate("alice");
+        TransactionSynchronizationManager.initSynchronization();
+        routing.determineCurrentLookupKey();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals(ReplicaRoutingDataSource.Target.REPLICA, routing.determineCurrentLookupKey());
+    }
+
+    /**
+     * Method under test: {@link ReplicaRoutingDataSource#determineCurrentLookupKey()}
+     */
+    @Test
+    void testLaggingReplicaFallsBackToPrimary() {
+        replicaHealthy.set(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals(ReplicaRoutingDataSource.Target.PRIMARY, routing.determineCurrentLookupKey());
+    }
+
+    /**
+     * Method under test: {@link ReplicaRoutingDataSource#determineCurrentLookupKey()}
+     */
+    @Test
+    void testReplicaSessionDoesNotPutIntoTheCache() {
+        Session session = mock(Session.class);
+        EntityManager entityManager = mock(EntityManager.class);
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        TransactionSynchronizationManager.bindResource(mock(EntityManagerFactory.class), new EntityManagerHolder(entityManager));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        replicaHealthy.set(false);
+        assertEquals(ReplicaRoutingDataSource.Target.PRIMARY, routing.determineCurrentLookupKey());
+        verify(session, never()).setCacheMode(any());
+
+        replicaHealthy.set(true);
+        assertEquals(ReplicaRoutingDataSource.Target.REPLICA, routing.determineCurrentLookupKey());
+        verify(session).setCacheMode(CacheMode.GET);
+    }
+
+    private static void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(username, null, List.of()));
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.backend.controllers;
+
+import com.example.backend.models.entities.Comment;
+import com.example.backend.models.entities.Notification;
+import com.example.backend.models.entities.Post;
+import com.example.backend.models.entities.User;
+import com.example.backend.models.enums.NotificationType;
+import com.example.backend.models.enums.Role;
+import com.example.backend.repositories.CommentRepository;
+import com.example.backend.repositories.NotificationRepository;
+import com.example.backend.repositories.PostRepository;
+import com.example.backend.repositories.UserRepository;
+import com.example.backend.services.CascadeDeleter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Counts the statements each read endpoint sends, response serialization included, so a lazy association touched
+ * per row shows up as a failure instead of as N extra queries. Needs the database the application is configured
+ * with, like {@link com.example.backend.BackendApplicationTests}; the rows it writes are deleted afterwards.
+ */
+@SpringBootTest
+class EndpointQueryCountTest {
+
+    private static final int ROWS = 10;
+    private static final int PAGE_SIZE = 5;
+
+    @Autowired
+    private PostController postController;
+
+    @Autowired
+    private NotificationController notificationController;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private CascadeDeleter cascadeDeleter;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String token;
+    private List<User> users;
+    private List<Post> posts;
+    private List<Comment> comments;
+
+    @BeforeEach
+    void setUp() {
+        // a word of its own for the rows of this run, so searches only find them
+        token = "querycount" + System.nanoTime();
+        users = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            users.add(User.builder()
+                    .email(token + i + "@example.com")
+                    .username(token + i)
+                    .password("password")
+                    .role(Role.USER)
+                    .locked(false)
+                    .enabled(true)
+                    .build());
+        }
+        users = userRepository.saveAll(users);
+
+        // one post per author, every post with a different author to load
+        posts = new ArrayList<>();
+        for (User user : users) {
+            posts.add(Post.builder().content("post " + token + " by " + user.getId()).user(user).build());
+        }
+        posts = postRepository.saveAll(posts);
+
+        comments = new ArrayList<>();
+        List<Notification> notifications = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            comments.add(Comment.builder()
+                    .content("comment " + i)
+                    .creationDate(LocalDateTime.now())
+                    .user(users.get(i))
+                    .post(posts.get(0))
+                    .build());
+            notifications.add(Notification.builder()
+                    .user(users.get(0))
+                    .sender(users.get(i))
+                    .post(posts.get(i))
+                    .notificationType(NotificationType.COMMENT)
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        }
+        comments = commentRepository.saveAll(comments);
+        notificationRepository.saveAll(notifications);
+    }
+
+    @AfterEach
+    void tearDown() {
+        posts.forEach(post -> cascadeDeleter.deletePost(post.getId()));
+        users.forEach(user -> cascadeDeleter.deleteUser(user.getId()));
+    }
+
+    /**
+     * Method under test: {@link PostController#getPostsByPage(int, int, String, Sort.Direction)}
+     */
+    @Test
+    void testGetPostsByPage() {
+        // the page and its count
+        assertStatements(2, () -> postController.getPostsByPage(0, PAGE_SIZE, "creationDate", Sort.Direction.DESC));
+    }
+
+    /**
+     * Method under test: {@link PostController#scrollPosts(String, int)}
+     */
+    @Test
+    void testScrollPosts() {
+        assertStatements(1, () -> postController.scrollPosts(null, PAGE_SIZE));
+    }
+
+    /**
+     * Method under test: {@link PostController#searchPosts(String, int, int, String, Sort.Direction)}
+     */
+    @Test
+    void testSearchPosts() {
+        assertStatements(2, () -> postController.searchPosts(token, 0, PAGE_SIZE, "creationDate", Sort.Direction.DESC));
+        assertStatements(2, () -> postController.searchPosts(token, 0, PAGE_SIZE, "relevance", Sort.Direction.DESC));
+    }
+
+    /**
+     * Method under test: {@link PostController#scrollSearchPosts(String, String, int)}
+     */
+    @Test
+    void testScrollSearchPosts() {
+        assertStatements(1, () -> postController.scrollSearchPosts(token, null, PAGE_SIZE));
+    }
+
+    /**
+     * Method under test: {@link PostController#getComment(Long)}
+     */
+    @Test
+    void testGetComment() {
+        assertStatements(1, () -> postController.getComment(comments.get(0).getId()));
+    }
+
+    /**
+     * Method under test: {@link PostController#getCommentForPost(Long, int, int, String, Sort.Direction)}
+     */
+    @Test
+    void testGetCommentForPost() {
+        assertStatements(2, () -> postController.getCommentForPost(posts.get(0).getId(), 0, PAGE_SIZE, "creationDate", Sort.Direction.DESC));
+    }
+
+    /**
+     * Method under test: {@link PostController#scrollCommentsForPost(Long, String, int)}
+     */
+    @Test
+    void testScrollCommentsForPost() {
+        assertStatements(1, () -> postController.scrollCommentsForPost(posts.get(0).getId(), null, PAGE_SIZE));
+    }
+
+    /**
+     * Method under test: {@link NotificationController#getNotificationsForUser(Long)}
+     */
+    @Test
+    void testGetNotificationsForUser() {
+        assertStatements(1, () -> notificationController.getNotificationsForUser(users.get(0).getId()));
+    }
+
+    /**
+     * Method under test: {@link NotificationController#scrollNotificationsForUser(Long, String, int)}
+     */
+    @Test
+    void testScrollNotificationsForUser() {
+        assertStatements(1, () -> notificationController.scrollNotificationsForUser(users.get(0).getId(), null, PAGE_SIZE));
+    }
+
+    private void assertStatements(long expected, Supplier<ResponseEntity<?>> endpoint) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(endpoint.get().getBody());
+        } catch (Exception e) {
+            throw new AssertionError("could not serialize the response", e);
+        }
+        assertEquals(expected, statistics.getPrepareStatementCount(), "statements for " + body);
+    }
+}
@@ -4,13 +4,18 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import com.example.backend.config.JwtDenyList;
 import com.example.backend.config.JwtService;
+import com.example.backend.config.JwtTokenCache;
+import com.example.backend.config.SecondLevelCache;
 import com.example.backend.exceptions.UserException;
 import com.example.backend.exceptions.UserNotFoundException;
 import com.example.backend.models.dtos.AuthenticationRequest;
@@ -25,14 +30,19 @@ import com.example.backend.repositories.UserRepository;
 import com.example.backend.response.ApiErrorResponse;
 import com.example.backend.response.ApiFailedResponse;
 import com.example.backend.response.ApiSuccessResponse;
+import com.example.backend.services.CascadeDeleter;
+import com.example.backend.services.FollowRecommendations;
+import com.example.backend.services.FollowerGraph;
+import com.example.backend.services.FollowerIntersections;
 import com.example.backend.services.UserService;
+import com.example.backend.services.UsernameIndex;
+import com.example.backend.storage.PictureStorage;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.DataInputStream;
 
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.lang.reflect.Executable;
 
 import java.time.LocalDate;
 
@@ -49,6 +59,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.MethodParameter;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -63,6 +75,7 @@ import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
@@ -98,7 +111,7 @@ class UserControllerTest {
         JwtService jwtService = new JwtService();
         ResponseEntity<Page<User>> actualUser = (new UserController(
                 new UserService(userRepository, jwtService, authenticationManager, new BCryptPasswordEncoder(),
-                        mock(PostRepository.class), mock(CommentRepository.class)))).getUser(1, 3, "Sort Field",
+                        mock(PostRepository.class), mock(CommentRepository.class), mock(JwtTokenCache.class), mock(JwtDenyList.class), mock(PictureStorage.class), mock(UsernameIndex.class), mock(CascadeDeleter.class), mock(FollowerGraph.class), mock(SecondLevelCache.class), mock(FollowerIntersections.class), mock(FollowRecommendations.class), mock(ApplicationEventPublisher.class)))).getUser(1, 3, "Sort Field",
                 Sort.Direction.ASC);
         verify(userRepository).findAll(Mockito.<Pageable>any());
         assertEquals(200, actualUser.getStatusCodeValue());
@@ -157,7 +170,7 @@ class UserControllerTest {
         user.setId(1L);
         user.setLocked(true);
         user.setPassword("password");
-        user.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user.setProfilePictureKey("AXAXAXAX");
         user.setRole(Role.USER);
         user.setUsername("warl0ck");
         when(userService.getUser(anyLong())).thenReturn(user);
@@ -169,8 +182,8 @@ class UserControllerTest {
                 .andExpect(MockMvcResultMatchers.content().contentType("application/json"))
                 .andExpect(MockMvcResultMatchers.content()
                         .string(
-                                "{\"id\":1,\"email\":\"bashir.okala@hotmail.com\",\"username\":\"bashir.okala@hotmail.com\",\"role\":\"USER\",\"profilePicture"
-                                        + "\":\"QVhBWEFYQVg=\"}"));
+                                "{\"id\":1,\"email\":\"bashir.okala@hotmail.com\",\"username\":\"bashir.okala@hotmail.com\",\"role\":\"USER\",\"profilePictureKey"
+                                        + "\":\"AXAXAXAX\",\"followersCount\":0,\"followingCount\":0}"));
     }
 
     /**
@@ -187,7 +200,7 @@ class UserControllerTest {
         user.setId(1L);
         user.setLocked(true);
         user.setPassword("password");
-        user.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user.setProfilePictureKey("AXAXAXAX");
         user.setRole(Role.USER);
         user.setUsername("warl0ck");
         when(userService.getUser(anyLong())).thenReturn(user);
@@ -250,7 +263,7 @@ class UserControllerTest {
         JwtService jwtService = new JwtService();
         ResponseEntity<Page<User>> actualSearchUsersResult = (new UserController(
                 new UserService(userRepository, jwtService, authenticationManager, new BCryptPasswordEncoder(),
-                        mock(PostRepository.class), mock(CommentRepository.class)))).searchUsers("Keyword", 1, 3, "Sort Field",
+                        mock(PostRepository.class), mock(CommentRepository.class), mock(JwtTokenCache.class), mock(JwtDenyList.class), mock(PictureStorage.class), mock(UsernameIndex.class), mock(CascadeDeleter.class), mock(FollowerGraph.class), mock(SecondLevelCache.class), mock(FollowerIntersections.class), mock(FollowRecommendations.class), mock(ApplicationEventPublisher.class)))).searchUsers("Keyword", 1, 3, "Sort Field",
                 Sort.Direction.ASC);
         verify(userRepository).searchUsers(Mockito.<String>any(), Mockito.<PageRequest>any());
         assertEquals(200, actualSearchUsersResult.getStatusCodeValue());
@@ -330,7 +343,7 @@ class UserControllerTest {
     }
 
     /**
-     * Method under test: {@link UserController#deleteUser(Long)}
+     * Method under test: {@link UserController#deleteUser(Long, boolean)}
      */
     @Test
     void testDeleteUser() throws Exception {
@@ -345,7 +358,7 @@ class UserControllerTest {
     }
 
     /**
-     * Method under test: {@link UserController#deleteUser(Long)}
+     * Method under test: {@link UserController#deleteUser(Long, boolean)}
      */
     @Test
     void testDeleteUser2() throws Exception {
@@ -364,7 +377,7 @@ class UserControllerTest {
     }
 
     /**
-     * Method under test: {@link UserController#deleteUser(Long)}
+     * Method under test: {@link UserController#deleteUser(Long, boolean)}
      */
     @Test
     void testDeleteUser3() throws Exception {
@@ -379,7 +392,7 @@ class UserControllerTest {
     }
 
     /**
-     * Method under test: {@link UserController#deleteUser(Long)}
+     * Method under test: {@link UserController#deleteUser(Long, boolean)}
      */
     @Test
     void testDeleteUser4() throws Exception {
@@ -543,7 +556,7 @@ class UserControllerTest {
         JwtService jwtService = new JwtService();
         ResponseEntity<ApiSuccessResponse> actualAllUserFollowing = (new UserController(
                 new UserService(userRepository, jwtService, authenticationManager, new BCryptPasswordEncoder(),
-                        mock(PostRepository.class), mock(CommentRepository.class)))).getAllUserFollowing(1L);
+                        mock(PostRepository.class), mock(CommentRepository.class), mock(JwtTokenCache.class), mock(JwtDenyList.class), mock(PictureStorage.class), mock(UsernameIndex.class), mock(CascadeDeleter.class), mock(FollowerGraph.class), mock(SecondLevelCache.class), mock(FollowerIntersections.class), mock(FollowRecommendations.class), mock(ApplicationEventPublisher.class)))).getAllUserFollowing(1L);
         verify(userRepository).getUsersFollowing(anyLong());
         verify(userRepository).existsById(Mockito.<Long>any());
         assertEquals(200, actualAllUserFollowing.getStatusCodeValue());
@@ -585,7 +598,7 @@ class UserControllerTest {
         JwtService jwtService = new JwtService();
         ResponseEntity<ApiSuccessResponse> actualAllUserFollowers = (new UserController(
                 new UserService(userRepository, jwtService, authenticationManager, new BCryptPasswordEncoder(),
-                        mock(PostRepository.class), mock(CommentRepository.class)))).getAllUserFollowers(1L);
+                        mock(PostRepository.class), mock(CommentRepository.class), mock(JwtTokenCache.class), mock(JwtDenyList.class), mock(PictureStorage.class), mock(UsernameIndex.class), mock(CascadeDeleter.class), mock(FollowerGraph.class), mock(SecondLevelCache.class), mock(FollowerIntersections.class), mock(FollowRecommendations.class), mock(ApplicationEventPublisher.class)))).getAllUserFollowers(1L);
         verify(userRepository).getUsersFollowers(anyLong());
         verify(userRepository).existsById(Mockito.<Long>any());
         assertEquals(200, actualAllUserFollowers.getStatusCodeValue());
@@ -689,10 +702,10 @@ class UserControllerTest {
      * Method under test: {@link UserController#handleMethodArgumentNotValidException(MethodArgumentNotValidException)}
      */
     @Test
-    void testHandleMethodArgumentNotValidException() {
+    void testHandleMethodArgumentNotValidException() throws NoSuchMethodException {
         ResponseEntity<ApiFailedResponse> actualHandleMethodArgumentNotValidExceptionResult = userController
                 .handleMethodArgumentNotValidException(
-                        new MethodArgumentNotValidException((Executable) null, new BindException("Target", "Object Name")));
+                        new MethodArgumentNotValidException(registerUserRequest(), new BindException("Target", "Object Name")));
         assertEquals(400, actualHandleMethodArgumentNotValidExceptionResult.getStatusCodeValue());
         assertTrue(
                 ((Collection<Object>) actualHandleMethodArgumentNotValidExceptionResult.getBody().getData()).isEmpty());
@@ -704,13 +717,14 @@ class UserControllerTest {
      * Method under test: {@link UserController#handleMethodArgumentNotValidException(MethodArgumentNotValidException)}
      */
     @Test
-    void testHandleMethodArgumentNotValidException2() {
+    void testHandleMethodArgumentNotValidException2() throws NoSuchMethodException {
         BeanPropertyBindingResult bindingResult = mock(BeanPropertyBindingResult.class);
         ArrayList<ObjectError> objectErrorList = new ArrayList<>();
         when(bindingResult.getAllErrors()).thenReturn(objectErrorList);
         ResponseEntity<ApiFailedResponse> actualHandleMethodArgumentNotValidExceptionResult = userController
-                .handleMethodArgumentNotValidException(new MethodArgumentNotValidException((Executable) null, bindingResult));
-        verify(bindingResult).getAllErrors();
+                .handleMethodArgumentNotValidException(new MethodArgumentNotValidException(registerUserRequest(), bindingResult));
+        // read again by the exception's own message when the handler logs it
+        verify(bindingResult, atLeastOnce()).getAllErrors();
         assertEquals(400, actualHandleMethodArgumentNotValidExceptionResult.getStatusCodeValue());
         assertTrue(actualHandleMethodArgumentNotValidExceptionResult.hasBody());
         assertTrue(actualHandleMethodArgumentNotValidExceptionResult.getHeaders().isEmpty());
@@ -721,15 +735,15 @@ class UserControllerTest {
      * Method under test: {@link UserController#handleMethodArgumentNotValidException(MethodArgumentNotValidException)}
      */
     @Test
-    void testHandleMethodArgumentNotValidException3() {
+    void testHandleMethodArgumentNotValidException3() throws NoSuchMethodException {
         ArrayList<ObjectError> objectErrorList = new ArrayList<>();
         objectErrorList.add(
                 new ObjectError("handleMethodArgumentNotValidException/e :", "handleMethodArgumentNotValidException/e :"));
         BeanPropertyBindingResult bindingResult = mock(BeanPropertyBindingResult.class);
         when(bindingResult.getAllErrors()).thenReturn(objectErrorList);
         ResponseEntity<ApiFailedResponse> actualHandleMethodArgumentNotValidExceptionResult = userController
-                .handleMethodArgumentNotValidException(new MethodArgumentNotValidException((Executable) null, bindingResult));
-        verify(bindingResult).getAllErrors();
+                .handleMethodArgumentNotValidException(new MethodArgumentNotValidException(registerUserRequest(), bindingResult));
+        verify(bindingResult, atLeastOnce()).getAllErrors();
         Object data = actualHandleMethodArgumentNotValidExceptionResult.getBody().getData();
         assertEquals("handleMethodArgumentNotValidException/e :", ((List<String>) data).get(0));
         assertEquals(1, ((Collection<String>) data).size());
@@ -742,7 +756,7 @@ class UserControllerTest {
      * Method under test: {@link UserController#handleMethodArgumentNotValidException(MethodArgumentNotValidException)}
      */
     @Test
-    void testHandleMethodArgumentNotValidException4() {
+    void testHandleMethodArgumentNotValidException4() throws NoSuchMethodException {
         ArrayList<ObjectError> objectErrorList = new ArrayList<>();
         objectErrorList.add(
                 new ObjectError("handleMethodArgumentNotValidException/e :", "handleMethodArgumentNotValidException/e :"));
@@ -751,8 +765,8 @@ class UserControllerTest {
         BeanPropertyBindingResult bindingResult = mock(BeanPropertyBindingResult.class);
         when(bindingResult.getAllErrors()).thenReturn(objectErrorList);
         ResponseEntity<ApiFailedResponse> actualHandleMethodArgumentNotValidExceptionResult = userController
-                .handleMethodArgumentNotValidException(new MethodArgumentNotValidException((Executable) null, bindingResult));
-        verify(bindingResult).getAllErrors();
+                .handleMethodArgumentNotValidException(new MethodArgumentNotValidException(registerUserRequest(), bindingResult));
+        verify(bindingResult, atLeastOnce()).getAllErrors();
         Object data = actualHandleMethodArgumentNotValidExceptionResult.getBody().getData();
         assertEquals("handleMethodArgumentNotValidException/e :", ((List<String>) data).get(0));
         assertEquals("handleMethodArgumentNotValidException/e :", ((List<String>) data).get(1));
@@ -762,6 +776,11 @@ class UserControllerTest {
         assertTrue(actualHandleMethodArgumentNotValidExceptionResult.getHeaders().isEmpty());
     }
 
+    // the @Valid body of registerUser, the parameter a MethodArgumentNotValidException is raised for
+    private static MethodParameter registerUserRequest() throws NoSuchMethodException {
+        return new MethodParameter(UserController.class.getMethod("registerUser", CreateUserRequest.class), 0);
+    }
+
     /**
      * Method under test: {@link UserController#authenticateUser(AuthenticationRequest)}
      */
@@ -895,12 +914,10 @@ class UserControllerTest {
         ResultActions actualPerformResult = MockMvcBuilders.standaloneSetup(userController)
                 .build()
                 .perform(requestBuilder);
-        actualPerformResult.andExpect(MockMvcResultMatchers.status().is(500))
+        actualPerformResult.andExpect(MockMvcResultMatchers.status().isOk())
                 .andExpect(MockMvcResultMatchers.content().contentType("application/json"))
-                .andExpect(MockMvcResultMatchers.content()
-                        .string(
-                                "{\"status\":\"error\",\"message\":\"Type definition error: [simple type, class com.example.backend.models"
-                                        + ".dtos.UpdateUserRequest]\"}"));
+                .andExpect(MockMvcResultMatchers.content().string("{\"status\":\"success\",\"data\":null}"));
+        verify(userService).updateUser(Mockito.eq(1L), Mockito.<UpdateUserRequest>any());
     }
 
     /**
@@ -934,5 +951,19 @@ class UserControllerTest {
                 .perform(requestBuilder);
         actualPerformResult.andExpect(MockMvcResultMatchers.status().is(415));
     }
-}
 
+    /**
+     * Method under test: {@link UserController#scrollUsers(String, int)}
+     */
+    @Test
+    void testScrollUsersRejectsPageSizeOutOfRange() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(userController).build();
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/users/scroll").param("pageSize", "0"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.content()
+                        .string("{\"status\":\"fail\",\"data\":[\"pageSize must be between 1 and 100\"]}"));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/users/scroll").param("pageSize", "101"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        verifyNoInteractions(userService);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.backend.models.dtos;
+
+import com.example.backend.exceptions.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorTest {
+
+    /**
+     * Method under test: {@link Cursor#decode(String)}
+     */
+    @Test
+    void testEncodeDecodeRoundTrip() {
+        LocalDateTime creationDate = LocalDateTime.of(2023, 9, 14, 10, 15, 30, 123456000);
+        Cursor cursor = Cursor.decode(new Cursor(creationDate, 42L).encode());
+        assertEquals(creationDate, cursor.getCreationDate());
+        assertEquals(42L, cursor.getId());
+    }
+
+    /**
+     * Method under test: {@link Cursor#decode(String)}
+     */
+    @Test
+    void testDecodeWithoutTokenStartsAtTheNewest() {
+        Cursor cursor = Cursor.decode(null);
+        assertEquals(Long.MAX_VALUE, cursor.getId());
+        assertTrue(cursor.getCreationDate().isAfter(LocalDateTime.now()));
+    }
+
+    /**
+     * Method under test: {@link Cursor#decode(String)}
+     */
+    @Test
+    void testDecodeRejectsGarbage() {
+        assertThrows(InvalidCursorException.class, () -> Cursor.decode("not a cursor"));
+        assertThrows(InvalidCursorException.class, () -> Cursor.decode("bm8tc2VwYXJhdG9y"));
+    }
+
+    /**
+     * Method under test: {@link CursorSlice#of(org.springframework.data.domain.Slice, java.util.function.Function)}
+     */
+    @Test
+    void testCursorSlicePointsAtTheLastElement() {
+        LocalDateTime creationDate = LocalDateTime.of(2023, 9, 14, 10, 15);
+        CursorSlice<Long> slice = CursorSlice.of(new SliceImpl<>(List.of(9L, 7L), PageRequest.of(0, 2), true),
+                id -> new Cursor(creationDate, id));
+        assertTrue(slice.isHasNext());
+        assertEquals(7L, Cursor.decode(slice.getNextCursor()).getId());
+
+        CursorSlice<Long> last = CursorSlice.of(new SliceImpl<>(List.of(5L), PageRequest.of(0, 2), false),
+                id -> new Cursor(creationDate, id));
+        assertNull(last.getNextCursor());
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.backend.services;
+
+import com.example.backend.config.SecondLevelCache;
+import com.example.backend.models.dtos.DeletionJob;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CascadeDeleterTest {
+
+    /**
+     * Method under test: {@link CascadeDeleter#deletePost(long)}
+     */
+    @Test
+    void testDeletePostIssuesOneStatementPerTable() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        SecondLevelCache secondLevelCache = mock(SecondLevelCache.class);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq(7L))).thenReturn(2L);
+        CascadeDeleter deleter = new CascadeDeleter(jdbcTemplate, secondLevelCache, mock(PlatformTransactionManager.class), 100, 60000, Runnable::run);
+
+        assertEquals(10L, deleter.deletePost(7L));
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, times(5)).queryForObject(sql.capture(), eq(Long.class), eq(7L));
+        List<String> statements = sql.getAllValues();
+        assertTrue(statements.get(0).contains("DELETE FROM comments WHERE post_id = ?"));
+        assertTrue(statements.get(1).contains("UPDATE notification_counters"));
+        assertTrue(statements.get(4).contains("DELETE FROM posts WHERE id = ?"));
+        assertTrue(statements.stream().noneMatch(statement -> statement.contains("LIMIT")));
+        verify(secondLevelCache).evictPostAfterCommit(7L);
+    }
+
+    /**
+     * Method under test: {@link CascadeDeleter#submitUserDeletion(long, Runnable)}
+     */
+    @Test
+    void testSubmitUserDeletionRunsInChunksAndReportsProgress() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        SecondLevelCache secondLevelCache = mock(SecondLevelCache.class);
+        // two full chunks and a partial one for the authored posts, nothing anywhere else
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq(1L))).thenReturn(0L);
+        when(jdbcTemplate.queryForObject(startsWith("WITH affected AS (UPDATE posts SET user_id = NULL WHERE ctid"), eq(Long.class), eq(1L)))
+                .thenReturn(100L, 100L, 30L);
+        when(jdbcTemplate.queryForObject(eq("WITH affected AS (DELETE FROM users WHERE id = ? RETURNING 1) SELECT COUNT(*) FROM affected"),
+                eq(Long.class), eq(1L))).thenReturn(1L);
+        CascadeDeleter deleter = new CascadeDeleter(jdbcTemplate, secondLevelCache, mock(PlatformTransactionManager.class), 100, 60000, Runnable::run);
+        Runnable afterDelete = mock(Runnable.class);
+
+        DeletionJob job = deleter.submitUserDeletion(1L, afterDelete);
+
+        assertEquals(DeletionJob.Status.COMPLETED, job.getStatus());
+        assertEquals(231L, job.getRowsAffected());
+        assertNotNull(job.getFinishedAt());
+        assertSame(job, deleter.findJob(job.getJobId()).orElseThrow());
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, atLeastOnce()).queryForObject(sql.capture(), eq(Long.class), eq(1L));
+        List<String> statements = sql.getAllValues();
+        // the posts step repeats until a chunk comes back short, the 7 other cascade steps take one chunk each
+        assertEquals(3, statements.stream().filter(statement -> statement.contains("UPDATE posts SET user_id = NULL") && statement.contains("LIMIT 100")).count());
+        assertEquals(10, statements.stream().filter(statement -> statement.contains("LIMIT 100")).count());
+        // then one unbounded sweep of the 8 cascade steps and the 2 target steps, the user row last
+        assertEquals(10, statements.stream().filter(statement -> !statement.contains("LIMIT")).count());
+        assertTrue(statements.get(statements.size() - 1).contains("DELETE FROM users WHERE id = ?"));
+        assertEquals(CascadeDeleter.USER, job.getCurrentStep());
+        verify(afterDelete).run();
+        verify(secondLevelCache).evictUserAfterCommit(1L);
+    }
+
+    /**
+     * Method under test: {@link CascadeDeleter#submitPostDeletion(long, Runnable)}
+     */
+    @Test
+    void testFailedDeletionIsReported() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        SecondLevelCache secondLevelCache = mock(SecondLevelCache.class);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq(7L))).thenThrow(new IllegalStateException("timeout"));
+        CascadeDeleter deleter = new CascadeDeleter(jdbcTemplate, secondLevelCache, mock(PlatformTransactionManager.class), 100, 60000, Runnable::run);
+        Runnable afterDelete = mock(Runnable.class);
+
+        DeletionJob job = deleter.submitPostDeletion(7L, afterDelete);
+
+        assertEquals(DeletionJob.Status.FAILED, job.getStatus());
+        assertEquals("comments", job.getCurrentStep());
+        assertEquals("timeout", job.getError());
+        verify(afterDelete, never()).run();
+        verifyNoInteractions(secondLevelCache);
+    }
+}
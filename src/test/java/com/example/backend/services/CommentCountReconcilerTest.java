@@ -0,0 +1,41 @@
+package com.example.backend.services;
+
+import com.example.backend.config.SecondLevelCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CommentCountReconcilerTest {
+
+    /**
+     * Method under test: {@link CommentCountReconciler#reconcile()}
+     */
+    @Test
+    void testReconcileWalksThePostsInChunks() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        SecondLevelCache secondLevelCache = mock(SecondLevelCache.class);
+        // posts 1..250 in chunks of 100
+        when(jdbcTemplate.queryForObject(CommentCountReconciler.CHUNK_END, Long.class, 0L, 100)).thenReturn(100L);
+        when(jdbcTemplate.queryForObject(CommentCountReconciler.CHUNK_END, Long.class, 100L, 100)).thenReturn(200L);
+        when(jdbcTemplate.queryForObject(CommentCountReconciler.CHUNK_END, Long.class, 200L, 100)).thenReturn(250L);
+        when(jdbcTemplate.queryForList(CommentCountReconciler.RECOUNT, Long.class, 0L, 100L)).thenReturn(List.of(7L, 42L));
+        when(jdbcTemplate.queryForList(CommentCountReconciler.RECOUNT, Long.class, 100L, 200L)).thenReturn(List.of());
+        when(jdbcTemplate.queryForList(CommentCountReconciler.RECOUNT, Long.class, 200L, 250L)).thenReturn(List.of(249L));
+        CommentCountReconciler reconciler = new CommentCountReconciler(jdbcTemplate, secondLevelCache, mock(PlatformTransactionManager.class), 100);
+
+        assertEquals(3L, reconciler.reconcile());
+
+        verify(jdbcTemplate).queryForList(CommentCountReconciler.LOCK_CHUNK, Long.class, 0L, 100L);
+        verify(jdbcTemplate).queryForList(CommentCountReconciler.LOCK_CHUNK, Long.class, 200L, 250L);
+        verify(jdbcTemplate).queryForObject(CommentCountReconciler.CHUNK_END, Long.class, 250L, 100);
+        verify(secondLevelCache).evictPosts(List.of(7L, 42L));
+        verify(secondLevelCache).evictPosts(List.of(249L));
+        verify(secondLevelCache, times(2)).evictPosts(any());
+    }
+}
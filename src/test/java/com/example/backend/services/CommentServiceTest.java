@@ -1,6 +1,9 @@
 package com.example.backend.services;
 
+import com.example.backend.config.SecondLevelCache;
 import com.example.backend.exceptions.CommentException;
+import com.example.backend.models.dtos.BulkImportResponse;
+import com.example.backend.models.dtos.CommentRequest;
 import com.example.backend.models.entities.Comment;
 import com.example.backend.models.entities.Post;
 import com.example.backend.models.entities.User;
@@ -14,14 +17,20 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.io.UnsupportedEncodingException;
 import java.time.LocalDate;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
 @ContextConfiguration(classes = {CommentService.class})
@@ -39,6 +48,12 @@ class CommentServiceTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private NotificationService notificationService;
+
+    @MockBean
+    private SecondLevelCache secondLevelCache;
+
     /**
      * Method under test: {@link CommentService#createComment(long, long, String)}
      */
@@ -53,7 +68,7 @@ class CommentServiceTest {
         user.setId(1L);
         user.setLocked(true);
         user.setPassword("password");
-        user.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user.setProfilePictureKey("AXAXAXAX");
         user.setRole(Role.USER);
         user.setUsername("warl0ck");
 
@@ -73,7 +88,7 @@ class CommentServiceTest {
         user2.setId(1L);
         user2.setLocked(true);
         user2.setPassword("password");
-        user2.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user2.setProfilePictureKey("AXAXAXAX");
         user2.setRole(Role.USER);
         user2.setUsername("warl0ck");
 
@@ -94,7 +109,7 @@ class CommentServiceTest {
         user3.setId(1L);
         user3.setLocked(true);
         user3.setPassword("password");
-        user3.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user3.setProfilePictureKey("AXAXAXAX");
         user3.setRole(Role.USER);
         user3.setUsername("warl0ck");
 
@@ -115,7 +130,7 @@ class CommentServiceTest {
         user4.setId(1L);
         user4.setLocked(true);
         user4.setPassword("password");
-        user4.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user4.setProfilePictureKey("AXAXAXAX");
         user4.setRole(Role.USER);
         user4.setUsername("warl0ck");
         when(userService.getUser(anyLong())).thenReturn(user4);
@@ -123,6 +138,8 @@ class CommentServiceTest {
         verify(postService).getPost(Mockito.<Long>any());
         verify(userService).getUser(anyLong());
         verify(commentRepository).save(Mockito.<Comment>any());
+        verify(commentRepository).countNewComments(List.of(1L));
+        verify(notificationService).publishNotification(any());
     }
 
     /**
@@ -139,7 +156,7 @@ class CommentServiceTest {
         user.setId(1L);
         user.setLocked(true);
         user.setPassword("password");
-        user.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user.setProfilePictureKey("AXAXAXAX");
         user.setRole(Role.USER);
         user.setUsername("warl0ck");
 
@@ -155,5 +172,61 @@ class CommentServiceTest {
         verify(postService).getPost(Mockito.<Long>any());
         verify(userService).getUser(anyLong());
     }
-}
 
+    /**
+     * Method under test: {@link CommentService#searchComments(String, long, int, int, String, Sort.Direction)}
+     */
+    @Test
+    void testSearchCommentsDoesNotLoadThePost() {
+        commentService.searchComments("wander", 1L, 0, 10, "creationDate", Sort.Direction.DESC);
+        verify(commentRepository).searchCommentsByPostId(eq("wander:*"), eq(1L), any());
+        verifyNoInteractions(postService);
+
+        commentService.searchComments("wander", 1L, 0, 10, "relevance", Sort.Direction.DESC);
+        verify(commentRepository).searchCommentsByPostIdByRelevance(eq("wander:*"), eq(1L), any());
+        assertThrows(CommentException.class, () -> commentService.searchComments("  ", 1L, 0, 10, "creationDate", Sort.Direction.DESC));
+    }
+
+    /**
+     * Method under test: {@link CommentService#importComments(List)}
+     */
+    @Test
+    void testImportCommentsSavesInOneCall() {
+        User user = new User();
+        user.setId(1L);
+        Post post = Post.builder().id(2L).content("Not all who wander are lost").user(user).build();
+        when(userService.getUsers(Set.of(1L))).thenReturn(Map.of(1L, user));
+        when(postService.getPosts(Set.of(2L))).thenReturn(Map.of(2L, post));
+        when(commentRepository.saveAll(Mockito.<List<Comment>>any())).thenAnswer(invocation -> {
+            List<Comment> comments = invocation.getArgument(0);
+            for (int i = 0; i < comments.size(); i++) comments.get(i).setId(100L + i);
+            return comments;
+        });
+
+        BulkImportResponse response = commentService.importComments(List.of(
+                new CommentRequest("first", 2L, 1L),
+                new CommentRequest("second", 2L, 1L)));
+
+        assertEquals(2, response.getImported());
+        assertEquals(List.of(100L, 101L), response.getIds());
+        verify(commentRepository).saveAll(Mockito.<List<Comment>>any());
+        verify(commentRepository).countNewComments(List.of(100L, 101L));
+        verifyNoInteractions(notificationService);
+        assertThrows(CommentException.class, () -> commentService.importComments(List.of(new CommentRequest(" ", 2L, 1L))));
+        assertThrows(CommentException.class, () -> commentService.importComments(List.of()));
+    }
+
+    /**
+     * Method under test: {@link CommentService#deleteComment(Long, long)}
+     */
+    @Test
+    void testDeleteCommentEvictsTheCountedPost() {
+        when(commentRepository.deleteByCommentIdAndUserId(5L, 1L)).thenReturn(Optional.of(2L));
+        commentService.deleteComment(5L, 1L);
+        verify(secondLevelCache).evictPostsAfterCommit(List.of(2L));
+
+        when(commentRepository.deleteByCommentIdAndUserId(5L, 3L)).thenReturn(Optional.empty());
+        commentService.deleteComment(5L, 3L);
+        verifyNoMoreInteractions(secondLevelCache);
+    }
+}
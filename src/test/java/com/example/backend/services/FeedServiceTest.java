@@ -0,0 +1,162 @@
+package com.example.backend.services;
+
+import com.example.backend.models.dtos.FeedResponse;
+import com.example.backend.models.entities.Post;
+import com.example.backend.models.entities.User;
+import com.example.backend.models.events.FollowChangedEvent;
+import com.example.backend.models.events.PostCreatedEvent;
+import com.example.backend.repositories.FeedEntryRepository;
+import com.example.backend.repositories.PostRepository;
+import com.example.backend.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class FeedServiceTest {
+
+    private final FeedEntryRepository feedEntryRepository = mock(FeedEntryRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final PostRepository postRepository = mock(PostRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private FeedService feedService(int timelineSize, long fanOutThreshold) {
+        return new FeedService(feedEntryRepository, userRepository, postRepository, jdbcTemplate, timelineSize, 100, fanOutThreshold);
+    }
+
+    private static Post post(long id) {
+        User user = new User();
+        user.setId(7L);
+        user.setEmail("bashir.okala@hotmail.com");
+        return Post.builder().id(id).content("Not all who wander are lost").user(user).creationDate(LocalDateTime.now()).build();
+    }
+
+    /**
+     * Method under test: {@link FeedService.Timeline#add(long)}
+     */
+    @Test
+    void testTimelineKeepsNewestIdsInOrder() {
+        FeedService.Timeline timeline = new FeedService.Timeline(3);
+        timeline.add(5);
+        timeline.add(9);
+        timeline.add(7);
+        timeline.add(9);
+        assertEquals(List.of(9L, 7L, 5L), timeline.before(Long.MAX_VALUE, 10));
+        assertFalse(timeline.isTruncated());
+
+        timeline.add(11);
+        assertEquals(List.of(11L, 9L, 7L), timeline.before(Long.MAX_VALUE, 10));
+        assertEquals(List.of(7L), timeline.before(9, 10));
+        assertTrue(timeline.isTruncated());
+    }
+
+    /**
+     * Method under test: {@link FeedService#onPostCreated(PostCreatedEvent)}
+     */
+    @Test
+    void testOnPostCreatedFansOutToFollowers() {
+        when(userRepository.countFollowers(7L)).thenReturn(2L);
+        when(userRepository.findFollowerIds(7L)).thenReturn(List.of(1L, 2L));
+        feedService(10, 100).onPostCreated(new PostCreatedEvent(42L, 7L, LocalDateTime.now()));
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+    }
+
+    /**
+     * Method under test: {@link FeedService#onPostCreated(PostCreatedEvent)}
+     */
+    @Test
+    void testPopularAuthorIsReadOnDemand() {
+        when(userRepository.countFollowers(7L)).thenReturn(101L);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.findFollowedAmong(eq(1L), any())).thenReturn(List.of(7L));
+        when(postRepository.findIdsByAuthorsBefore(any(), anyLong(), any(Pageable.class))).thenReturn(List.of(42L));
+        when(postRepository.findAllWithUserByIdIn(any())).thenReturn(List.of(post(42L), post(40L)));
+        when(feedEntryRepository.findPostIds(eq(1L), anyLong(), any(Pageable.class))).thenReturn(List.of(40L));
+
+        FeedService feedService = feedService(10, 100);
+        feedService.onPostCreated(new PostCreatedEvent(42L, 7L, LocalDateTime.now()));
+        verify(userRepository, never()).findFollowerIds(7L);
+
+        FeedResponse feed = feedService.getFeed(1L, null, 2);
+        assertEquals(List.of(42L, 40L), feed.getPosts().stream().map(p -> p.getPostId()).toList());
+        assertEquals(40L, feed.getNextBefore());
+    }
+
+    /**
+     * Method under test: {@link FeedService#onPostCreated(PostCreatedEvent)}
+     */
+    @Test
+    void testAuthorDroppingBelowThresholdIsBackfilled() {
+        when(userRepository.countFollowers(7L)).thenReturn(101L, 99L, 99L);
+        when(userRepository.findFollowerIds(7L)).thenReturn(List.of(1L, 2L));
+        FeedService feedService = feedService(10, 100);
+
+        feedService.onPostCreated(new PostCreatedEvent(42L, 7L, LocalDateTime.now()));
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+
+        feedService.onPostCreated(new PostCreatedEvent(43L, 7L, LocalDateTime.now()));
+        feedService.onPostCreated(new PostCreatedEvent(44L, 7L, LocalDateTime.now()));
+        verify(jdbcTemplate, times(1)).update(startsWith("INSERT INTO feed_entries"), eq(7L), eq(10));
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+    }
+
+    /**
+     * Method under test: {@link FeedService#loadFanOutOnReadAuthors()}
+     */
+    @Test
+    void testAuthorsLeftBehindAreBackfilledAtStartup() {
+        when(userRepository.findUserIdsWithMoreFollowersThan(100L)).thenReturn(List.of(8L));
+        when(userRepository.findUserIdsWithLatestPostNotFannedOut(100L)).thenReturn(List.of(7L));
+        feedService(10, 100).loadFanOutOnReadAuthors();
+        verify(jdbcTemplate).update(startsWith("INSERT INTO feed_entries"), eq(7L), eq(10));
+        verify(jdbcTemplate, never()).update(anyString(), eq(8L), anyInt());
+    }
+
+    /**
+     * Method under test: {@link FeedService#onFollowChanged(FollowChangedEvent)}
+     */
+    @Test
+    void testUnfollowRemovesTheAuthorFromTheFeed() {
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(feedEntryRepository.findPostIds(eq(1L), anyLong(), any(Pageable.class))).thenReturn(List.of(42L, 40L), List.of(40L));
+        when(postRepository.findAllWithUserByIdIn(any())).thenReturn(List.of(post(40L)));
+        FeedService feedService = feedService(10, 100);
+        feedService.getFeed(1L, null, 2);
+
+        feedService.onFollowChanged(new FollowChangedEvent(7L, 1L, true));
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+
+        feedService.onFollowChanged(new FollowChangedEvent(7L, 1L, false));
+        verify(jdbcTemplate).update(startsWith("DELETE FROM feed_entries"), eq(1L), eq(7L));
+        // the cached timeline is dropped and read again without the author's posts
+        feedService.getFeed(1L, null, 2);
+        verify(feedEntryRepository, times(2)).findPostIds(eq(1L), eq(Long.MAX_VALUE), any(Pageable.class));
+        verify(postRepository).findAllWithUserByIdIn(List.of(40L));
+    }
+
+    /**
+     * Method under test: {@link FeedService#getFeed(long, Long, int)}
+     */
+    @Test
+    void testPostsOfDeletedAuthorsStayOnThePage() {
+        Post orphaned = post(40L);
+        orphaned.setUser(null);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(feedEntryRepository.findPostIds(eq(1L), anyLong(), any(Pageable.class))).thenReturn(List.of(42L, 40L));
+        when(postRepository.findAllWithUserByIdIn(any())).thenReturn(List.of(post(42L), orphaned));
+
+        FeedResponse feed = feedService(10, 100).getFeed(1L, null, 2);
+        assertEquals(List.of(42L, 40L), feed.getPosts().stream().map(p -> p.getPostId()).toList());
+        assertNull(feed.getPosts().get(1).getUserId());
+    }
+}
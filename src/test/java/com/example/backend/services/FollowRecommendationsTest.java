@@ -0,0 +1,100 @@
+package com.example.backend.services;
+
+import com.example.backend.models.events.FollowChangedEvent;
+import com.example.backend.repositories.UserRepository;
+import com.example.backend.repositories.UserRepositoryCustom;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class FollowRecommendationsTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final FollowerGraph followerGraph = new FollowerGraph(userRepository);
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+    private final FollowRecommendations recommendations = new FollowRecommendations(followerGraph, 2, 3, pool);
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Method under test: {@link FollowRecommendations#rebuild()}
+     */
+    @Test
+    void testRebuildRanksByFolloweesFollowing() {
+        followerGraph.load();
+        // 1 follows 2, 3 and 4; 2 and 3 follow 10, 2 follows 11 and 1, 4 follows 12 and 2
+        followerGraph.followAfterCommit(2L, 1L);
+        followerGraph.followAfterCommit(3L, 1L);
+        followerGraph.followAfterCommit(4L, 1L);
+        followerGraph.followAfterCommit(10L, 2L);
+        followerGraph.followAfterCommit(10L, 3L);
+        followerGraph.followAfterCommit(11L, 2L);
+        followerGraph.followAfterCommit(1L, 2L);
+        followerGraph.followAfterCommit(12L, 4L);
+        followerGraph.followAfterCommit(2L, 4L);
+
+        recommendations.rebuild();
+
+        // 1 itself and 2, already followed, are left out; 11 and 12 tie and the lower id wins the last slot
+        FollowRecommendations.Ranked ranked = recommendations.get(1L);
+        assertArrayEquals(new long[]{10L, 11L}, ranked.ids());
+        assertArrayEquals(new int[]{2, 1}, ranked.scores());
+        assertNull(recommendations.get(10L));
+    }
+
+    /**
+     * Method under test: {@link FollowRecommendations#recommend(long)}
+     */
+    @Test
+    void testRecommendSkipsFolloweesAboveMaxFanOut() {
+        followerGraph.load();
+        followerGraph.followAfterCommit(2L, 1L);
+        for (long userId = 10; userId < 14; userId++) followerGraph.followAfterCommit(userId, 2L);
+        assertNull(recommendations.recommend(1L));
+
+        followerGraph.unfollowAfterCommit(13L, 2L);
+        assertArrayEquals(new long[]{10L, 11L}, recommendations.recommend(1L).ids());
+    }
+
+    /**
+     * Method under test: {@link FollowRecommendations#update()}
+     */
+    @Test
+    void testUpdateRecomputesUsersWhoseFollowsChanged() {
+        doAnswer(invocation -> {
+            UserRepositoryCustom.FollowConsumer consumer = invocation.getArgument(0);
+            consumer.accept(2L, 1L);
+            consumer.accept(10L, 2L);
+            return null;
+        }).when(userRepository).forEachFollow(any());
+        recommendations.update();
+        assertNull(recommendations.get(1L));
+
+        followerGraph.load();
+        recommendations.update();
+        assertArrayEquals(new long[]{10L}, recommendations.get(1L).ids());
+
+        followerGraph.followAfterCommit(3L, 1L);
+        followerGraph.followAfterCommit(11L, 3L);
+        followerGraph.followAfterCommit(10L, 1L);
+        recommendations.onFollowChanged(new FollowChangedEvent(10L, 1L, true));
+        recommendations.update();
+        assertArrayEquals(new long[]{11L}, recommendations.get(1L).ids());
+
+        // a user missing from the table is picked up on the next update
+        assertNull(recommendations.get(3L));
+        followerGraph.followAfterCommit(12L, 11L);
+        recommendations.update();
+        assertArrayEquals(new long[]{12L}, recommendations.get(3L).ids());
+    }
+}
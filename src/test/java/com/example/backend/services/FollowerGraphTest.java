@@ -0,0 +1,138 @@
+package com.example.backend.services;
+
+import com.example.backend.repositories.UserRepository;
+import com.example.backend.repositories.UserRepositoryCustom;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FollowerGraphTest {
+
+    /**
+     * Method under test: {@link FollowerGraph#load()}
+     */
+    @Test
+    void testLoadAndPageFollowers() {
+        UserRepository userRepository = mock(UserRepository.class);
+        doAnswer(invocation -> {
+            UserRepositoryCustom.FollowConsumer consumer = invocation.getArgument(0);
+            for (long followerId = 2; followerId <= 11; followerId++) consumer.accept(1L, followerId);
+            consumer.accept(3L, 1L);
+            return null;
+        }).when(userRepository).forEachFollow(any());
+        FollowerGraph graph = new FollowerGraph(userRepository);
+        graph.load();
+
+        assertEquals(10, graph.countFollowers(1L));
+        assertArrayEquals(new long[]{2L, 3L, 4L}, graph.followers(1L, -1L, 3));
+        assertArrayEquals(new long[]{5L, 6L, 7L}, graph.followers(1L, 4L, 3));
+        assertArrayEquals(new long[]{11L}, graph.followers(1L, 10L, 3));
+        assertArrayEquals(new long[0], graph.followers(1L, 11L, 3));
+        assertArrayEquals(new long[]{1L}, graph.following(3L, -1L, 10));
+        assertTrue(graph.follows(3L, 1L));
+        assertTrue(graph.follows(1L, 3L));
+        assertFalse(graph.follows(1L, 2L));
+    }
+
+    /**
+     * Method under test: {@link FollowerGraph#unfollowAfterCommit(long, long)}
+     */
+    @Test
+    void testFollowUnfollowAndRemoveUser() {
+        FollowerGraph graph = new FollowerGraph(mock(UserRepository.class));
+        graph.load();
+        graph.followAfterCommit(1L, 2L);
+        graph.followAfterCommit(1L, 3L);
+        graph.followAfterCommit(2L, 3L);
+        assertEquals(2, graph.countFollowing(3L));
+
+        graph.unfollowAfterCommit(1L, 2L);
+        assertFalse(graph.follows(2L, 1L));
+        assertEquals(1, graph.countFollowers(1L));
+
+        graph.removeUserAfterCommit(3L);
+        assertEquals(0, graph.countFollowers(1L));
+        assertEquals(0, graph.countFollowers(2L));
+        assertEquals(0, graph.countFollowing(3L));
+    }
+
+    /**
+     * Method under test: {@link FollowerGraph#load()}
+     */
+    @Test
+    void testChangesDuringLoadWinOverTheSnapshot() {
+        UserRepository userRepository = mock(UserRepository.class);
+        FollowerGraph graph = new FollowerGraph(userRepository);
+        doAnswer(invocation -> {
+            UserRepositoryCustom.FollowConsumer consumer = invocation.getArgument(0);
+            // unfollow committed after the snapshot the rows are read from
+            graph.unfollowAfterCommit(1L, 2L);
+            consumer.accept(1L, 2L);
+            return null;
+        }).when(userRepository).forEachFollow(any());
+        graph.load();
+
+        assertFalse(graph.follows(2L, 1L));
+        assertEquals(0, graph.countFollowers(1L));
+    }
+
+    /**
+     * Method under test: {@link FollowerGraph#followers(long, long, int)}
+     */
+    @Test
+    void testReadsGoToTheDatabaseUntilLoaded() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findFollowerIdsAfter(1L, -1L, 3)).thenReturn(List.of(2L, 3L, 4L));
+        when(userRepository.findFollowingIdsAfter(2L, -1L, 3)).thenReturn(List.of(1L));
+        when(userRepository.countFollowers(1L)).thenReturn(10L);
+        when(userRepository.countFollowing(2L)).thenReturn(1L);
+        when(userRepository.findFollowedAmong(2L, List.of(1L))).thenReturn(List.of(1L));
+        FollowerGraph graph = new FollowerGraph(userRepository);
+
+        assertFalse(graph.isLoaded());
+        assertArrayEquals(new long[]{2L, 3L, 4L}, graph.followers(1L, -1L, 3));
+        assertArrayEquals(new long[]{1L}, graph.following(2L, -1L, 3));
+        assertEquals(10, graph.countFollowers(1L));
+        assertEquals(1, graph.countFollowing(2L));
+        assertTrue(graph.follows(2L, 1L));
+        assertFalse(graph.follows(3L, 1L));
+
+        graph.load();
+        assertEquals(0, graph.countFollowers(1L));
+        assertFalse(graph.follows(2L, 1L));
+    }
+
+    /**
+     * Method under test: {@link FollowerGraph#load()}
+     */
+    @Test
+    void testReloadPicksUpFollowsFromOtherInstances() {
+        UserRepository userRepository = mock(UserRepository.class);
+        FollowerGraph graph = new FollowerGraph(userRepository);
+        graph.load();
+        graph.followAfterCommit(1L, 2L);
+
+        // another instance unfollowed 2 from 1 and followed 3 to 1
+        doAnswer(invocation -> {
+            UserRepositoryCustom.FollowConsumer consumer = invocation.getArgument(0);
+            consumer.accept(1L, 3L);
+            return null;
+        }).when(userRepository).forEachFollow(any());
+        graph.load();
+
+        assertFalse(graph.follows(2L, 1L));
+        assertTrue(graph.follows(3L, 1L));
+        assertArrayEquals(new long[]{3L}, graph.followers(1L, -1L, 10));
+        assertEquals(1, graph.countFollowing(3L));
+        assertEquals(0, graph.countFollowing(2L));
+    }
+}
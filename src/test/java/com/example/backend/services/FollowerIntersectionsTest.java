@@ -0,0 +1,53 @@
+package com.example.backend.services;
+
+import com.example.backend.repositories.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class FollowerIntersectionsTest {
+
+    private final FollowerGraph followerGraph = new FollowerGraph(mock(UserRepository.class));
+    private final FollowerIntersections intersections = new FollowerIntersections(followerGraph, 100, 60000, new SimpleMeterRegistry());
+
+    /**
+     * Method under test: {@link FollowerIntersections#knownFollowers(long, long)}
+     */
+    @Test
+    void testKnownFollowersAreCachedPerPair() {
+        // viewer 1 follows 2..20, of whom the even ones follow 100
+        for (long userId = 2; userId <= 20; userId++) {
+            followerGraph.followAfterCommit(userId, 1L);
+            if (userId % 2 == 0) followerGraph.followAfterCommit(100L, userId);
+        }
+        followerGraph.followAfterCommit(100L, 21L);
+
+        FollowerIntersections.Known known = intersections.knownFollowers(1L, 100L);
+        assertEquals(10, known.count());
+        assertArrayEquals(new long[]{2L, 4L, 6L, 8L, 10L, 12L, 14L, 16L, 18L, 20L}, known.sample());
+
+        followerGraph.followAfterCommit(100L, 3L);
+        assertEquals(10, intersections.knownFollowers(1L, 100L).count());
+        assertEquals(0, intersections.knownFollowers(100L, 1L).count());
+    }
+
+    /**
+     * Method under test: {@link FollowerIntersections#mutuals(long, long, int)}
+     */
+    @Test
+    void testMutuals() {
+        followerGraph.followAfterCommit(1L, 2L);
+        followerGraph.followAfterCommit(2L, 1L);
+        followerGraph.followAfterCommit(1L, 3L);
+        followerGraph.followAfterCommit(1L, 4L);
+        followerGraph.followAfterCommit(4L, 1L);
+        followerGraph.followAfterCommit(5L, 1L);
+
+        assertArrayEquals(new long[]{2L, 4L}, intersections.mutuals(1L, -1L, 10));
+        assertArrayEquals(new long[]{4L}, intersections.mutuals(1L, 2L, 10));
+        assertArrayEquals(new long[]{1L}, intersections.mutuals(2L, -1L, 10));
+    }
+}
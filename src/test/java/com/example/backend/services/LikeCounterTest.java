@@ -0,0 +1,97 @@
+package com.example.backend.services;
+
+import com.example.backend.config.SecondLevelCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class LikeCounterTest {
+
+    /**
+     * Method under test: {@link LikeCounter#flush()}
+     * <p>
+     * 8 threads add +1 deltas for one post at 10k/second for two seconds while the counter keeps flushing; every
+     * delta lands in exactly one flushed batch. Only the buffering is checked, against a mocked JdbcTemplate: the
+     * post_likes deduplication and the likes_count UPDATE need a database.
+     */
+    @Test
+    void testConcurrentDeltasAreCoalescedWithoutLoss() throws InterruptedException {
+        AtomicLong flushed = new AtomicLong();
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        doAnswer(invocation -> {
+            List<Object[]> batch = invocation.getArgument(1);
+            batch.forEach(args -> flushed.addAndGet((Long) args[0]));
+            return new int[batch.size()];
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+        SecondLevelCache secondLevelCache = mock(SecondLevelCache.class);
+        LikeCounter counter = new LikeCounter(jdbcTemplate, secondLevelCache);
+
+        int threads = 8;
+        int likesPerThread = 2_500;
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) * threads / 10_000;
+        ExecutorService likers = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            likers.execute(() -> {
+                long next = System.nanoTime();
+                for (int i = 0; i < likesPerThread; i++) {
+                    counter.add(1L, 1);
+                    next += intervalNanos;
+                    long wait = next - System.nanoTime();
+                    if (wait > 0) LockSupport.parkNanos(wait);
+                }
+                done.countDown();
+            });
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread flusher = new Thread(() -> {
+            while (running.get()) {
+                counter.flush();
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+            }
+        });
+        flusher.start();
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        running.set(false);
+        flusher.join();
+        counter.flush();
+        likers.shutdown();
+
+        assertEquals((long) threads * likesPerThread, flushed.get());
+        verify(jdbcTemplate, atLeast(10)).batchUpdate(anyString(), anyList());
+        verify(secondLevelCache, atLeast(10)).evictPosts(Set.of(1L));
+    }
+
+    /**
+     * Method under test: {@link LikeCounter#flush()}
+     */
+    @Test
+    void testFailedFlushKeepsDeltas() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new CannotGetJdbcConnectionException("down"));
+        SecondLevelCache secondLevelCache = mock(SecondLevelCache.class);
+        LikeCounter counter = new LikeCounter(jdbcTemplate, secondLevelCache);
+        counter.add(1L, 3);
+        counter.add(1L, -1);
+        counter.flush();
+        assertEquals(2, counter.pendingCount(1L));
+        verify(secondLevelCache, never()).evictPosts(any());
+    }
+}
@@ -1,23 +1,37 @@
 package com.example.backend.services;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.example.backend.exceptions.NotificationException;
 import com.example.backend.models.dtos.CreateNotificationRequest;
+import com.example.backend.models.dtos.CursorSlice;
+import com.example.backend.models.dtos.InboxCursor;
+import com.example.backend.models.dtos.NotificationView;
 import com.example.backend.models.entities.Notification;
+import com.example.backend.models.entities.NotificationCounter;
 import com.example.backend.models.entities.Post;
 import com.example.backend.models.entities.User;
 import com.example.backend.models.enums.NotificationType;
 import com.example.backend.models.enums.Role;
+import com.example.backend.repositories.NotificationCounterRepository;
 import com.example.backend.repositories.NotificationRepository;
 
 import java.io.UnsupportedEncodingException;
 import java.time.LocalDate;
 import java.util.HashSet;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Optional;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -33,6 +47,9 @@ class NotificationServiceTest {
     @MockBean
     private NotificationRepository notificationRepository;
 
+    @MockBean
+    private NotificationCounterRepository notificationCounterRepository;
+
     @Autowired
     private NotificationService notificationService;
 
@@ -50,7 +67,7 @@ class NotificationServiceTest {
         user.setId(1L);
         user.setLocked(true);
         user.setPassword("password");
-        user.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user.setProfilePictureKey("AXAXAXAX");
         user.setRole(Role.USER);
         user.setUsername("warl0ck");
 
@@ -70,7 +87,7 @@ class NotificationServiceTest {
         sender.setId(1L);
         sender.setLocked(true);
         sender.setPassword("password");
-        sender.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        sender.setProfilePictureKey("AXAXAXAX");
         sender.setRole(Role.USER);
         sender.setUsername("warl0ck");
 
@@ -83,7 +100,7 @@ class NotificationServiceTest {
         user2.setId(1L);
         user2.setLocked(true);
         user2.setPassword("password");
-        user2.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user2.setProfilePictureKey("AXAXAXAX");
         user2.setRole(Role.USER);
         user2.setUsername("warl0ck");
 
@@ -107,7 +124,7 @@ class NotificationServiceTest {
         user3.setId(1L);
         user3.setLocked(true);
         user3.setPassword("password");
-        user3.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user3.setProfilePictureKey("AXAXAXAX");
         user3.setRole(Role.USER);
         user3.setUsername("warl0ck");
 
@@ -131,7 +148,7 @@ class NotificationServiceTest {
         sender2.setId(1L);
         sender2.setLocked(true);
         sender2.setPassword("password");
-        sender2.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        sender2.setProfilePictureKey("AXAXAXAX");
         sender2.setRole(Role.USER);
         sender2.setUsername("warl0ck");
         CreateNotificationRequest.CreateNotificationRequestBuilder senderResult = postResult.sender(sender2);
@@ -145,7 +162,7 @@ class NotificationServiceTest {
         user4.setId(1L);
         user4.setLocked(true);
         user4.setPassword("password");
-        user4.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user4.setProfilePictureKey("AXAXAXAX");
         user4.setRole(Role.USER);
         user4.setUsername("warl0ck");
         Notification actualCreateNotificationResult = notificationService
@@ -170,7 +187,7 @@ class NotificationServiceTest {
         user.setId(1L);
         user.setLocked(true);
         user.setPassword("password");
-        user.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user.setProfilePictureKey("AXAXAXAX");
         user.setRole(Role.USER);
         user.setUsername("warl0ck");
 
@@ -190,7 +207,7 @@ class NotificationServiceTest {
         user2.setId(1L);
         user2.setLocked(true);
         user2.setPassword("password");
-        user2.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user2.setProfilePictureKey("AXAXAXAX");
         user2.setRole(Role.USER);
         user2.setUsername("warl0ck");
 
@@ -203,7 +220,7 @@ class NotificationServiceTest {
         user3.setId(1L);
         user3.setLocked(true);
         user3.setPassword("password");
-        user3.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user3.setProfilePictureKey("AXAXAXAX");
         user3.setRole(Role.USER);
         user3.setUsername("warl0ck");
         CreateNotificationRequest notificationRequest = mock(CreateNotificationRequest.class);
@@ -218,5 +235,81 @@ class NotificationServiceTest {
         verify(notificationRequest).getUser();
         verify(notificationRepository).save(Mockito.<Notification>any());
     }
-}
 
+    private static NotificationView view(long id, boolean read) {
+        NotificationView view = mock(NotificationView.class);
+        when(view.getId()).thenReturn(id);
+        when(view.getRead()).thenReturn(read);
+        when(view.getCreatedAt()).thenReturn(LocalDate.of(2023, 9, 14).atStartOfDay().plusMinutes(id));
+        return view;
+    }
+
+    /**
+     * Method under test: {@link NotificationService#getInbox(long, String, int)}
+     */
+    @Test
+    void testGetInboxListsUnreadBeforeRead() {
+        NotificationView unread = view(5L, false);
+        NotificationView read = view(9L, true);
+        NotificationView older = view(3L, true);
+        when(notificationRepository.findUnreadInbox(eq(1L), eq(0L), any(), anyLong(), eq(3))).thenReturn(List.of(unread));
+        when(notificationRepository.findReadInbox(eq(1L), eq(0L), any(), anyLong(), eq(2))).thenReturn(List.of(read, older));
+
+        CursorSlice<NotificationView> page = notificationService.getInbox(1L, null, 2);
+        assertEquals(List.of(unread, read), page.getContent());
+        assertTrue(page.isHasNext());
+
+        InboxCursor next = InboxCursor.decode(page.getNextCursor());
+        assertTrue(next.isRead());
+        assertEquals(9L, next.getPosition().getId());
+    }
+
+    /**
+     * Method under test: {@link NotificationService#getUnreadCount(long)}
+     */
+    @Test
+    void testGetUnreadCount() {
+        when(notificationCounterRepository.findById(1L)).thenReturn(Optional.of(new NotificationCounter(1L, 12L, 0L)));
+        assertEquals(12L, notificationService.getUnreadCount(1L));
+        assertEquals(0L, notificationService.getUnreadCount(2L));
+    }
+
+    /**
+     * Method under test: {@link NotificationService#markAllAsRead(long, Long, java.time.LocalDateTime)}
+     */
+    @Test
+    void testMarkAllAsReadMovesTheWatermark() {
+        when(notificationRepository.findLastId(1L)).thenReturn(Optional.of(10_000L));
+        notificationService.markAllAsRead(1L, null, null);
+        verify(notificationCounterRepository).raiseReadWatermark(1L, 10_000L);
+        verify(notificationRepository, never()).save(any());
+    }
+
+    /**
+     * Method under test: {@link NotificationService#markAllAsRead(long, Long, java.time.LocalDateTime)}
+     */
+    @Test
+    void testMarkAllAsReadClampsUpToIdToTheNewestNotification() {
+        when(notificationRepository.findLastId(1L)).thenReturn(Optional.of(10_000L));
+        notificationService.markAllAsRead(1L, Long.MAX_VALUE, null);
+        verify(notificationCounterRepository).raiseReadWatermark(1L, 10_000L);
+
+        notificationService.markAllAsRead(1L, 500L, null);
+        verify(notificationCounterRepository).raiseReadWatermark(1L, 500L);
+
+        // no notifications yet, nothing to mark
+        when(notificationRepository.findLastId(2L)).thenReturn(Optional.empty());
+        notificationService.markAllAsRead(2L, 500L, null);
+        verify(notificationCounterRepository, never()).raiseReadWatermark(eq(2L), anyLong());
+    }
+
+    /**
+     * Method under test: {@link NotificationService#markNotificationsAsRead(long, List)}
+     */
+    @Test
+    void testMarkNotificationsAsRead() {
+        notificationService.markNotificationsAsRead(1L, List.of(4L, 5L, 6L));
+        verify(notificationRepository).markAsRead(1L, List.of(4L, 5L, 6L));
+        assertThrows(NotificationException.class, () -> notificationService.markNotificationsAsRead(1L, List.of()));
+    }
+}
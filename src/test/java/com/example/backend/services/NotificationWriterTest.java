@@ -0,0 +1,134 @@
+package com.example.backend.services;
+
+import com.example.backend.models.enums.NotificationType;
+import com.example.backend.models.events.NotificationEvent;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class NotificationWriterTest {
+
+    private static NotificationEvent like(long senderId, long postId) {
+        return new NotificationEvent(1L, senderId, postId, NotificationType.LIKE, LocalDateTime.now());
+    }
+
+    /**
+     * Method under test: {@link NotificationWriter#flush()}
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlushCoalescesLikesOnTheSamePost() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        NotificationWriter writer = new NotificationWriter(jdbcTemplate, mock(PlatformTransactionManager.class), 100, 1000, 3);
+        for (long sender = 2; sender < 52; sender++) {
+            writer.onNotification(like(sender, 7L));
+        }
+        writer.onNotification(new NotificationEvent(1L, 60L, 7L, NotificationType.COMMENT, LocalDateTime.now()));
+        writer.flush();
+
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), batch.capture());
+        List<Object[]> notifications = batch.getAllValues().get(0);
+        assertEquals(2, notifications.size());
+        Object[] likes = notifications.get(0);
+        assertEquals(51L, likes[1]);
+        assertEquals("LIKE", likes[3]);
+        assertEquals(50, likes[4]);
+        assertEquals(0, writer.pending());
+
+        // both rows go to recipient 1
+        List<Object[]> counters = batch.getAllValues().get(1);
+        assertEquals(1, counters.size());
+        assertEquals(2L, counters.get(0)[1]);
+    }
+
+    /**
+     * Method under test: {@link NotificationWriter#onNotification(NotificationEvent)}
+     */
+    @Test
+    void testFullQueueWritesDirectly() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        NotificationWriter writer = new NotificationWriter(jdbcTemplate, mock(PlatformTransactionManager.class), 1, 1000, 3);
+        writer.onNotification(like(2L, 7L));
+        verifyNoInteractions(jdbcTemplate);
+        writer.onNotification(like(3L, 8L));
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+        assertEquals(1, writer.pending());
+    }
+
+    /**
+     * Method under test: {@link NotificationWriter#flush()}
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRejectedRowDoesNotSinkTheBatch() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        // the post of the second like was deleted before the flush
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            if (rows.stream().anyMatch(row -> row.length > 2 && Long.valueOf(8L).equals(row[2]))) {
+                throw new DataIntegrityViolationException("violates foreign key constraint");
+            }
+            return new int[rows.size()];
+        });
+        NotificationWriter writer = new NotificationWriter(jdbcTemplate, mock(PlatformTransactionManager.class), 100, 1000, 3);
+        writer.onNotification(like(2L, 7L));
+        writer.onNotification(like(3L, 8L));
+        writer.onNotification(like(4L, 9L));
+        writer.flush();
+
+        assertEquals(0, writer.failed());
+        assertEquals(0, writer.pending());
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(6)).batchUpdate(anyString(), batch.capture());
+        // the whole batch, then each row with its counter, the rejected row has no counter
+        List<Long> written = batch.getAllValues().stream()
+                .filter(rows -> rows.get(0).length > 2)
+                .map(rows -> (Long) rows.get(0)[2])
+                .toList();
+        assertEquals(List.of(7L, 7L, 8L, 9L), written);
+    }
+
+    /**
+     * Method under test: {@link NotificationWriter#flush()}
+     */
+    @Test
+    void testFailedBatchIsRetriedThenDropped() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new IllegalStateException("connection refused"));
+        NotificationWriter writer = new NotificationWriter(jdbcTemplate, mock(PlatformTransactionManager.class), 100, 1000, 3);
+        writer.onNotification(like(2L, 7L));
+        writer.onNotification(like(3L, 8L));
+
+        writer.flush();
+        assertEquals(2, writer.failed());
+        assertEquals(0, writer.pending());
+
+        // the database can not be reached, so newer events stay queued
+        writer.onNotification(like(4L, 9L));
+        writer.flush();
+        assertEquals(2, writer.failed());
+        assertEquals(1, writer.pending());
+
+        writer.flush();
+        assertEquals(0, writer.failed());
+        // every flush tries the batch and then its first row
+        verify(jdbcTemplate, times(6)).batchUpdate(anyString(), anyList());
+
+        // the database is back, the queued event goes out
+        reset(jdbcTemplate);
+        writer.flush();
+        assertEquals(0, writer.pending());
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+    }
+}
@@ -1,13 +1,18 @@
 package com.example.backend.services;
 
 import com.example.backend.exceptions.PostException;
+import com.example.backend.exceptions.PostNotFoundException;
+import com.example.backend.models.dtos.BulkImportResponse;
 import com.example.backend.models.dtos.CreatePostRequest;
 import com.example.backend.models.dtos.CreatePostResponse;
 import com.example.backend.models.entities.Post;
 import com.example.backend.models.entities.User;
 import com.example.backend.models.enums.Role;
 import com.example.backend.repositories.CommentRepository;
+import com.example.backend.repositories.PostLikeRepository;
 import com.example.backend.repositories.PostRepository;
+import com.example.backend.services.LikeCounter;
+import com.example.backend.services.NotificationService;
 import com.example.backend.services.PostService;
 import com.example.backend.services.UserService;
 import org.junit.jupiter.api.Test;
@@ -15,6 +20,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -22,6 +28,9 @@ import java.io.UnsupportedEncodingException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -43,6 +52,18 @@ class PostServiceTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private NotificationService notificationService;
+
+    @MockBean
+    private PostLikeRepository postLikeRepository;
+
+    @MockBean
+    private LikeCounter likeCounter;
+
+    @MockBean
+    private CascadeDeleter cascadeDeleter;
+
     /**
      * Method under test: {@link PostService#createPost(CreatePostRequest)}
      */
@@ -57,7 +78,7 @@ class PostServiceTest {
         user.setId(1L);
         user.setLocked(true);
         user.setPassword("password");
-        user.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user.setProfilePictureKey("AXAXAXAX");
         user.setRole(Role.USER);
         user.setUsername("warl0ck");
 
@@ -78,7 +99,7 @@ class PostServiceTest {
         user2.setId(1L);
         user2.setLocked(true);
         user2.setPassword("password");
-        user2.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user2.setProfilePictureKey("AXAXAXAX");
         user2.setRole(Role.USER);
         user2.setUsername("warl0ck");
         when(userService.getUser(anyLong())).thenReturn(user2);
@@ -118,7 +139,7 @@ class PostServiceTest {
         user.setId(1L);
         user.setLocked(true);
         user.setPassword("password");
-        user.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user.setProfilePictureKey("AXAXAXAX");
         user.setRole(Role.USER);
         user.setUsername("warl0ck");
         Post post = mock(Post.class);
@@ -144,7 +165,7 @@ class PostServiceTest {
         user2.setId(1L);
         user2.setLocked(true);
         user2.setPassword("password");
-        user2.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user2.setProfilePictureKey("AXAXAXAX");
         user2.setRole(Role.USER);
         user2.setUsername("warl0ck");
         when(userService.getUser(anyLong())).thenReturn(user2);
@@ -179,7 +200,7 @@ class PostServiceTest {
         user.setId(1L);
         user.setLocked(true);
         user.setPassword("password");
-        user.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user.setProfilePictureKey("AXAXAXAX");
         user.setRole(Role.USER);
         user.setUsername("warl0ck");
         Post post = mock(Post.class);
@@ -206,7 +227,7 @@ class PostServiceTest {
         doNothing().when(user2).setId(Mockito.<Long>any());
         doNothing().when(user2).setLocked(Mockito.<Boolean>any());
         doNothing().when(user2).setPassword(Mockito.<String>any());
-        doNothing().when(user2).setProfilePicture(Mockito.<byte[]>any());
+        doNothing().when(user2).setProfilePictureKey(Mockito.<String>any());
         doNothing().when(user2).setRole(Mockito.<Role>any());
         doNothing().when(user2).setUsername(Mockito.<String>any());
         user2.setCreationDate(LocalDate.of(1970, 1, 1).atStartOfDay());
@@ -217,7 +238,7 @@ class PostServiceTest {
         user2.setId(1L);
         user2.setLocked(true);
         user2.setPassword("password");
-        user2.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user2.setProfilePictureKey("AXAXAXAX");
         user2.setRole(Role.USER);
         user2.setUsername("warl0ck");
         when(userService.getUser(anyLong())).thenReturn(user2);
@@ -239,7 +260,7 @@ class PostServiceTest {
         verify(user2).setId(Mockito.<Long>any());
         verify(user2).setLocked(Mockito.<Boolean>any());
         verify(user2).setPassword(Mockito.<String>any());
-        verify(user2).setProfilePicture(Mockito.<byte[]>any());
+        verify(user2).setProfilePictureKey(Mockito.<String>any());
         verify(user2).setRole(Mockito.<Role>any());
         verify(user2).setUsername(Mockito.<String>any());
         verify(userService).getUser(anyLong());
@@ -250,5 +271,103 @@ class PostServiceTest {
         assertEquals(1L, actualCreatePostResult.getUserId());
         assertEquals(1L, actualCreatePostResult.getPostId().longValue());
     }
-}
 
+    /**
+     * Method under test: {@link PostService#likePost(long, long)}
+     */
+    @Test
+    void testLikePost() {
+        User user = new User();
+        user.setId(2L);
+        Post post = Post.builder().id(1L).content("Not all who wander are lost").user(new User()).build();
+        when(postRepository.findById(1L)).thenReturn(Optional.of(post));
+        when(userService.getUser(2L)).thenReturn(user);
+        when(postLikeRepository.insertIfAbsent(1L, 2L)).thenReturn(1);
+        postService.likePost(1L, 2L);
+        verify(likeCounter).addAfterCommit(1L, 1);
+        verify(notificationService).publishNotification(any());
+        assertEquals(0, post.getLikesCount());
+    }
+
+    /**
+     * Method under test: {@link PostService#likePost(long, long)}
+     */
+    @Test
+    void testLikePostTwiceIsCountedOnce() {
+        Post post = Post.builder().id(1L).content("Not all who wander are lost").user(new User()).build();
+        when(postRepository.findById(1L)).thenReturn(Optional.of(post));
+        when(userService.getUser(2L)).thenReturn(new User());
+        when(postLikeRepository.insertIfAbsent(1L, 2L)).thenReturn(0);
+        postService.likePost(1L, 2L);
+        verify(likeCounter, never()).addAfterCommit(anyLong(), anyLong());
+        verify(notificationService, never()).publishNotification(any());
+    }
+
+    /**
+     * Method under test: {@link PostService#searchPosts(String, int, int, String, Sort.Direction)}
+     */
+    @Test
+    void testSearchPostsUsesPrefixQuery() {
+        postService.searchPosts("  Spring, boo", 0, 10, "relevance", Sort.Direction.DESC);
+        verify(postRepository).searchPostsByRelevance(eq("spring & boo:*"), any());
+
+        postService.searchPosts("spring", 0, 10, "creationDate", Sort.Direction.DESC);
+        verify(postRepository).searchPosts(eq("spring:*"), any());
+    }
+
+    /**
+     * Method under test: {@link PostService#searchPosts(String, int, int, String, Sort.Direction)}
+     */
+    @Test
+    void testSearchPostsRejectsPunctuationOnlyKeyword() {
+        assertThrows(PostException.class, () -> postService.searchPosts("&!:*", 0, 10, "creationDate", Sort.Direction.DESC));
+        assertThrows(PostException.class, () -> postService.searchPosts("spring", 0, 10, "content", Sort.Direction.DESC));
+    }
+
+    /**
+     * Method under test: {@link PostService#deletePost(Long)}
+     */
+    @Test
+    void testDeletePost() {
+        Post post = Post.builder().id(1L).content("Not all who wander are lost").user(new User()).build();
+        when(postRepository.findById(1L)).thenReturn(Optional.of(post));
+        postService.deletePost(1L);
+        verify(cascadeDeleter).deletePost(1L);
+        verify(postRepository, never()).delete(any());
+        verify(commentRepository, never()).deleteAll(any());
+    }
+
+    /**
+     * Method under test: {@link PostService#deletePost(Long)}
+     */
+    @Test
+    void testDeleteMissingPost() {
+        when(postRepository.findById(1L)).thenReturn(Optional.empty());
+        assertThrows(PostNotFoundException.class, () -> postService.deletePost(1L));
+        verify(cascadeDeleter, never()).deletePost(anyLong());
+    }
+
+    /**
+     * Method under test: {@link PostService#importPosts(List)}
+     */
+    @Test
+    void testImportPosts() {
+        User user = new User();
+        user.setId(1L);
+        when(userService.getUsers(Set.of(1L))).thenReturn(Map.of(1L, user));
+        when(postRepository.saveAll(Mockito.<List<Post>>any())).thenAnswer(invocation -> {
+            List<Post> posts = invocation.getArgument(0);
+            for (int i = 0; i < posts.size(); i++) posts.get(i).setId(100L + i);
+            return posts;
+        });
+
+        BulkImportResponse response = postService.importPosts(List.of(
+                new CreatePostRequest("first", 1L),
+                new CreatePostRequest("second", 1L)));
+
+        assertEquals(2, response.getImported());
+        assertEquals(List.of(100L, 101L), response.getIds());
+        verify(postRepository).saveAll(Mockito.<List<Post>>any());
+        assertThrows(PostException.class, () -> postService.importPosts(List.of(new CreatePostRequest("third", null))));
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.backend.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SearchQueriesTest {
+
+    /**
+     * Method under test: {@link SearchQueries#toPrefixQuery(String)}
+     */
+    @Test
+    void testToPrefixQuery() {
+        assertEquals(Optional.of("spring & boo:*"), SearchQueries.toPrefixQuery("  Spring, boo"));
+        assertEquals(Optional.of("o & neil:*"), SearchQueries.toPrefixQuery("O'Neil"));
+        assertEquals(Optional.empty(), SearchQueries.toPrefixQuery("&!:*"));
+        assertEquals(Optional.empty(), SearchQueries.toPrefixQuery(null));
+    }
+}
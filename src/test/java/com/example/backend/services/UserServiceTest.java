@@ -8,21 +8,24 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.doNothing;
-import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.example.backend.config.JwtDenyList;
 import com.example.backend.config.JwtService;
+import com.example.backend.config.JwtTokenCache;
+import com.example.backend.config.SecondLevelCache;
 import com.example.backend.exceptions.UserException;
 import com.example.backend.exceptions.UserNotFoundException;
 import com.example.backend.models.dtos.*;
-import com.example.backend.models.entities.Post;
 import com.example.backend.models.entities.User;
 import com.example.backend.models.enums.Role;
 import com.example.backend.repositories.CommentRepository;
 import com.example.backend.repositories.PostRepository;
 import com.example.backend.repositories.UserRepository;
+import com.example.backend.storage.PictureStorage;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -30,7 +33,9 @@ import java.io.UnsupportedEncodingException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -39,6 +44,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -68,6 +74,33 @@ class UserServiceTest {
     @MockBean
     private JwtService jwtService;
 
+    @MockBean
+    private JwtTokenCache tokenCache;
+
+    @MockBean
+    private JwtDenyList denyList;
+
+    @MockBean
+    private PictureStorage pictureStorage;
+
+    @MockBean
+    private UsernameIndex usernameIndex;
+
+    @MockBean
+    private CascadeDeleter cascadeDeleter;
+
+    @MockBean
+    private FollowerGraph followerGraph;
+
+    @MockBean
+    private SecondLevelCache secondLevelCache;
+
+    @MockBean
+    private FollowerIntersections followerIntersections;
+
+    @MockBean
+    private FollowRecommendations followRecommendations;
+
     @MockBean
     private PasswordEncoder passwordEncoder;
 
@@ -94,11 +127,11 @@ class UserServiceTest {
         user.setId(1L);
         user.setLocked(true);
         user.setPassword("password");
-        user.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user.setProfilePictureKey("AXAXAXAX");
         user.setRole(Role.USER);
         user.setUsername("warl0ck");
         Optional<User> ofResult = Optional.of(user);
-        when(userRepository.findByEmail(Mockito.<String>any())).thenReturn(ofResult);
+        when(userRepository.findByEmailNaturalId(Mockito.<String>any())).thenReturn(ofResult);
         when(jwtService.generateRefreshToken(Mockito.<UserDetails>any())).thenReturn("ABC123");
         when(jwtService.generateToken(Mockito.<UserDetails>any())).thenReturn("ABC123");
         when(authenticationManager.authenticate(Mockito.<Authentication>any()))
@@ -107,7 +140,7 @@ class UserServiceTest {
                 .loginUser(new AuthenticationRequest("bashir.okala@hotmail.com", "password"));
         verify(jwtService).generateRefreshToken(Mockito.<UserDetails>any());
         verify(jwtService).generateToken(Mockito.<UserDetails>any());
-        verify(userRepository).findByEmail(Mockito.<String>any());
+        verify(userRepository).findByEmailNaturalId(Mockito.<String>any());
         verify(authenticationManager).authenticate(Mockito.<Authentication>any());
         assertEquals("1", actualLoginUserResult.getUserId());
         assertEquals("ABC123", actualLoginUserResult.getAccessToken());
@@ -145,7 +178,7 @@ class UserServiceTest {
         doNothing().when(user).setId(Mockito.<Long>any());
         doNothing().when(user).setLocked(Mockito.<Boolean>any());
         doNothing().when(user).setPassword(Mockito.<String>any());
-        doNothing().when(user).setProfilePicture(Mockito.<byte[]>any());
+        doNothing().when(user).setProfilePictureKey(Mockito.<String>any());
         doNothing().when(user).setRole(Mockito.<Role>any());
         doNothing().when(user).setUsername(Mockito.<String>any());
         user.setCreationDate(LocalDate.of(1970, 1, 1).atStartOfDay());
@@ -156,11 +189,11 @@ class UserServiceTest {
         user.setId(1L);
         user.setLocked(true);
         user.setPassword("password");
-        user.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user.setProfilePictureKey("AXAXAXAX");
         user.setRole(Role.USER);
         user.setUsername("warl0ck");
         Optional<User> ofResult = Optional.of(user);
-        when(userRepository.findByEmail(Mockito.<String>any())).thenReturn(ofResult);
+        when(userRepository.findByEmailNaturalId(Mockito.<String>any())).thenReturn(ofResult);
         when(jwtService.generateRefreshToken(Mockito.<UserDetails>any())).thenReturn("ABC123");
         when(jwtService.generateToken(Mockito.<UserDetails>any())).thenReturn("ABC123");
         when(authenticationManager.authenticate(Mockito.<Authentication>any()))
@@ -179,10 +212,10 @@ class UserServiceTest {
         verify(user).setId(Mockito.<Long>any());
         verify(user).setLocked(Mockito.<Boolean>any());
         verify(user).setPassword(Mockito.<String>any());
-        verify(user).setProfilePicture(Mockito.<byte[]>any());
+        verify(user).setProfilePictureKey(Mockito.<String>any());
         verify(user).setRole(Mockito.<Role>any());
         verify(user).setUsername(Mockito.<String>any());
-        verify(userRepository).findByEmail(Mockito.<String>any());
+        verify(userRepository).findByEmailNaturalId(Mockito.<String>any());
         verify(authenticationManager).authenticate(Mockito.<Authentication>any());
         assertEquals("1", actualLoginUserResult.getUserId());
         assertEquals("ABC123", actualLoginUserResult.getAccessToken());
@@ -198,12 +231,12 @@ class UserServiceTest {
     @Test
     void testLoginUser4() throws AuthenticationException {
         Optional<User> emptyResult = Optional.empty();
-        when(userRepository.findByEmail(Mockito.<String>any())).thenReturn(emptyResult);
+        when(userRepository.findByEmailNaturalId(Mockito.<String>any())).thenReturn(emptyResult);
         when(authenticationManager.authenticate(Mockito.<Authentication>any()))
                 .thenReturn(new TestingAuthenticationToken("Principal", "Credentials"));
         assertThrows(UserNotFoundException.class,
                 () -> userService.loginUser(new AuthenticationRequest("bashir.okala@hotmail.com", "password")));
-        verify(userRepository).findByEmail(Mockito.<String>any());
+        verify(userRepository).findByEmailNaturalId(Mockito.<String>any());
         verify(authenticationManager).authenticate(Mockito.<Authentication>any());
     }
 
@@ -299,7 +332,7 @@ class UserServiceTest {
         user.setId(1L);
         user.setLocked(true);
         user.setPassword("password");
-        user.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user.setProfilePictureKey("AXAXAXAX");
         user.setRole(Role.USER);
         user.setUsername("warl0ck");
         Optional<User> ofResult = Optional.of(user);
@@ -345,7 +378,7 @@ class UserServiceTest {
         user.setId(1L);
         user.setLocked(true);
         user.setPassword("password");
-        user.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user.setProfilePictureKey("AXAXAXAX");
         user.setRole(Role.USER);
         user.setUsername("warl0ck");
         Optional<User> ofResult = Optional.of(user);
@@ -359,7 +392,7 @@ class UserServiceTest {
         user2.setId(1L);
         user2.setLocked(true);
         user2.setPassword("password");
-        user2.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user2.setProfilePictureKey("AXAXAXAX");
         user2.setRole(Role.USER);
         user2.setUsername("warl0ck");
         when(userRepository.save(Mockito.<User>any())).thenReturn(user2);
@@ -384,7 +417,7 @@ class UserServiceTest {
         user.setId(1L);
         user.setLocked(true);
         user.setPassword("password");
-        user.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user.setProfilePictureKey("AXAXAXAX");
         user.setRole(Role.USER);
         user.setUsername("warl0ck");
         Optional<User> ofResult = Optional.of(user);
@@ -410,7 +443,7 @@ class UserServiceTest {
         doNothing().when(user).setId(Mockito.<Long>any());
         doNothing().when(user).setLocked(Mockito.<Boolean>any());
         doNothing().when(user).setPassword(Mockito.<String>any());
-        doNothing().when(user).setProfilePicture(Mockito.<byte[]>any());
+        doNothing().when(user).setProfilePictureKey(Mockito.<String>any());
         doNothing().when(user).setRole(Mockito.<Role>any());
         doNothing().when(user).setUsername(Mockito.<String>any());
         user.setCreationDate(LocalDate.of(1970, 1, 1).atStartOfDay());
@@ -421,7 +454,7 @@ class UserServiceTest {
         user.setId(1L);
         user.setLocked(true);
         user.setPassword("password");
-        user.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user.setProfilePictureKey("AXAXAXAX");
         user.setRole(Role.USER);
         user.setUsername("warl0ck");
         Optional<User> ofResult = Optional.of(user);
@@ -435,7 +468,7 @@ class UserServiceTest {
         user2.setId(1L);
         user2.setLocked(true);
         user2.setPassword("password");
-        user2.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user2.setProfilePictureKey("AXAXAXAX");
         user2.setRole(Role.USER);
         user2.setUsername("warl0ck");
         when(userRepository.save(Mockito.<User>any())).thenReturn(user2);
@@ -450,7 +483,7 @@ class UserServiceTest {
         verify(user).setId(Mockito.<Long>any());
         verify(user).setLocked(Mockito.<Boolean>any());
         verify(user).setPassword(Mockito.<String>any());
-        verify(user).setProfilePicture(Mockito.<byte[]>any());
+        verify(user).setProfilePictureKey(Mockito.<String>any());
         verify(user).setRole(Mockito.<Role>any());
         verify(user, atLeast(1)).setUsername(Mockito.<String>any());
         verify(userRepository).findById(Mockito.<Long>any());
@@ -472,7 +505,7 @@ class UserServiceTest {
         user.setId(1L);
         user.setLocked(true);
         user.setPassword("password");
-        user.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user.setProfilePictureKey("AXAXAXAX");
         user.setRole(Role.USER);
         user.setUsername("warl0ck");
         Optional<User> ofResult = Optional.of(user);
@@ -486,13 +519,13 @@ class UserServiceTest {
         user2.setId(1L);
         user2.setLocked(true);
         user2.setPassword("password");
-        user2.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user2.setProfilePictureKey("AXAXAXAX");
         user2.setRole(Role.USER);
         user2.setUsername("warl0ck");
         when(userRepository.save(Mockito.<User>any())).thenReturn(user2);
         when(userRepository.findById(Mockito.<Long>any())).thenReturn(ofResult);
         User actualUploadProfilePictureResult = userService.uploadProfilePicture(1L,
-                new MockMultipartFile("Name", new ByteArrayInputStream("AXAXAXAX".getBytes("UTF-8"))));
+                new MockMultipartFile("Name", "Name.png", "image/png", new ByteArrayInputStream("AXAXAXAX".getBytes("UTF-8"))));
         verify(userRepository).findById(Mockito.<Long>any());
         verify(userRepository).save(Mockito.<User>any());
         assertSame(user2, actualUploadProfilePictureResult);
@@ -512,14 +545,14 @@ class UserServiceTest {
         user.setId(1L);
         user.setLocked(true);
         user.setPassword("password");
-        user.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user.setProfilePictureKey("AXAXAXAX");
         user.setRole(Role.USER);
         user.setUsername("warl0ck");
         Optional<User> ofResult = Optional.of(user);
         when(userRepository.save(Mockito.<User>any())).thenThrow(new UserException("An error occurred"));
         when(userRepository.findById(Mockito.<Long>any())).thenReturn(ofResult);
         assertThrows(UserException.class, () -> userService.uploadProfilePicture(1L,
-                new MockMultipartFile("Name", new ByteArrayInputStream("AXAXAXAX".getBytes("UTF-8")))));
+                new MockMultipartFile("Name", "Name.png", "image/png", new ByteArrayInputStream("AXAXAXAX".getBytes("UTF-8")))));
         verify(userRepository).findById(Mockito.<Long>any());
         verify(userRepository).save(Mockito.<User>any());
     }
@@ -538,7 +571,7 @@ class UserServiceTest {
         doNothing().when(user).setId(Mockito.<Long>any());
         doNothing().when(user).setLocked(Mockito.<Boolean>any());
         doNothing().when(user).setPassword(Mockito.<String>any());
-        doNothing().when(user).setProfilePicture(Mockito.<byte[]>any());
+        doNothing().when(user).setProfilePictureKey(Mockito.<String>any());
         doNothing().when(user).setRole(Mockito.<Role>any());
         doNothing().when(user).setUsername(Mockito.<String>any());
         user.setCreationDate(LocalDate.of(1970, 1, 1).atStartOfDay());
@@ -549,7 +582,7 @@ class UserServiceTest {
         user.setId(1L);
         user.setLocked(true);
         user.setPassword("password");
-        user.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user.setProfilePictureKey("AXAXAXAX");
         user.setRole(Role.USER);
         user.setUsername("warl0ck");
         Optional<User> ofResult = Optional.of(user);
@@ -563,13 +596,13 @@ class UserServiceTest {
         user2.setId(1L);
         user2.setLocked(true);
         user2.setPassword("password");
-        user2.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user2.setProfilePictureKey("AXAXAXAX");
         user2.setRole(Role.USER);
         user2.setUsername("warl0ck");
         when(userRepository.save(Mockito.<User>any())).thenReturn(user2);
         when(userRepository.findById(Mockito.<Long>any())).thenReturn(ofResult);
         User actualUploadProfilePictureResult = userService.uploadProfilePicture(1L,
-                new MockMultipartFile("Name", new ByteArrayInputStream("AXAXAXAX".getBytes("UTF-8"))));
+                new MockMultipartFile("Name", "Name.png", "image/png", new ByteArrayInputStream("AXAXAXAX".getBytes("UTF-8"))));
         verify(user).setCreationDate(Mockito.<LocalDateTime>any());
         verify(user).setEmail(Mockito.<String>any());
         verify(user).setEnabled(Mockito.<Boolean>any());
@@ -578,13 +611,26 @@ class UserServiceTest {
         verify(user).setId(Mockito.<Long>any());
         verify(user).setLocked(Mockito.<Boolean>any());
         verify(user).setPassword(Mockito.<String>any());
-        verify(user, atLeast(1)).setProfilePicture(Mockito.<byte[]>any());
+        verify(user, atLeast(1)).setProfilePictureKey(Mockito.<String>any());
         verify(user).setRole(Mockito.<Role>any());
         verify(user).setUsername(Mockito.<String>any());
         verify(userRepository).findById(Mockito.<Long>any());
         verify(userRepository).save(Mockito.<User>any());
         assertSame(user2, actualUploadProfilePictureResult);
     }
+    /**
+     * Method under test: {@link UserService#getUsers(java.util.Collection)}
+     */
+    @Test
+    void testGetUsersReportsMissingIds() {
+        User user = new User();
+        user.setId(1L);
+        when(userRepository.findAllById(Mockito.<Iterable<Long>>any())).thenReturn(List.of(user));
+        assertEquals(1, userService.getUsers(Set.of(1L)).size());
+        UserNotFoundException exception = assertThrows(UserNotFoundException.class, () -> userService.getUsers(List.of(1L, 2L)));
+        assertEquals("users with ids [2] not found", exception.getMessage());
+    }
+
     /**
      * Method under test: {@link UserService#deleteUser(long)}
      */
@@ -599,19 +645,19 @@ class UserServiceTest {
         user.setId(1L);
         user.setLocked(true);
         user.setPassword("password");
-        user.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user.setProfilePictureKey("AXAXAXAX");
         user.setRole(Role.USER);
         user.setUsername("warl0ck");
         Optional<User> ofResult = Optional.of(user);
-        doNothing().when(userRepository).delete(Mockito.<User>any());
         when(userRepository.findById(Mockito.<Long>any())).thenReturn(ofResult);
-        when(postRepository.findAllByUser(Mockito.<User>any())).thenReturn(new ArrayList<>());
-        when(commentRepository.findAllByUser(Mockito.<User>any())).thenReturn(new ArrayList<>());
+        when(cascadeDeleter.deleteUser(anyLong())).thenReturn(12L);
         userService.deleteUser(1L);
-        verify(commentRepository).findAllByUser(Mockito.<User>any());
-        verify(postRepository).findAllByUser(Mockito.<User>any());
-        verify(userRepository).delete(Mockito.<User>any());
+        verify(cascadeDeleter).deleteUser(1L);
         verify(userRepository).findById(Mockito.<Long>any());
+        verify(tokenCache).invalidateUser("bashir.okala@hotmail.com");
+        verify(denyList).revoke(1L);
+        verify(usernameIndex).removeAfterCommit(1L);
+        verify(pictureStorage).delete("AXAXAXAX");
     }
 
     /**
@@ -628,16 +674,14 @@ class UserServiceTest {
         user.setId(1L);
         user.setLocked(true);
         user.setPassword("password");
-        user.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user.setProfilePictureKey("AXAXAXAX");
         user.setRole(Role.USER);
         user.setUsername("warl0ck");
         Optional<User> ofResult = Optional.of(user);
         when(userRepository.findById(Mockito.<Long>any())).thenReturn(ofResult);
-        when(postRepository.findAllByUser(Mockito.<User>any())).thenReturn(new ArrayList<>());
-        when(commentRepository.findAllByUser(Mockito.<User>any())).thenThrow(new UserException("An error occurred"));
+        when(cascadeDeleter.deleteUser(anyLong())).thenThrow(new UserException("An error occurred"));
         assertThrows(UserException.class, () -> userService.deleteUser(1L));
-        verify(commentRepository).findAllByUser(Mockito.<User>any());
-        verify(postRepository).findAllByUser(Mockito.<User>any());
+        verify(cascadeDeleter).deleteUser(1L);
         verify(userRepository).findById(Mockito.<Long>any());
     }
 
@@ -653,10 +697,10 @@ class UserServiceTest {
     }
 
     /**
-     * Method under test: {@link UserService#deleteUser(long)}
+     * Method under test: {@link UserService#deleteUserAsync(long)}
      */
     @Test
-    void testDeleteUser4() throws UnsupportedEncodingException {
+    void testDeleteUserAsync() throws UnsupportedEncodingException {
         User user = new User();
         user.setCreationDate(LocalDate.of(1970, 1, 1).atStartOfDay());
         user.setEmail("bashir.okala@hotmail.com");
@@ -664,66 +708,20 @@ class UserServiceTest {
         user.setFollowers(new HashSet<>());
         user.setFollowing(new HashSet<>());
         user.setId(1L);
-        user.setLocked(true);
+        user.setLocked(false);
         user.setPassword("password");
-        user.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user.setProfilePictureKey("AXAXAXAX");
         user.setRole(Role.USER);
         user.setUsername("warl0ck");
         Optional<User> ofResult = Optional.of(user);
-        doNothing().when(userRepository).delete(Mockito.<User>any());
         when(userRepository.findById(Mockito.<Long>any())).thenReturn(ofResult);
-
-        User user2 = new User();
-        user2.setCreationDate(LocalDate.of(1970, 1, 1).atStartOfDay());
-        user2.setEmail("bashir.okala@hotmail.com");
-        user2.setEnabled(true);
-        user2.setFollowers(new HashSet<>());
-        user2.setFollowing(new HashSet<>());
-        user2.setId(1L);
-        user2.setLocked(true);
-        user2.setPassword("password");
-        user2.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
-        user2.setRole(Role.USER);
-        user2.setUsername("warl0ck");
-
-        Post post = new Post();
-        post.setContent("Not all who wander are lost");
-        post.setCreationDate(LocalDate.of(1970, 1, 1).atStartOfDay());
-        post.setId(1L);
-        post.setLikesCount(3);
-        post.setUser(user2);
-
-        ArrayList<Post> postList = new ArrayList<>();
-        postList.add(post);
-
-        User user3 = new User();
-        user3.setCreationDate(LocalDate.of(1970, 1, 1).atStartOfDay());
-        user3.setEmail("bashir.okala@hotmail.com");
-        user3.setEnabled(true);
-        user3.setFollowers(new HashSet<>());
-        user3.setFollowing(new HashSet<>());
-        user3.setId(1L);
-        user3.setLocked(true);
-        user3.setPassword("password");
-        user3.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
-        user3.setRole(Role.USER);
-        user3.setUsername("warl0ck");
-
-        Post post2 = new Post();
-        post2.setContent("Not all who wander are lost");
-        post2.setCreationDate(LocalDate.of(1970, 1, 1).atStartOfDay());
-        post2.setId(1L);
-        post2.setLikesCount(3);
-        post2.setUser(user3);
-        when(postRepository.save(Mockito.<Post>any())).thenReturn(post2);
-        when(postRepository.findAllByUser(Mockito.<User>any())).thenReturn(postList);
-        when(commentRepository.findAllByUser(Mockito.<User>any())).thenReturn(new ArrayList<>());
-        userService.deleteUser(1L);
-        verify(commentRepository).findAllByUser(Mockito.<User>any());
-        verify(postRepository).findAllByUser(Mockito.<User>any());
-        verify(userRepository).delete(Mockito.<User>any());
-        verify(userRepository).findById(Mockito.<Long>any());
-        verify(postRepository).save(Mockito.<Post>any());
+        DeletionJob deletionJob = new DeletionJob("42", CascadeDeleter.USER, 1L);
+        when(cascadeDeleter.submitUserDeletion(anyLong(), Mockito.<Runnable>any())).thenReturn(deletionJob);
+        assertSame(deletionJob, userService.deleteUserAsync(1L));
+        assertTrue(user.getLocked());
+        verify(userRepository).save(user);
+        verify(denyList).revoke(1L);
+        verify(cascadeDeleter).submitUserDeletion(anyLong(), Mockito.<Runnable>any());
     }
 
     /**
@@ -731,9 +729,8 @@ class UserServiceTest {
      */
     @Test
     void testFollowUser() {
-        when(userRepository.existsById(Mockito.<Long>any())).thenReturn(true);
         assertThrows(UserException.class, () -> userService.followUser(1L, 1L));
-        verify(userRepository).existsById(Mockito.<Long>any());
+        verify(userRepository, never()).insertUserFollower(Mockito.<Long>any(), Mockito.<Long>any());
     }
 
     /**
@@ -741,9 +738,10 @@ class UserServiceTest {
      */
     @Test
     void testFollowUser2() {
-        when(userRepository.existsById(Mockito.<Long>any())).thenReturn(false);
-        assertThrows(UserException.class, () -> userService.followUser(1L, 1L));
-        verify(userRepository).existsById(Mockito.<Long>any());
+        when(userRepository.insertUserFollower(Mockito.<Long>any(), Mockito.<Long>any())).thenReturn(0L);
+        userService.followUser(2L, 1L);
+        verify(userRepository).insertUserFollower(2L, 1L);
+        verify(followerGraph, never()).followAfterCommit(anyLong(), anyLong());
     }
 
     /**
@@ -751,11 +749,12 @@ class UserServiceTest {
      */
     @Test
     void testFollowUser3() {
-        doNothing().when(userRepository).insertUserFollower(Mockito.<Long>any(), Mockito.<Long>any());
-        when(userRepository.existsById(Mockito.<Long>any())).thenReturn(true);
+        when(userRepository.insertUserFollower(Mockito.<Long>any(), Mockito.<Long>any())).thenReturn(1L);
         userService.followUser(2L, 1L);
-        verify(userRepository).insertUserFollower(Mockito.<Long>any(), Mockito.<Long>any());
-        verify(userRepository, atLeast(1)).existsById(Mockito.<Long>any());
+        verify(userRepository).insertUserFollower(2L, 1L);
+        verify(followerGraph).followAfterCommit(2L, 1L);
+        verify(secondLevelCache).evictFollowsAfterCommit(List.of(2L, 1L));
+        verify(userRepository, never()).existsById(Mockito.<Long>any());
     }
 
     /**
@@ -763,9 +762,9 @@ class UserServiceTest {
      */
     @Test
     void testFollowUser4() {
-        when(userRepository.existsById(Mockito.<Long>any())).thenReturn(false);
+        when(userRepository.insertUserFollower(Mockito.<Long>any(), Mockito.<Long>any()))
+                .thenThrow(new DataIntegrityViolationException("violates foreign key constraint"));
         assertThrows(UserNotFoundException.class, () -> userService.followUser(2L, 1L));
-        verify(userRepository).existsById(Mockito.<Long>any());
     }
 
     /**
@@ -773,12 +772,34 @@ class UserServiceTest {
      */
     @Test
     void testFollowUser5() {
-        doThrow(new UserException("An error occurred")).when(userRepository)
-                .insertUserFollower(Mockito.<Long>any(), Mockito.<Long>any());
-        when(userRepository.existsById(Mockito.<Long>any())).thenReturn(true);
+        when(userRepository.insertUserFollower(Mockito.<Long>any(), Mockito.<Long>any()))
+                .thenThrow(new UserException("An error occurred"));
         assertThrows(UserException.class, () -> userService.followUser(2L, 1L));
         verify(userRepository).insertUserFollower(Mockito.<Long>any(), Mockito.<Long>any());
-        verify(userRepository, atLeast(1)).existsById(Mockito.<Long>any());
+    }
+
+    /**
+     * Method under test: {@link UserService#followUsers(long, List)}
+     */
+    @Test
+    void testFollowUsers() {
+        when(userRepository.insertUserFollowers(1L, List.of(2L, 3L, 4L))).thenReturn(List.of(2L, 4L));
+        assertEquals(List.of(2L, 4L), userService.followUsers(1L, List.of(2L, 3L, 4L)));
+        verify(followerGraph).followAfterCommit(2L, 1L);
+        verify(followerGraph).followAfterCommit(4L, 1L);
+        verify(secondLevelCache).evictFollowsAfterCommit(List.of(2L, 4L, 1L));
+    }
+
+    /**
+     * Method under test: {@link UserService#followUsers(long, List)}
+     */
+    @Test
+    void testFollowUsers2() {
+        assertThrows(UserException.class, () -> userService.followUsers(1L, List.of()));
+        assertThrows(UserException.class, () -> userService.followUsers(1L, Arrays.asList(2L, null)));
+        when(userRepository.insertUserFollowers(Mockito.anyLong(), Mockito.any()))
+                .thenThrow(new DataIntegrityViolationException("violates foreign key constraint"));
+        assertThrows(UserNotFoundException.class, () -> userService.followUsers(1L, List.of(2L)));
     }
 
     /**
@@ -943,13 +964,13 @@ class UserServiceTest {
         user.setId(1L);
         user.setLocked(true);
         user.setPassword("password");
-        user.setProfilePicture("AXAXAXAX".getBytes("UTF-8"));
+        user.setProfilePictureKey("AXAXAXAX");
         user.setRole(Role.USER);
         user.setUsername("warl0ck");
         Optional<User> ofResult = Optional.of(user);
-        when(userRepository.findByEmail(Mockito.<String>any())).thenReturn(ofResult);
+        when(userRepository.findByEmailNaturalId(Mockito.<String>any())).thenReturn(ofResult);
         UserDetails actualLoadUserByUsernameResult = userService.loadUserByUsername("bashir.okala@hotmail.com");
-        verify(userRepository).findByEmail(Mockito.<String>any());
+        verify(userRepository).findByEmailNaturalId(Mockito.<String>any());
         assertSame(user, actualLoadUserByUsernameResult);
     }
 
@@ -959,9 +980,9 @@ class UserServiceTest {
     @Test
     void testLoadUserByUsername2() throws UsernameNotFoundException {
         Optional<User> emptyResult = Optional.empty();
-        when(userRepository.findByEmail(Mockito.<String>any())).thenReturn(emptyResult);
+        when(userRepository.findByEmailNaturalId(Mockito.<String>any())).thenReturn(emptyResult);
         assertThrows(UserException.class, () -> userService.loadUserByUsername("bashir.okala@hotmail.com"));
-        verify(userRepository).findByEmail(Mockito.<String>any());
+        verify(userRepository).findByEmailNaturalId(Mockito.<String>any());
     }
 
     /**
@@ -969,9 +990,9 @@ class UserServiceTest {
      */
     @Test
     void testLoadUserByUsername3() throws UsernameNotFoundException {
-        when(userRepository.findByEmail(Mockito.<String>any())).thenThrow(new UserException("An error occurred"));
+        when(userRepository.findByEmailNaturalId(Mockito.<String>any())).thenThrow(new UserException("An error occurred"));
         assertThrows(UserException.class, () -> userService.loadUserByUsername("bashir.okala@hotmail.com"));
-        verify(userRepository).findByEmail(Mockito.<String>any());
+        verify(userRepository).findByEmailNaturalId(Mockito.<String>any());
     }
 
 
@@ -980,9 +1001,8 @@ class UserServiceTest {
      */
     @Test
     void testUnFollowUser() {
-        when(userRepository.existsById(Mockito.<Long>any())).thenReturn(true);
         assertThrows(UserException.class, () -> userService.unFollowUser(1L, 1L));
-        verify(userRepository).existsById(Mockito.<Long>any());
+        verify(userRepository, never()).deleteByUserIdAndFollowerId(Mockito.<Long>any(), Mockito.<Long>any());
     }
 
     /**
@@ -990,9 +1010,9 @@ class UserServiceTest {
      */
     @Test
     void testUnFollowUser2() {
-        when(userRepository.existsById(Mockito.<Long>any())).thenReturn(false);
-        assertThrows(UserException.class, () -> userService.unFollowUser(1L, 1L));
-        verify(userRepository).existsById(Mockito.<Long>any());
+        when(userRepository.deleteByUserIdAndFollowerId(Mockito.<Long>any(), Mockito.<Long>any())).thenReturn(0L);
+        userService.unFollowUser(2L, 1L);
+        verify(followerGraph, never()).unfollowAfterCommit(anyLong(), anyLong());
     }
 
     /**
@@ -1000,11 +1020,11 @@ class UserServiceTest {
      */
     @Test
     void testUnFollowUser3() {
-        doNothing().when(userRepository).deleteByUserIdAndFollowerId(Mockito.<Long>any(), Mockito.<Long>any());
-        when(userRepository.existsById(Mockito.<Long>any())).thenReturn(true);
+        when(userRepository.deleteByUserIdAndFollowerId(Mockito.<Long>any(), Mockito.<Long>any())).thenReturn(1L);
         userService.unFollowUser(2L, 1L);
-        verify(userRepository).deleteByUserIdAndFollowerId(Mockito.<Long>any(), Mockito.<Long>any());
-        verify(userRepository, atLeast(1)).existsById(Mockito.<Long>any());
+        verify(userRepository).deleteByUserIdAndFollowerId(2L, 1L);
+        verify(followerGraph).unfollowAfterCommit(2L, 1L);
+        verify(secondLevelCache).evictFollowsAfterCommit(List.of(2L, 1L));
     }
 
     /**
@@ -1012,9 +1032,8 @@ class UserServiceTest {
      */
     @Test
     void testUnFollowUser4() {
-        when(userRepository.existsById(Mockito.<Long>any())).thenReturn(false);
-        assertThrows(UserNotFoundException.class, () -> userService.unFollowUser(2L, 1L));
-        verify(userRepository).existsById(Mockito.<Long>any());
+        userService.unFollowUser(2L, 1L);
+        verify(userRepository, never()).existsById(Mockito.<Long>any());
     }
 
     /**
@@ -1022,13 +1041,86 @@ class UserServiceTest {
      */
     @Test
     void testUnFollowUser5() {
-        doThrow(new UserException("An error occurred")).when(userRepository)
-                .deleteByUserIdAndFollowerId(Mockito.<Long>any(), Mockito.<Long>any());
-        when(userRepository.existsById(Mockito.<Long>any())).thenReturn(true);
+        when(userRepository.deleteByUserIdAndFollowerId(Mockito.<Long>any(), Mockito.<Long>any()))
+                .thenThrow(new UserException("An error occurred"));
         assertThrows(UserException.class, () -> userService.unFollowUser(2L, 1L));
         verify(userRepository).deleteByUserIdAndFollowerId(Mockito.<Long>any(), Mockito.<Long>any());
-        verify(userRepository, atLeast(1)).existsById(Mockito.<Long>any());
     }
-}
 
+    /**
+     * Method under test: {@link UserService#scrollFollowers(long, String, int)}
+     */
+    @Test
+    void testScrollFollowers() {
+        when(usernameIndex.findUsername(anyLong())).thenReturn(Optional.of("warl0ck"));
+        when(followerGraph.followers(1L, -1L, 3)).thenReturn(new long[]{2L, 5L, 9L});
+        CursorSlice<UserSummary> actualScrollFollowersResult = userService.scrollFollowers(1L, null, 2);
+        assertEquals(List.of(2L, 5L), actualScrollFollowersResult.getContent().stream().map(UserSummary::getId).toList());
+        assertTrue(actualScrollFollowersResult.isHasNext());
+        assertEquals("5", actualScrollFollowersResult.getNextCursor());
+
+        when(followerGraph.followers(1L, 5L, 3)).thenReturn(new long[]{9L});
+        actualScrollFollowersResult = userService.scrollFollowers(1L, "5", 2);
+        assertEquals(1, actualScrollFollowersResult.getContent().size());
+        assertNull(actualScrollFollowersResult.getNextCursor());
+    }
+
+    /**
+     * Method under test: {@link UserService#scrollFollowers(long, String, int)}
+     */
+    @Test
+    void testScrollFollowers2() {
+        when(usernameIndex.findUsername(anyLong())).thenReturn(Optional.empty());
+        assertThrows(UserNotFoundException.class, () -> userService.scrollFollowers(1L, null, 2));
+    }
+
+    /**
+     * Method under test: {@link UserService#scrollFollowers(long, String, int)}
+     */
+    @Test
+    void testScrollFollowers3() {
+        // registered through another instance, not in this instance's index yet
+        when(usernameIndex.findUsername(anyLong())).thenReturn(Optional.empty());
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(followerGraph.followers(1L, -1L, 3)).thenReturn(new long[]{2L});
+        assertEquals(1, userService.scrollFollowers(1L, null, 2).getContent().size());
+        verify(userRepository).existsById(1L);
+    }
+
+    /**
+     * Method under test: {@link UserService#getKnownFollowers(long, long, int)}
+     */
+    @Test
+    void testGetKnownFollowers() {
+        when(usernameIndex.findUsername(anyLong())).thenReturn(Optional.of("warl0ck"));
+        when(followerIntersections.knownFollowers(2L, 1L))
+                .thenReturn(new FollowerIntersections.Known(14L, new long[]{3L, 4L, 5L, 6L}));
+        KnownFollowers actualKnownFollowers = userService.getKnownFollowers(1L, 2L, 2);
+        assertEquals(14L, actualKnownFollowers.getCount());
+        assertEquals(List.of(3L, 4L), actualKnownFollowers.getSample().stream().map(UserSummary::getId).toList());
+    }
 
+    /**
+     * Method under test: {@link UserService#getRecommendations(long, int)}
+     */
+    @Test
+    void testGetRecommendations() {
+        when(usernameIndex.findUsername(anyLong())).thenReturn(Optional.of("warl0ck"));
+        when(followRecommendations.get(1L))
+                .thenReturn(new FollowRecommendations.Ranked(new long[]{3L, 4L, 5L}, new int[]{9, 7, 2}));
+        when(followerGraph.follows(1L, 4L)).thenReturn(true);
+        List<FollowRecommendation> actualRecommendations = userService.getRecommendations(1L, 2);
+        assertEquals(List.of(3L, 5L), actualRecommendations.stream().map(FollowRecommendation::getId).toList());
+        assertEquals(9, actualRecommendations.get(0).getScore());
+    }
+
+    /**
+     * Method under test: {@link UserService#getRecommendations(long, int)}
+     */
+    @Test
+    void testGetRecommendations2() {
+        when(usernameIndex.findUsername(anyLong())).thenReturn(Optional.of("warl0ck"));
+        when(followRecommendations.get(1L)).thenReturn(null);
+        assertTrue(userService.getRecommendations(1L, 10).isEmpty());
+    }
+}
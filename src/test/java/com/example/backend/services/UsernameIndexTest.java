@@ -0,0 +1,49 @@
+package com.example.backend.services;
+
+import com.example.backend.models.dtos.UsernameSuggestion;
+import com.example.backend.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UsernameIndexTest {
+
+    /**
+     * Method under test: {@link UsernameIndex#search(String, int)}
+     */
+    @Test
+    void testSearchByPrefixIgnoresCase() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findAllUsernames()).thenReturn(List.of(
+                new UsernameSuggestion(1L, "warl0ck"),
+                new UsernameSuggestion(2L, "Warden"),
+                new UsernameSuggestion(3L, "wanderer"),
+                new UsernameSuggestion(4L, "okala")));
+        UsernameIndex index = new UsernameIndex(userRepository);
+        index.load();
+
+        assertEquals(List.of(2L, 1L), index.search("WAR", 10).stream().map(UsernameSuggestion::getId).toList());
+        assertEquals(List.of(3L), index.search("wa", 1).stream().map(UsernameSuggestion::getId).toList());
+        assertTrue(index.search("x", 10).isEmpty());
+    }
+
+    /**
+     * Method under test: {@link UsernameIndex#putAfterCommit(long, String)}
+     */
+    @Test
+    void testRenameAndRemove() {
+        UsernameIndex index = new UsernameIndex(mock(UserRepository.class));
+        index.putAfterCommit(1L, "warl0ck");
+        index.putAfterCommit(1L, "okala");
+        assertTrue(index.search("war", 10).isEmpty());
+        assertEquals("okala", index.search("ok", 10).get(0).getUsername());
+
+        index.removeAfterCommit(1L);
+        assertTrue(index.search("ok", 10).isEmpty());
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.backend.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalPictureStorageTest {
+
+    @TempDir
+    Path root;
+
+    /**
+     * Method under test: {@link LocalPictureStorage#store(String, org.springframework.web.multipart.MultipartFile)}
+     */
+    @Test
+    void testStoreFindAndTransferRange() throws IOException {
+        LocalPictureStorage storage = new LocalPictureStorage(root.toString());
+        String key = storage.store("1", new MockMultipartFile("profilePicture", "me.png", "image/png",
+                "AXAXAXAX".getBytes(StandardCharsets.UTF_8)));
+
+        StoredPicture picture = storage.find(key).orElseThrow();
+        assertEquals(8, picture.getSize());
+        assertEquals(MediaType.IMAGE_PNG, picture.getContentType());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        storage.transferTo(key, 2, 3, Channels.newChannel(out));
+        assertEquals("AXA", out.toString(StandardCharsets.UTF_8));
+
+        storage.delete(key);
+        assertTrue(storage.find(key).isEmpty());
+    }
+
+    /**
+     * Method under test: {@link LocalPictureStorage#store(String, org.springframework.web.multipart.MultipartFile)}
+     */
+    @Test
+    void testStoreRejectsUnsupportedType() throws IOException {
+        LocalPictureStorage storage = new LocalPictureStorage(root.toString());
+        assertThrows(IllegalArgumentException.class, () -> storage.store("1",
+                new MockMultipartFile("profilePicture", "me.txt", "text/plain", new byte[]{1})));
+    }
+
+    /**
+     * Method under test: {@link LocalPictureStorage#find(String)}
+     */
+    @Test
+    void testFindRejectsPathTraversal() throws IOException {
+        LocalPictureStorage storage = new LocalPictureStorage(root.toString());
+        assertThrows(IllegalArgumentException.class, () -> storage.find("../../etc/passwd"));
+    }
+}